@@ -0,0 +1,172 @@
+package com.example.projectcomparator.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import com.example.projectcomparator.model.FileInfo;
+import com.example.projectcomparator.model.Project;
+import com.example.projectcomparator.model.SimilarityMatrix;
+
+/**
+ * Dados determinísticos para os benchmarks: fontes Java sintéticas, variações "parecidas" delas e
+ * projetos gravados em disco ou montados só em memória (para os relatórios).
+ */
+final class BenchmarkCorpus {
+
+    private static final String[] TYPES = { "int", "long", "String", "double", "boolean", "List<String>" };
+    private static final String[] WORDS = { "cliente", "pedido", "total", "valor", "nome", "lista", "indice",
+            "produto", "preco", "quantidade", "usuario", "senha", "email", "status", "data", "resultado" };
+
+    private BenchmarkCorpus() {
+    }
+
+    /** Fonte Java plausível com aproximadamente {@code targetSize} caracteres, com indentação e linhas em branco. */
+    static String javaSource(long seed, int targetSize) {
+        Random random = new Random(seed);
+        StringBuilder source = new StringBuilder(targetSize + 256);
+        source.append("package com.exemplo.loja;\r\n\r\nimport java.util.*;\r\n\r\npublic class Classe").append(seed & 0xFFFF).append(" {\r\n");
+        while (source.length() < targetSize) {
+            String method = word(random) + Character.toUpperCase(word(random).charAt(0)) + word(random).substring(1);
+            source.append("\r\n    public ").append(type(random)).append(' ').append(method).append("(")
+                  .append(type(random)).append(' ').append(word(random)).append(") {\r\n");
+            int statements = 2 + random.nextInt(6);
+            for (int s = 0; s < statements; s++) {
+                source.append("        ").append(type(random)).append(' ').append(word(random)).append(s)
+                      .append(" = ").append(word(random)).append(" + ").append(random.nextInt(1000)).append(";  \r\n");
+                if (random.nextInt(5) == 0) {
+                    source.append("\r\n\r\n");
+                }
+            }
+            source.append("        return ").append(word(random)).append(";\r\n    }\r\n");
+        }
+        return source.append("}\r\n").toString();
+    }
+
+    /** Cópia "disfarçada": troca cerca de {@code rate} das palavras conhecidas e altera espaços. */
+    static String mutate(String source, long seed, double rate) {
+        Random random = new Random(seed);
+        StringBuilder mutated = new StringBuilder(source.length());
+        for (String token : source.split("(?<= )|(?= )")) {
+            if (random.nextDouble() < rate) {
+                for (String word : WORDS) {
+                    if (token.startsWith(word)) {
+                        token = word(random) + token.substring(word.length());
+                        break;
+                    }
+                }
+                if (token.equals(" ")) {
+                    token = "\t";
+                }
+            }
+            mutated.append(token);
+        }
+        return mutated.toString();
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static String type(Random random) {
+        return TYPES[random.nextInt(TYPES.length)];
+    }
+
+    static Path writeFile(Path file, String content) {
+        try {
+            Files.createDirectories(file.getParent());
+            return Files.writeString(file, content, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Grava um projeto Maven com {@code fileCount} fontes de ~{@code fileSize} caracteres. Com
+     * {@code mutationRate > 0}, cada fonte é uma variação do projeto gerado com {@code baseSeed}.
+     */
+    static Path writeProject(Path root, int fileCount, int fileSize, long baseSeed, long mutationSeed, double mutationRate) {
+        writeFile(root.resolve("pom.xml"), "<project><modelVersion>4.0.0</modelVersion></project>\n");
+        for (int f = 0; f < fileCount; f++) {
+            String content = javaSource(baseSeed * 100_003 + f, fileSize);
+            if (mutationRate > 0) {
+                content = mutate(content, mutationSeed * 100_003 + f, mutationRate);
+            }
+            writeFile(root.resolve("src/main/java/com/exemplo/loja/Classe" + f + ".java"), content);
+        }
+        return root;
+    }
+
+    /** Projeto montado a partir dos arquivos em disco, sem hash de conteúdo (força a leitura na comparação). */
+    static Project projectFromDisk(String name, Path root) {
+        Map<String, FileInfo> files = new LinkedHashMap<>();
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path file : paths.filter(Files::isRegularFile).sorted().toList()) {
+                String relativePath = root.relativize(file).toString().replace("\\", "/");
+                FileTime modified = Files.getLastModifiedTime(file);
+                files.put(relativePath, new FileInfo(relativePath, file, Files.size(file), null, modified, modified));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Project(name, root, files);
+    }
+
+    /** Projetos só em memória (os relatórios não leem os arquivos) e uma matriz com scores pseudoaleatórios. */
+    static Map<String, Project> inMemoryProjects(int projectCount, int filesPerProject) {
+        Map<String, Project> projects = new LinkedHashMap<>();
+        FileTime time = FileTime.fromMillis(1_700_000_000_000L);
+        for (int p = 0; p < projectCount; p++) {
+            String name = String.format("aluno%04d", p);
+            Map<String, FileInfo> files = new LinkedHashMap<>();
+            for (int f = 0; f < filesPerProject; f++) {
+                String relativePath = "src/main/java/com/exemplo/loja/Classe" + f + ".java";
+                files.put(relativePath, new FileInfo(relativePath, Path.of(name, relativePath), 4096 + f,
+                        String.format("%064x", (long) p * 1_000 + f), time, time));
+            }
+            projects.put(name, new Project(name, Path.of(name), files));
+        }
+        return projects;
+    }
+
+    static SimilarityMatrix randomMatrix(List<String> names, long seed) {
+        SimilarityMatrix matrix = new SimilarityMatrix(names);
+        Random random = new Random(seed);
+        for (int i = 0; i < names.size(); i++) {
+            for (int j = i + 1; j < names.size(); j++) {
+                matrix.set(i, j, random.nextDouble() * 100.0);
+            }
+        }
+        return matrix;
+    }
+
+    static Path createTempDirectory(String prefix) {
+        try {
+            return Files.createTempDirectory(prefix);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void deleteRecursively(Path root) {
+        if (root == null || !Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.projectcomparator.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.example.projectcomparator.config.ComparatorProperties;
+import com.example.projectcomparator.model.FileInfo;
+
+/**
+ * Similaridade de um par de arquivos, por tamanho de arquivo e estratégia.
+ * {@code cache=cold} recria o serviço a cada chamada (lê, normaliza e gera impressões do zero);
+ * {@code cache=warm} mede só o kernel de similaridade sobre o conteúdo já em cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ContentSimilarityBenchmark {
+
+    @Param({ "1024", "8192", "32768" })
+    int fileSize;
+
+    @Param({ "JARO_WINKLER", "WINNOWING" })
+    ComparatorProperties.Similarity.Strategy strategy;
+
+    @Param({ "cold", "warm" })
+    String cache;
+
+    private Path directory;
+    private FileInfo original;
+    private FileInfo copy;
+    private ComparatorProperties properties;
+    private ProjectComparerService service;
+
+    @Setup(Level.Trial)
+    public void createFiles() throws IOException {
+        directory = BenchmarkCorpus.createTempDirectory("bench-content");
+        String rawContent = BenchmarkCorpus.javaSource(42, fileSize);
+        original = fileInfo(BenchmarkCorpus.writeFile(directory.resolve("a/Classe.java"), rawContent));
+        copy = fileInfo(BenchmarkCorpus.writeFile(directory.resolve("b/Classe.java"), BenchmarkCorpus.mutate(rawContent, 7, 0.2)));
+        properties = new ComparatorProperties();
+        properties.getSimilarity().setStrategy(strategy);
+        service = newService();
+    }
+
+    private static FileInfo fileInfo(Path file) throws IOException {
+        FileTime modified = Files.getLastModifiedTime(file);
+        return new FileInfo("Classe.java", file, Files.size(file), null, modified, modified);
+    }
+
+    private ProjectComparerService newService() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new ProjectComparerService(properties, new FingerprintIndex(properties), new FileAccess(properties, meterRegistry), meterRegistry);
+    }
+
+    @Setup(Level.Invocation)
+    public void resetCaches() {
+        if ("cold".equals(cache)) {
+            service = newService();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() {
+        BenchmarkCorpus.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public double calculateFileContentSimilarity() {
+        return service.calculateFileContentSimilarity(original, copy);
+    }
+}
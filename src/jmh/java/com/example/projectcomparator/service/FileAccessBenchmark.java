@@ -0,0 +1,106 @@
+package com.example.projectcomparator.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.util.unit.DataSize;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.example.projectcomparator.config.ComparatorProperties;
+import com.example.projectcomparator.model.FileInfo;
+
+/**
+ * {@link FileAccess} (buffer do heap reaproveitado do pool, de uma vez ou em blocos, ou arquivo mapeado acima
+ * de {@code map-threshold}) contra a leitura por {@link InputStream} que era usada antes, tanto para o hash
+ * quanto para a normalização.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileAccessBenchmark {
+
+    // De 1 KB a 50 MB, passando pelo buffer-size padrão (256 KB)
+    @Param({ "1024", "65536", "262144", "1048576", "8388608", "52428800" })
+    int fileSize;
+
+    // Padrão (50 MB: só blocos pelo pool) contra mapear tudo acima do buffer-size, o comportamento anterior
+    @Param({ "52428800", "262144" })
+    long mapThreshold;
+
+    private Path directory;
+    private Path file;
+    private FileAccess fileAccess;
+    private ProjectComparerService service;
+    private FileInfo fileInfo;
+
+    @Setup(Level.Trial)
+    public void createFile() {
+        directory = BenchmarkCorpus.createTempDirectory("bench-file-access");
+        file = BenchmarkCorpus.writeFile(directory.resolve("Classe.java"), BenchmarkCorpus.javaSource(9, fileSize));
+        ComparatorProperties properties = new ComparatorProperties();
+        properties.getCache().setMaxSize(DataSize.ofBytes(0)); // Sem cache: toda chamada lê e normaliza o arquivo
+        properties.getFileAccess().setMapThreshold(DataSize.ofBytes(mapThreshold));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        fileAccess = new FileAccess(properties, meterRegistry);
+        service = new ProjectComparerService(properties, new FingerprintIndex(properties), fileAccess, meterRegistry);
+        fileInfo = new FileInfo("Classe.java", file, fileSize, null, null, null);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() {
+        BenchmarkCorpus.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public byte[] sha256FileAccess() throws IOException, NoSuchAlgorithmException {
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        fileAccess.readBlocks(file, md::update);
+        return md.digest();
+    }
+
+    @Benchmark
+    public byte[] sha256InputStream() throws IOException, NoSuchAlgorithmException {
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream is = Files.newInputStream(file)) {
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                md.update(buffer, 0, read);
+            }
+        }
+        return md.digest();
+    }
+
+    @Benchmark
+    public char[] normalizeFileAccess() throws IOException {
+        return service.getNormalizedContent(fileInfo);
+    }
+
+    @Benchmark
+    public String normalizeReadString() throws IOException {
+        return TextNormalizer.normalize(Files.readString(file));
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.projectcomparator.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.example.projectcomparator.config.ComparatorProperties;
+
+/**
+ * {@code normalizeTextContent} sobre um fonte já em memória, por tamanho, e a normalização direto dos bytes:
+ * com o decoder UTF-8 ou com a detecção de {@link TextEncoding} (ASCII sem decoder).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NormalizerBenchmark {
+
+    @Param({ "1024", "16384", "262144" })
+    int fileSize;
+
+    private String rawContent;
+    private byte[] rawBytes;
+    private ProjectComparerService service;
+    private final TextNormalizer normalizer = new TextNormalizer(new StringBuilder());
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+
+    @Setup(Level.Trial)
+    public void createContent() {
+        rawContent = BenchmarkCorpus.javaSource(42, fileSize);
+        rawBytes = rawContent.getBytes(StandardCharsets.UTF_8);
+        ComparatorProperties properties = new ComparatorProperties();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        service = new ProjectComparerService(properties, new FingerprintIndex(properties), new FileAccess(properties, meterRegistry), meterRegistry);
+    }
+
+    @Benchmark
+    public String normalizeTextContent() {
+        return service.normalizeTextContent(rawContent);
+    }
+
+    @Benchmark
+    public void normalizeBytesWithDecoder() throws CharacterCodingException {
+        normalizer.normalizeInto(ByteBuffer.wrap(rawBytes), decoder);
+    }
+
+    @Benchmark
+    public TextEncoding normalizeBytesDetected() {
+        return normalizer.normalizeInto(ByteBuffer.wrap(rawBytes));
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.projectcomparator.service;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.example.projectcomparator.config.ComparatorProperties;
+import com.example.projectcomparator.model.ComparisonResult;
+import com.example.projectcomparator.model.Project;
+
+/**
+ * {@code compareProjects} entre um projeto e uma cópia alterada dele, por quantidade de arquivos.
+ * Com {@code cache=cold} cada comparação começa com caches e índice vazios.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProjectComparisonBenchmark {
+
+    @Param({ "10", "50", "200" })
+    int fileCount;
+
+    @Param({ "4096" })
+    int fileSize;
+
+    @Param({ "JARO_WINKLER", "WINNOWING" })
+    ComparatorProperties.Similarity.Strategy strategy;
+
+    @Param({ "cold", "warm" })
+    String cache;
+
+    private Path directory;
+    private Project original;
+    private Project copy;
+    private ComparatorProperties properties;
+    private ProjectComparerService service;
+
+    @Setup(Level.Trial)
+    public void createProjects() {
+        directory = BenchmarkCorpus.createTempDirectory("bench-projects");
+        original = BenchmarkCorpus.projectFromDisk("original",
+                BenchmarkCorpus.writeProject(directory.resolve("original"), fileCount, fileSize, 1, 0, 0));
+        copy = BenchmarkCorpus.projectFromDisk("copia",
+                BenchmarkCorpus.writeProject(directory.resolve("copia"), fileCount, fileSize, 1, 2, 0.15));
+        properties = new ComparatorProperties();
+        properties.getSimilarity().setStrategy(strategy);
+        service = newService();
+    }
+
+    private ProjectComparerService newService() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new ProjectComparerService(properties, new FingerprintIndex(properties), new FileAccess(properties, meterRegistry), meterRegistry);
+    }
+
+    @Setup(Level.Invocation)
+    public void resetCaches() {
+        if ("cold".equals(cache)) {
+            service = newService();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteProjects() {
+        BenchmarkCorpus.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public ComparisonResult compareProjects() {
+        return service.compareProjects(original, copy);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.projectcomparator.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.example.projectcomparator.config.ComparatorProperties;
+import com.example.projectcomparator.model.FileInfo;
+
+/**
+ * Varredura de um projeto: hash SHA-256 de um arquivo e {@code loadProjectFiles} completo.
+ * Com {@code index=cold} o índice de hashes começa vazio a cada chamada (primeira execução);
+ * com {@code index=warm} os hashes vêm do índice (execuções seguintes sobre a mesma pasta).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProjectScanBenchmark {
+
+    @Param({ "50", "500" })
+    int fileCount;
+
+    @Param({ "4096", "65536" })
+    int fileSize;
+
+    @Param({ "cold", "warm" })
+    String index;
+
+    private Path directory;
+    private Path projectRoot;
+    private Path sampleFile;
+    private ComparatorProperties properties;
+    private ProjectFinderService finder;
+
+    @Setup(Level.Trial)
+    public void createProject() {
+        directory = BenchmarkCorpus.createTempDirectory("bench-scan");
+        projectRoot = BenchmarkCorpus.writeProject(directory.resolve("projeto"), fileCount, fileSize, 3, 0, 0);
+        sampleFile = projectRoot.resolve("src/main/java/com/exemplo/loja/Classe0.java");
+        properties = new ComparatorProperties();
+        finder = newFinder();
+    }
+
+    private ProjectFinderService newFinder() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new ProjectFinderService(properties, new FingerprintIndex(properties), new FileAccess(properties, meterRegistry), meterRegistry);
+    }
+
+    @Setup(Level.Invocation)
+    public void resetIndex() {
+        if ("cold".equals(index)) {
+            finder = newFinder();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteProject() {
+        BenchmarkCorpus.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public String calculateSHA256() throws IOException, NoSuchAlgorithmException {
+        return finder.calculateSHA256(sampleFile);
+    }
+
+    @Benchmark
+    public Map<String, FileInfo> loadProjectFiles() throws IOException, NoSuchAlgorithmException {
+        return finder.loadProjectFiles(projectRoot);
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.projectcomparator.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.example.projectcomparator.config.ComparatorProperties;
+import com.example.projectcomparator.model.Project;
+import com.example.projectcomparator.model.SimilarityMatrix;
+
+/**
+ * Geração dos relatórios Excel e HTML por número de projetos, em cada modo. Cada chamada grava o
+ * arquivo completo.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReportBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class ReportData {
+
+        @Param({ "50", "200", "500" })
+        int projectCount;
+
+        @Param({ "30" })
+        int filesPerProject;
+
+        Path directory;
+        Map<String, Project> projectMap;
+        SimilarityMatrix matrix;
+
+        @Setup(Level.Trial)
+        public void createData() {
+            directory = BenchmarkCorpus.createTempDirectory("bench-report");
+            projectMap = BenchmarkCorpus.inMemoryProjects(projectCount, filesPerProject);
+            matrix = BenchmarkCorpus.randomMatrix(new ArrayList<>(projectMap.keySet()), 5);
+        }
+
+        @TearDown(Level.Trial)
+        public void deleteReports() {
+            BenchmarkCorpus.deleteRecursively(directory);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ExcelState {
+
+        @Param({ "IN_MEMORY", "STREAMING" })
+        ComparatorProperties.Report.ExcelMode excelMode;
+
+        ExcelReportService service;
+
+        @Setup(Level.Trial)
+        public void createService() {
+            ComparatorProperties properties = new ComparatorProperties();
+            properties.getReport().setExcelMode(excelMode);
+            service = new ExcelReportService(properties, new SimpleMeterRegistry());
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class HtmlState {
+
+        @Param({ "TABLE", "INTERACTIVE" })
+        ComparatorProperties.Report.HtmlMode htmlMode;
+
+        HtmlReportService service;
+
+        @Setup(Level.Trial)
+        public void createService() {
+            ComparatorProperties properties = new ComparatorProperties();
+            properties.getReport().setHtmlMode(htmlMode);
+            service = new HtmlReportService(properties, new SimpleMeterRegistry());
+        }
+    }
+
+    @Benchmark
+    public void excelReport(ReportData data, ExcelState excel) throws IOException {
+        excel.service.generateReport(data.matrix, data.projectMap, 20, data.directory.resolve("relatorio.xlsx").toString());
+    }
+
+    @Benchmark
+    public void htmlReport(ReportData data, HtmlState html) throws IOException {
+        html.service.generateReport(data.matrix, data.projectMap, 20, data.directory.resolve("relatorio.html").toString());
+    }
+}
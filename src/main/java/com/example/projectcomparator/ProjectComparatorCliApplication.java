@@ -1,11 +1,19 @@
 package com.example.projectcomparator;
 
+import com.example.projectcomparator.config.ComparatorProperties;
 import com.example.projectcomparator.model.ComparisonResult;
+import com.example.projectcomparator.model.NearestNeighbours;
 import com.example.projectcomparator.model.Project;
+import com.example.projectcomparator.model.SimilarityMatrix;
+import com.example.projectcomparator.service.ComparisonEngine;
 import com.example.projectcomparator.service.ExcelReportService;
+import com.example.projectcomparator.service.FingerprintIndex;
 import com.example.projectcomparator.service.HtmlReportService; // Importar novo serviço
 import com.example.projectcomparator.service.ProjectComparerService;
 import com.example.projectcomparator.service.ProjectFinderService;
+import com.example.projectcomparator.service.ReferenceCorpus;
+import com.example.projectcomparator.service.RunSummaryService;
+import com.example.projectcomparator.service.SimilarityMatrixStore;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,10 +25,11 @@ import java.io.IOException; // Importar IOException
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Collections;
-import java.util.HashMap; // Importar HashMap
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map; // Importar Map
@@ -37,16 +46,32 @@ public class ProjectComparatorCliApplication implements CommandLineRunner {
 
     private final ProjectFinderService projectDiscoveryService;
     private final ProjectComparerService comparisonService;
+    private final ComparisonEngine comparisonEngine;
     private final HtmlReportService htmlReportService; // Adicionar o novo serviço
     private final ExcelReportService excelReportService;
+    private final FingerprintIndex fingerprintIndex;
+    private final SimilarityMatrixStore matrixStore;
+    private final ReferenceCorpus referenceCorpus;
+    private final RunSummaryService runSummaryService;
+    private final ComparatorProperties properties;
 
     // Atualizar construtor para injetar HtmlReportService
     public ProjectComparatorCliApplication(ProjectFinderService projectDiscoveryService, ProjectComparerService comparisonService,
-                                           HtmlReportService htmlReportService, ExcelReportService excelReportService) {
+                                           ComparisonEngine comparisonEngine,
+                                           HtmlReportService htmlReportService, ExcelReportService excelReportService,
+                                           FingerprintIndex fingerprintIndex, SimilarityMatrixStore matrixStore,
+                                           ReferenceCorpus referenceCorpus,
+                                           RunSummaryService runSummaryService, ComparatorProperties properties) {
         this.projectDiscoveryService = projectDiscoveryService;
         this.comparisonService = comparisonService;
+        this.comparisonEngine = comparisonEngine;
         this.htmlReportService = htmlReportService;
         this.excelReportService = excelReportService;
+        this.fingerprintIndex = fingerprintIndex;
+        this.matrixStore = matrixStore;
+        this.referenceCorpus = referenceCorpus;
+        this.runSummaryService = runSummaryService;
+        this.properties = properties;
     }
 
     public static void main(String[] args) {
@@ -79,100 +104,238 @@ public class ProjectComparatorCliApplication implements CommandLineRunner {
             return;
         }
 
-        String timestamp = LocalDateTime.now().format(FILE_TIMESTAMP_FORMATTER);
+        LocalDateTime startedAt = LocalDateTime.now();
+        String timestamp = startedAt.format(FILE_TIMESTAMP_FORMATTER);
         String baseOutputFilename = (args.length > 1 && args[1] != null && !args[1].trim().isEmpty())
                                     ? args[1].trim()
                                     : DEFAULT_BASE_FILENAME + '_' + timestamp;
 
         // String htmlOutputFileName = baseOutputFilename + ".html";
         String excelOutputFileName = baseOutputFilename + ".xlsx";
+        String summaryFileName = baseOutputFilename + "_metricas.json";
+        String referenceOutputFileName = baseOutputFilename + "_referencia.csv";
 
 
+        // Índice persistente de hashes/impressões, gravado ao lado do relatório
+        Path reportDirectory = Paths.get(excelOutputFileName).toAbsolutePath().getParent();
+        if (properties.getIndex().isEnabled()) {
+            fingerprintIndex.load(reportDirectory.resolve(properties.getIndex().getFileName()));
+        }
+
         logger.info("Iniciando varredura de projetos em: {}", parentDirectory);
         List<Project> projects = projectDiscoveryService.findProjects(parentDirectory, webProject);
 
-        if (projects.isEmpty()) {
-            logger.info("Nenhum projeto encontrado. Nenhum relatório será gerado.");
-            System.out.println("Nenhum projeto encontrado. Nenhum relatório será gerado.");
-            // Gerar um HTML vazio ou com mensagem se desejado, mesmo sem projetos
-            try {
-               // htmlReportService.generateReport(Collections.emptyList(), Collections.emptyMap(), new HashMap<>(), similarityThreshold, htmlOutputFileName);
-                excelReportService.generateReport(Collections.emptyList(), Collections.emptyMap(), new HashMap<>(), similarityThreshold, excelOutputFileName);
-            } catch (IOException e) {
-                logger.error("Falha ao tentar gerar relatório HTML vazio: {}", e.getMessage(), e);
+        try {
+            if (projects.isEmpty()) {
+                logger.info("Nenhum projeto encontrado. Nenhum relatório será gerado.");
+                System.out.println("Nenhum projeto encontrado. Nenhum relatório será gerado.");
+                // Gerar um HTML vazio ou com mensagem se desejado, mesmo sem projetos
+                try {
+                   // htmlReportService.generateReport(new SimilarityMatrix(Collections.emptyList()), Collections.emptyMap(), similarityThreshold, htmlOutputFileName);
+                    excelReportService.generateReport(new SimilarityMatrix(Collections.emptyList()), Collections.emptyMap(), similarityThreshold, excelOutputFileName);
+                } catch (IOException e) {
+                    logger.error("Falha ao tentar gerar relatório HTML vazio: {}", e.getMessage(), e);
+                }
+                writeRunSummary(summaryFileName, startedAt, parentDirectory, 0, excelOutputFileName);
+                return;
             }
-            return;
-        }
 
-        // Ordenar nomes de projetos para cabeçalhos da tabela
-        List<String> sortedProjectNames = projects.stream()
-                                                .map(Project::getName)
-                                                .sorted()
-                                                .collect(Collectors.toList());
+            // Ordenar nomes de projetos para cabeçalhos da tabela
+            List<String> sortedProjectNames = projects.stream()
+                                                    .map(Project::getName)
+                                                    .sorted()
+                                                    .collect(Collectors.toList());
 
-        // Mapear nomes para objetos Project para fácil acesso
-        Map<String, Project> projectMap = projects.stream()
-                                                .collect(Collectors.toMap(Project::getName, Function.identity()));
+            // Mapear nomes para objetos Project para fácil acesso
+            Map<String, Project> projectMap = projects.stream()
+                                                    .collect(Collectors.toMap(Project::getName, Function.identity()));
 
-        // Estrutura para armazenar todos os resultados de similaridade
-        Map<String, Map<String, Double>> similarityScores = new HashMap<>();
-        for (String name : sortedProjectNames) {
-            similarityScores.put(name, new HashMap<>()); // Inicializa mapas internos
-        }
+            // Corpus de referência: entregas de lotes anteriores, consultadas por índice e não par a par
+            if (properties.getReference().isEnabled()) {
+                reportReferenceMatches(projects, parentDirectory, reportDirectory, similarityThreshold, referenceOutputFileName);
+            }
+
+            logger.info("{} projetos encontrados. Iniciando comparações...", projects.size());
+            System.out.println(String.format("\n%d projetos encontrados. Calculando similaridades:", projects.size()));
 
-        logger.info("{} projetos encontrados. Iniciando comparações...", projects.size());
-        System.out.println(String.format("\n%d projetos encontrados. Calculando similaridades:", projects.size()));
-
-        // Calcular similaridades e preencher o mapa `similarityScores`
-        // Este loop calcula cada par (A,B) uma vez e preenche simetricamente
-        for (int i = 0; i < sortedProjectNames.size(); i++) {
-            String projNameA = sortedProjectNames.get(i);
-            Project projectA = projectMap.get(projNameA);
-
-            for (int j = i; j < sortedProjectNames.size(); j++) { // j começa em i
-                String projNameB = sortedProjectNames.get(j);
-                Project projectB = projectMap.get(projNameB);
-
-                double similarity;
-                if (projNameA.equals(projNameB)) { // Comparação de um projeto com ele mesmo
-                    similarity = 100.0;
-                } else {
-                    ComparisonResult result = comparisonService.compareProjects(projectA, projectB);
-                    similarity = result.getSimilarityPercentage();
-
-                    // Imprimir no console (opcional, apenas para pares distintos)
-                    System.out.println(String.format("\nComparando '%s' com '%s':", projNameA, projNameB));
-                    if (Math.abs(similarity - 100.0) < 0.001) {
-                        System.out.println("  Resultado: São cópias um do outro.");
-                    } else {
-                        System.out.println(String.format(Locale.US, "  Resultado: Percentual de similaridade: %.2f%%", similarity));
+            // Modo vizinhos: só os k projetos mais parecidos de cada um, sem a matriz completa nem a matriz incremental
+            if (properties.getNeighbours().isEnabled()) {
+                reportNeighbours(sortedProjectNames, projectMap, similarityThreshold, excelOutputFileName);
+                comparisonService.clearContentCache();
+                fingerprintIndex.save();
+                writeRunSummary(summaryFileName, startedAt, parentDirectory, projects.size(), excelOutputFileName);
+                logger.info("Processo finalizado.");
+                return;
+            }
+
+            // Matriz da execução anterior: só projetos novos ou alterados precisam ser comparados de novo
+            Map<String, String> projectDigests = projects.stream()
+                                                    .collect(Collectors.toMap(Project::getName, SimilarityMatrixStore::digest));
+            Path matrixFile = reportDirectory.resolve(properties.getMatrix().getFileName());
+            SimilarityMatrixStore.PreviousScores previousScores = properties.getMatrix().isIncremental()
+                                                                  ? matrixStore.load(matrixFile)
+                                                                  : null;
+
+            // Calcular similaridades em paralelo; cada par (A,B) é calculado uma vez e guardado no triângulo superior.
+            // Pares cujo limite superior fica abaixo do limite do relatório não têm arquivos lidos.
+            SimilarityMatrix similarityMatrix = comparisonEngine.computeSimilarityMatrix(
+                    sortedProjectNames, projectMap, projectDigests, previousScores, similarityThreshold);
+            if (properties.getMatrix().isIncremental()) {
+                matrixStore.save(matrixFile, similarityMatrix, projectDigests);
+            }
+
+            // Detalhe por par só para os pares acima do limite; os demais aparecem apenas em DEBUG.
+            // O andamento (pares/s, MB/s, tempo restante) já foi impresso em stderr pelo ProgressReporter.
+            long pairsAboveThreshold = 0;
+            for (int i = 0; i < sortedProjectNames.size(); i++) {
+                String projNameA = sortedProjectNames.get(i);
+                for (int j = i + 1; j < sortedProjectNames.size(); j++) {
+                    String projNameB = sortedProjectNames.get(j);
+                    double similarity = similarityMatrix.get(i, j); // NaN para limites e estimativas, que não entram no limite
+                    if (similarity > similarityThreshold) { // Mesmo critério do destaque nos relatórios
+                        pairsAboveThreshold++;
+                        if (Math.abs(similarity - 100.0) < 0.001) {
+                            System.out.println(String.format("'%s' x '%s': São cópias um do outro.", projNameA, projNameB));
+                        } else {
+                            System.out.println(String.format(Locale.US, "'%s' x '%s': %.2f%%", projNameA, projNameB, similarity));
+                        }
+                        for (ComparisonResult.CrossPathMatch match : similarityMatrix.getCrossPathMatches(i, j)) {
+                            System.out.println(String.format("    movido/renomeado: %s", match));
+                        }
+                    } else if (logger.isDebugEnabled()) {
+                        logger.debug("'{}' x '{}': {}", projNameA, projNameB, similarityMatrix.isUpperBound(i, j)
+                                ? String.format(Locale.US, "abaixo do limite (máx. %.2f%%)", similarityMatrix.upperBound(i, j))
+                                : similarityMatrix.isEstimate(i, j)
+                                ? String.format(Locale.US, "estimado %.2f%% (não comparado)", similarityMatrix.estimate(i, j))
+                                : String.format(Locale.US, "%.2f%%", similarity));
                     }
                 }
-                // Preencher o mapa simetricamente
-                similarityScores.get(projNameA).put(projNameB, similarity);
-                similarityScores.get(projNameB).put(projNameA, similarity);
             }
+            System.out.println(String.format(Locale.US, "%d de %d pares com similaridade acima de %.2f%%",
+                    pairsAboveThreshold, SimilarityMatrix.pairCount(sortedProjectNames.size()), similarityThreshold));
+            long upperBoundPairs = similarityMatrix.upperBoundCount();
+            if (upperBoundPairs > 0) {
+                System.out.println(String.format("%d pares abaixo do limite descartados pelo limite superior, sem leitura de arquivos",
+                        upperBoundPairs));
+            }
+            long estimatedPairs = similarityMatrix.estimateCount();
+            if (estimatedPairs > 0) {
+                System.out.println(String.format("%d pares fora dos candidatos do LSH, só com a similaridade estimada (não comparados)",
+                        estimatedPairs));
+            }
+
+            logger.info("Análise de similaridade concluída.");
+            logger.info("Cache de conteúdo: {}", comparisonService.getContentCacheStatistics());
+            logger.info("Cache de impressões: {}", comparisonService.getFingerprintCacheStatistics());
+            comparisonService.clearContentCache();
+            fingerprintIndex.save();
+
+            // Gerar Relatório HTML
+            // logger.info("Gerando relatório HTML...");
+            // try {
+            //     htmlReportService.generateReport(similarityMatrix, projectMap, similarityThreshold, htmlOutputFileName);
+            // } catch (IOException e) {
+            //     logger.error("Falha ao gerar relatório HTML: {}", e.getMessage(), e);
+            //     System.err.println("Falha ao gerar relatório HTML: " + e.getMessage());
+            // }
+
+            // Gerar Relatório Excel
+            logger.info("Gerando relatório Excel...");
+            try {
+                excelReportService.generateReport(similarityMatrix, projectMap, similarityThreshold, excelOutputFileName);
+            } catch (IOException e) {
+                logger.error("Falha ao gerar relatório Excel: {}", e.getMessage(), e);
+                System.err.println("Falha ao gerar relatório Excel: " + e.getMessage());
+            }
+            writeRunSummary(summaryFileName, startedAt, parentDirectory, projects.size(), excelOutputFileName);
+            logger.info("Processo finalizado.");
+        } finally {
+            projectDiscoveryService.closeArchives(); // Também em falhas: não deixa os ZIPs abertos até o fim da aplicação
         }
+    }
 
-        logger.info("Análise de similaridade concluída.");
+    private void reportNeighbours(List<String> sortedProjectNames, Map<String, Project> projectMap,
+                                  double similarityThreshold, String excelOutputFileName) {
+        int k = properties.getNeighbours().getK();
+        NearestNeighbours neighbours = comparisonEngine.computeNearestNeighbours(sortedProjectNames, projectMap, k);
 
-        // Gerar Relatório HTML
-        // logger.info("Gerando relatório HTML...");
-        // try {
-        //     htmlReportService.generateReport(sortedProjectNames, projectMap, similarityScores, similarityThreshold, htmlOutputFileName);
-        // } catch (IOException e) {
-        //     logger.error("Falha ao gerar relatório HTML: {}", e.getMessage(), e);
-        //     System.err.println("Falha ao gerar relatório HTML: " + e.getMessage());
-        // }
+        // Cada par aparece uma vez, pelo projeto de menor índice, mesmo que esteja no top-k dos dois
+        long pairsAboveThreshold = 0;
+        for (int i = 0; i < neighbours.size(); i++) {
+            for (int rank = 0; rank < neighbours.neighbourCount(i); rank++) {
+                int j = neighbours.neighbour(i, rank);
+                double similarity = neighbours.similarity(i, rank);
+                if (similarity <= similarityThreshold || (j < i && isNeighbour(neighbours, j, i))) {
+                    continue;
+                }
+                pairsAboveThreshold++;
+                System.out.println(String.format(Locale.US, "'%s' -> '%s' (%dº vizinho): %.2f%%",
+                        neighbours.getProjectName(i), neighbours.getProjectName(j), rank + 1, similarity));
+            }
+        }
+        System.out.println(String.format(Locale.US, "%d pares entre os %d vizinhos mais parecidos com similaridade acima de %.2f%%",
+                pairsAboveThreshold, k, similarityThreshold));
+        logger.info("Cache de conteúdo: {}", comparisonService.getContentCacheStatistics());
 
-        // Gerar Relatório Excel
-        logger.info("Gerando relatório Excel...");
+        logger.info("Gerando relatório Excel de vizinhos...");
         try {
-            excelReportService.generateReport(sortedProjectNames, projectMap, similarityScores, similarityThreshold, excelOutputFileName);
+            excelReportService.generateNeighbourReport(neighbours, projectMap, similarityThreshold, excelOutputFileName);
         } catch (IOException e) {
             logger.error("Falha ao gerar relatório Excel: {}", e.getMessage(), e);
             System.err.println("Falha ao gerar relatório Excel: " + e.getMessage());
         }
-        logger.info("Processo finalizado.");
+    }
+
+    private void reportReferenceMatches(List<Project> projects, Path parentDirectory, Path reportDirectory,
+                                        double similarityThreshold, String referenceOutputFileName) {
+        ComparatorProperties.Reference reference = properties.getReference();
+        referenceCorpus.load(reportDirectory.resolve(reference.getPath()));
+        List<ReferenceCorpus.Match> matches = referenceCorpus.query(projects, similarityThreshold);
+        for (ReferenceCorpus.Match match : matches) {
+            System.out.println(String.format(Locale.US, "'%s' ~ referência '%s': %.2f%% (%d arquivos idênticos, %d semelhantes)",
+                    match.project(), match.reference(), match.similarity(), match.identicalFiles(), match.similarFiles()));
+        }
+        System.out.println(String.format("%d projetos com entregas parecidas entre os %d projetos do corpus de referência",
+                matches.stream().map(ReferenceCorpus.Match::project).distinct().count(), referenceCorpus.projectCount()));
+        try {
+            ReferenceCorpus.writeMatches(Paths.get(referenceOutputFileName), matches);
+        } catch (IOException e) {
+            logger.error("Falha ao gravar correspondências com o corpus de referência: {}", e.getMessage(), e);
+        }
+        // Acrescentado depois da consulta, para que o lote não encontre a si mesmo
+        if (reference.isAppendBatch()) {
+            referenceCorpus.append(projects, parentDirectory.getFileName().toString());
+        }
+    }
+
+    private static boolean isNeighbour(NearestNeighbours neighbours, int row, int column) {
+        for (int rank = 0; rank < neighbours.neighbourCount(row); rank++) {
+            if (neighbours.neighbour(row, rank) == column) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Resumo da execução com os tempos por fase e contadores (ver {@link RunSummaryService}). */
+    private void writeRunSummary(String summaryFileName, LocalDateTime startedAt, Path parentDirectory,
+                                 int projectCount, String excelOutputFileName) {
+        if (!runSummaryService.isEnabled()) {
+            return;
+        }
+        LocalDateTime finishedAt = LocalDateTime.now();
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("startedAt", startedAt.toString());
+        run.put("finishedAt", finishedAt.toString());
+        run.put("durationMs", Duration.between(startedAt, finishedAt).toMillis());
+        run.put("parentDirectory", parentDirectory.toAbsolutePath().toString());
+        run.put("projects", projectCount);
+        run.put("pairs", (long) projectCount * (projectCount - 1) / 2);
+        run.put("excelReport", Paths.get(excelOutputFileName).toAbsolutePath().toString());
+        try {
+            runSummaryService.writeSummary(Paths.get(summaryFileName), run);
+        } catch (IOException e) {
+            logger.error("Falha ao gravar resumo da execução: {}", e.getMessage(), e);
+        }
     }
 }
@@ -0,0 +1,305 @@
+package com.example.projectcomparator.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Parâmetros de execução do comparador (prefixo {@code comparator} no application.properties).
+ */
+@Component
+@ConfigurationProperties(prefix = "comparator")
+public class ComparatorProperties {
+
+    private final Engine engine = new Engine();
+    private final Cache cache = new Cache();
+    private final Lsh lsh = new Lsh();
+    private final Similarity similarity = new Similarity();
+    private final Discovery discovery = new Discovery();
+    private final Index index = new Index();
+    private final Matrix matrix = new Matrix();
+    private final FileAccess fileAccess = new FileAccess();
+    private final Report report = new Report();
+    private final Metrics metrics = new Metrics();
+    private final Progress progress = new Progress();
+    private final Neighbours neighbours = new Neighbours();
+    private final Reference reference = new Reference();
+
+    public Engine getEngine() { return engine; }
+    public Cache getCache() { return cache; }
+    public Lsh getLsh() { return lsh; }
+    public Similarity getSimilarity() { return similarity; }
+    public Discovery getDiscovery() { return discovery; }
+    public Index getIndex() { return index; }
+    public Matrix getMatrix() { return matrix; }
+    public FileAccess getFileAccess() { return fileAccess; }
+    public Report getReport() { return report; }
+    public Metrics getMetrics() { return metrics; }
+    public Progress getProgress() { return progress; }
+    public Neighbours getNeighbours() { return neighbours; }
+    public Reference getReference() { return reference; }
+
+    public static class Engine {
+
+        public enum ExecutorType { FORK_JOIN, VIRTUAL_THREADS }
+
+        /** Tipo de executor usado para distribuir os pares da matriz. */
+        private ExecutorType executor = ExecutorType.FORK_JOIN;
+        /** Número de comparações simultâneas; 0 usa a quantidade de núcleos disponíveis. */
+        private int parallelism = 0;
+        /** Quantidade aproximada de pares por bloco de linhas antes de dividir a tarefa. */
+        private int blockPairs = 64;
+        /**
+         * Não compara pares cujo limite superior de similaridade (caminhos, datas e hashes, sem ler arquivos)
+         * fica abaixo do limite do relatório; a matriz guarda só esse limite.
+         */
+        private boolean pruneBelowThreshold = true;
+
+        public ExecutorType getExecutor() { return executor; }
+        public void setExecutor(ExecutorType executor) { this.executor = executor; }
+        public int getParallelism() { return parallelism; }
+        public void setParallelism(int parallelism) { this.parallelism = parallelism; }
+        public int getBlockPairs() { return blockPairs; }
+        public void setBlockPairs(int blockPairs) { this.blockPairs = blockPairs; }
+        public boolean isPruneBelowThreshold() { return pruneBelowThreshold; }
+        public void setPruneBelowThreshold(boolean pruneBelowThreshold) { this.pruneBelowThreshold = pruneBelowThreshold; }
+
+        public int effectiveParallelism() {
+            return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        }
+    }
+
+    public static class Cache {
+
+        /** Orçamento de memória para o conteúdo normalizado mantido entre comparações. */
+        private DataSize maxSize = DataSize.ofMegabytes(256);
+        /** Orçamento de memória para as impressões de winnowing de cada arquivo. */
+        private DataSize fingerprintMaxSize = DataSize.ofMegabytes(64);
+
+        public DataSize getMaxSize() { return maxSize; }
+        public void setMaxSize(DataSize maxSize) { this.maxSize = maxSize; }
+        public DataSize getFingerprintMaxSize() { return fingerprintMaxSize; }
+        public void setFingerprintMaxSize(DataSize fingerprintMaxSize) { this.fingerprintMaxSize = fingerprintMaxSize; }
+    }
+
+    public static class Lsh {
+
+        /** Habilita a pré-seleção de pares por MinHash/LSH antes da comparação completa. */
+        private boolean enabled = false;
+        /** Número de bandas; mais bandas aumentam a cobertura (recall). */
+        private int bands = 32;
+        /** Linhas (hashes) por banda; mais linhas reduzem os falsos positivos. */
+        private int rows = 4;
+        /** Tamanho, em caracteres, dos shingles extraídos do conteúdo normalizado. */
+        private int shingleSize = 9;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public int getBands() { return bands; }
+        public void setBands(int bands) { this.bands = bands; }
+        public int getRows() { return rows; }
+        public void setRows(int rows) { this.rows = rows; }
+        public int getShingleSize() { return shingleSize; }
+        public void setShingleSize(int shingleSize) { this.shingleSize = shingleSize; }
+    }
+
+    public static class Similarity {
+
+        public enum Strategy { JARO_WINKLER, WINNOWING }
+
+        /** Algoritmo usado para comparar o conteúdo de arquivos com o mesmo caminho relativo. */
+        private Strategy strategy = Strategy.JARO_WINKLER;
+        /** Tamanho dos k-gramas de caracteres usados pelo winnowing. */
+        private int kgramSize = 12;
+        /** Quantidade de k-gramas por janela do winnowing. */
+        private int windowSize = 8;
+        /**
+         * Corte opcional (0 a 1) para o Jaro-Winkler: pares de arquivos que comprovadamente não alcançam
+         * o corte param antes do fim e contam como 0. Com 0 o cálculo é sempre completo.
+         */
+        private double fileCutoff = 0.0;
+        /**
+         * Pareia arquivos com conteúdo idêntico em caminhos diferentes (arquivo movido ou renomeado) por meio
+         * de um índice invertido de hashes, em vez de contá-los como ausentes nos dois projetos.
+         */
+        private boolean crossPathMatching = true;
+        /**
+         * Com a estratégia WINNOWING, arquivos maiores que este tamanho são comparados por blocos (impressões
+         * por bloco, alinhados de forma independente) em vez do texto inteiro; 0 desliga. O Jaro-Winkler
+         * sempre compara o texto inteiro.
+         */
+        private DataSize chunkThreshold = DataSize.ofKilobytes(128);
+        /** Tamanho aproximado de cada bloco, em caracteres normalizados; o corte é feito no fim de uma linha. */
+        private int chunkSize = 16 * 1024;
+
+        public Strategy getStrategy() { return strategy; }
+        public void setStrategy(Strategy strategy) { this.strategy = strategy; }
+        public int getKgramSize() { return kgramSize; }
+        public void setKgramSize(int kgramSize) { this.kgramSize = kgramSize; }
+        public int getWindowSize() { return windowSize; }
+        public void setWindowSize(int windowSize) { this.windowSize = windowSize; }
+        public double getFileCutoff() { return fileCutoff; }
+        public void setFileCutoff(double fileCutoff) { this.fileCutoff = fileCutoff; }
+        public boolean isCrossPathMatching() { return crossPathMatching; }
+        public void setCrossPathMatching(boolean crossPathMatching) { this.crossPathMatching = crossPathMatching; }
+        public DataSize getChunkThreshold() { return chunkThreshold; }
+        public void setChunkThreshold(DataSize chunkThreshold) { this.chunkThreshold = chunkThreshold; }
+        public int getChunkSize() { return chunkSize; }
+        public void setChunkSize(int chunkSize) { this.chunkSize = chunkSize; }
+    }
+
+    public static class Discovery {
+
+        /** Máximo de subdiretórios de entrega percorridos ao mesmo tempo. */
+        private int maxConcurrentProjects = 32;
+        /** Máximo de arquivos abertos simultaneamente para cálculo de hash. */
+        private int maxOpenFiles = 64;
+        /** Trata cada arquivo .zip do diretório pai como uma entrega, lida sem extração. */
+        private boolean readArchives = true;
+
+        public int getMaxConcurrentProjects() { return maxConcurrentProjects; }
+        public void setMaxConcurrentProjects(int maxConcurrentProjects) { this.maxConcurrentProjects = maxConcurrentProjects; }
+        public int getMaxOpenFiles() { return maxOpenFiles; }
+        public void setMaxOpenFiles(int maxOpenFiles) { this.maxOpenFiles = maxOpenFiles; }
+        public boolean isReadArchives() { return readArchives; }
+        public void setReadArchives(boolean readArchives) { this.readArchives = readArchives; }
+    }
+
+    public static class Index {
+
+        /** Mantém entre execuções um índice com hashes e impressões dos arquivos já processados. */
+        private boolean enabled = true;
+        /** Nome do arquivo do índice, gravado na mesma pasta do relatório. */
+        private String fileName = "project-comparator.idx";
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public String getFileName() { return fileName; }
+        public void setFileName(String fileName) { this.fileName = fileName; }
+    }
+
+    public static class Matrix {
+
+        /** Reaproveita os pares de projetos que não mudaram desde a execução anterior. */
+        private boolean incremental = true;
+        /** Nome do arquivo da matriz persistida, gravado na mesma pasta do relatório. */
+        private String fileName = "project-comparator-matrix.bin";
+
+        public boolean isIncremental() { return incremental; }
+        public void setIncremental(boolean incremental) { this.incremental = incremental; }
+        public String getFileName() { return fileName; }
+        public void setFileName(String fileName) { this.fileName = fileName; }
+    }
+
+    public static class FileAccess {
+
+        /** Tamanho dos buffers do heap do pool: arquivos até este tamanho são lidos de uma vez, os maiores em blocos. */
+        private DataSize bufferSize = DataSize.ofKilobytes(256);
+        /** Só arquivos maiores que este tamanho são mapeados em memória (no Windows, ficam travados até o GC). */
+        private DataSize mapThreshold = DataSize.ofMegabytes(50);
+        /** Quantidade máxima de buffers mantidos no pool. */
+        private int maxPooledBuffers = 32;
+
+        public DataSize getBufferSize() { return bufferSize; }
+        public void setBufferSize(DataSize bufferSize) { this.bufferSize = bufferSize; }
+        public DataSize getMapThreshold() { return mapThreshold; }
+        public void setMapThreshold(DataSize mapThreshold) { this.mapThreshold = mapThreshold; }
+        public int getMaxPooledBuffers() { return maxPooledBuffers; }
+        public void setMaxPooledBuffers(int maxPooledBuffers) { this.maxPooledBuffers = maxPooledBuffers; }
+    }
+
+    public static class Report {
+
+        public enum ExcelMode { AUTO, IN_MEMORY, STREAMING }
+
+        public enum HtmlMode { AUTO, TABLE, INTERACTIVE }
+
+        /** IN_MEMORY (XSSF, com comentários), STREAMING (SXSSF, com planilha de arquivos) ou AUTO pelo número de projetos. */
+        private ExcelMode excelMode = ExcelMode.AUTO;
+        /** TABLE (tabela HTML completa) ou INTERACTIVE (matriz compacta + mapa de calor); AUTO pelo número de projetos. */
+        private HtmlMode htmlMode = HtmlMode.AUTO;
+        /** No modo AUTO, a partir de quantos projetos os relatórios usam os modos STREAMING/INTERACTIVE. */
+        private int streamingThreshold = 100;
+        /** Quantidade de linhas mantidas em memória por planilha no modo STREAMING. */
+        private int rowWindow = 100;
+
+        public ExcelMode getExcelMode() { return excelMode; }
+        public void setExcelMode(ExcelMode excelMode) { this.excelMode = excelMode; }
+        public HtmlMode getHtmlMode() { return htmlMode; }
+        public void setHtmlMode(HtmlMode htmlMode) { this.htmlMode = htmlMode; }
+        public int getStreamingThreshold() { return streamingThreshold; }
+        public void setStreamingThreshold(int streamingThreshold) { this.streamingThreshold = streamingThreshold; }
+        public int getRowWindow() { return rowWindow; }
+        public void setRowWindow(int rowWindow) { this.rowWindow = rowWindow; }
+    }
+
+    public static class Metrics {
+
+        /** Grava o resumo da execução (tempos por fase, percentis e contadores) em JSON ao lado do relatório. */
+        private boolean summaryEnabled = true;
+        /** Percentis (0 a 1) calculados para os tempos e distribuições do comparador. */
+        private double[] percentiles = { 0.5, 0.9, 0.95, 0.99 };
+
+        public boolean isSummaryEnabled() { return summaryEnabled; }
+        public void setSummaryEnabled(boolean summaryEnabled) { this.summaryEnabled = summaryEnabled; }
+        public double[] getPercentiles() { return percentiles; }
+        public void setPercentiles(double[] percentiles) { this.percentiles = percentiles; }
+    }
+
+    public static class Progress {
+
+        /** Imprime o andamento da comparação (pares/s, MB/s e tempo restante) em stderr. */
+        private boolean enabled = true;
+        /** Intervalo entre as linhas de andamento. */
+        private Duration interval = Duration.ofSeconds(5);
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public Duration getInterval() { return interval; }
+        public void setInterval(Duration interval) { this.interval = interval; }
+    }
+
+    public static class Neighbours {
+
+        /**
+         * Com k > 0, calcula só os k vizinhos mais parecidos de cada projeto em vez da matriz completa;
+         * pares que comprovadamente não entram no top-k de nenhum dos dois projetos não são comparados.
+         */
+        private int k = 0;
+
+        public int getK() { return k; }
+        public void setK(int k) { this.k = k; }
+
+        public boolean isEnabled() { return k > 0; }
+    }
+
+    public static class Reference {
+
+        /** Compara cada projeto do lote com o corpus de referência (entregas de semestres anteriores). */
+        private boolean enabled = false;
+        /** Arquivo do corpus; um caminho relativo é resolvido a partir da pasta do relatório. */
+        private String path = "reference-corpus.pcrc";
+        /** Acrescenta os projetos do lote ao corpus depois da consulta (projetos já presentes são ignorados). */
+        private boolean appendBatch = true;
+        /** Quantidade máxima de projetos de referência listados por projeto do lote. */
+        private int maxMatches = 5;
+        /**
+         * Impressões presentes em mais arquivos do corpus do que este limite (código de enunciado, imports,
+         * getters) são ignoradas na consulta: não indicam cópia e deixariam a busca linear no tamanho do corpus.
+         */
+        private int commonFingerprintLimit = 1000;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public String getPath() { return path; }
+        public void setPath(String path) { this.path = path; }
+        public boolean isAppendBatch() { return appendBatch; }
+        public void setAppendBatch(boolean appendBatch) { this.appendBatch = appendBatch; }
+        public int getMaxMatches() { return maxMatches; }
+        public void setMaxMatches(int maxMatches) { this.maxMatches = maxMatches; }
+        public int getCommonFingerprintLimit() { return commonFingerprintLimit; }
+        public void setCommonFingerprintLimit(int commonFingerprintLimit) { this.commonFingerprintLimit = commonFingerprintLimit; }
+    }
+}
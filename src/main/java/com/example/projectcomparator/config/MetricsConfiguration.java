@@ -0,0 +1,51 @@
+package com.example.projectcomparator.config;
+
+import java.time.Duration;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Registro de métricas da execução. Não há exportação para sistemas de monitoramento: as métricas
+ * ficam em memória e são gravadas no resumo JSON ao fim da execução (ver {@code RunSummaryService}).
+ */
+@Configuration
+public class MetricsConfiguration {
+
+    /** Prefixo de todas as métricas do comparador. */
+    public static final String METRIC_PREFIX = "comparator.";
+
+    @Bean
+    public MeterRegistry meterRegistry(ComparatorProperties properties) {
+        return createRegistry(properties.getMetrics().getPercentiles());
+    }
+
+    /**
+     * Registro em memória em que os tempos e distribuições do comparador publicam os percentis informados.
+     * A janela dos percentis e do máximo cobre a execução inteira, e não só os últimos minutos.
+     */
+    public static SimpleMeterRegistry createRegistry(double... percentiles) {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        registry.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!id.getName().startsWith(METRIC_PREFIX)) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                        .percentiles(percentiles)
+                        .expiry(Duration.ofDays(1))
+                        .bufferLength(1)
+                        .build()
+                        .merge(config);
+            }
+        });
+        return registry;
+    }
+}
@@ -1,16 +1,34 @@
 package com.example.projectcomparator.model;
 
+import java.util.List;
+
 public class ComparisonResult {
+
+    /** Arquivo de conteúdo idêntico encontrado em caminhos relativos diferentes (movido ou renomeado). */
+    public record CrossPathMatch(String relativePath1, String relativePath2) {
+        @Override
+        public String toString() {
+            return relativePath1 + " -> " + relativePath2;
+        }
+    }
+
     private final Project project1;
     private final Project project2;
     private final boolean exactCopy;
     private final double similarityPercentage;
+    private final List<CrossPathMatch> crossPathMatches;
 
     public ComparisonResult(Project project1, Project project2, boolean exactCopy, double similarityPercentage) {
+        this(project1, project2, exactCopy, similarityPercentage, List.of());
+    }
+
+    public ComparisonResult(Project project1, Project project2, boolean exactCopy, double similarityPercentage,
+                            List<CrossPathMatch> crossPathMatches) {
         this.project1 = project1;
         this.project2 = project2;
         this.exactCopy = exactCopy;
         this.similarityPercentage = similarityPercentage;
+        this.crossPathMatches = crossPathMatches;
     }
 
     // Getters
@@ -18,6 +36,16 @@ public class ComparisonResult {
     public Project getProject2() { return project2; }
     public boolean isExactCopy() { return exactCopy; }
     public double getSimilarityPercentage() { return similarityPercentage; }
+    public List<CrossPathMatch> getCrossPathMatches() { return crossPathMatches; }
+
+    /** Texto para os relatórios: um arquivo movido/renomeado por linha, {@code caminho1 -> caminho2}. */
+    public static String crossPathInfo(List<CrossPathMatch> matches) {
+        StringBuilder info = new StringBuilder("Arquivos idênticos em outro caminho:");
+        for (CrossPathMatch match : matches) {
+            info.append('\n').append(match);
+        }
+        return info.toString();
+    }
 
     @Override
     public String toString() {
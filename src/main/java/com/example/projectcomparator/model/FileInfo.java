@@ -9,14 +9,17 @@ import java.util.Objects;
 
 public class FileInfo {
     private final String relativePath;
-    // Removido: private final String contentHash;
+    private final String contentHash; // SHA-256 (hex) do conteúdo bruto; pode ser null se não foi calculado
     private final Path absolutePath; // Adicionado
+    private final long size; // Tamanho em bytes no momento da varredura
     private final FileTime creationTime;
     private final FileTime lastModifiedTime;
 
-    public FileInfo(String relativePath, Path absolutePath, FileTime creationTime, FileTime lastModifiedTime) { // Construtor atualizado
+    public FileInfo(String relativePath, Path absolutePath, long size, String contentHash, FileTime creationTime, FileTime lastModifiedTime) { // Construtor atualizado
         this.relativePath = relativePath;
         this.absolutePath = absolutePath; // Adicionado
+        this.size = size;
+        this.contentHash = contentHash;
         this.creationTime = creationTime;
         this.lastModifiedTime = lastModifiedTime;
     }
@@ -24,6 +27,8 @@ public class FileInfo {
     // Getters
     public String getRelativePath() { return relativePath; }
     public Path getAbsolutePath() { return absolutePath; } // Adicionado
+    public long getSize() { return size; }
+    public String getContentHash() { return contentHash; }
     public FileTime getCreationTime() { return creationTime; }
     public FileTime getLastModifiedTime() { return lastModifiedTime; }
 
@@ -34,7 +39,8 @@ public class FileInfo {
         FileInfo fileInfo = (FileInfo) o;
         // A igualdade de FileInfo agora se baseia mais em metadados e caminho,
         // a comparação de conteúdo será feita separadamente.
-        return relativePath.equals(fileInfo.relativePath) &&
+        return size == fileInfo.size &&
+               relativePath.equals(fileInfo.relativePath) &&
                absolutePath.equals(fileInfo.absolutePath) && // Comparar caminhos absolutos
                Objects.equals(creationTime, fileInfo.creationTime) &&
                Objects.equals(lastModifiedTime, fileInfo.lastModifiedTime);
@@ -43,7 +49,7 @@ public class FileInfo {
     @Override
     public int hashCode() {
         // O hashcode também reflete as mudanças
-        return Objects.hash(relativePath, absolutePath, creationTime, lastModifiedTime);
+        return Objects.hash(relativePath, absolutePath, size, creationTime, lastModifiedTime);
     }
 
 	private String formatDate(FileTime fileTime) {
@@ -61,6 +67,8 @@ public class FileInfo {
         return "FileInfo{" +
                "relativePath='" + relativePath + '\'' +
                ", absolutePath=" + absolutePath + // Adicionado
+               ", size=" + size +
+               ", contentHash='" + contentHash + '\'' +
                ", creationTime=" + creationTime +
                ", lastModifiedTime=" + lastModifiedTime +
                '}';
@@ -0,0 +1,75 @@
+package com.example.projectcomparator.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Os {@code k} projetos mais parecidos com cada projeto, em vez da matriz completa: {@code n * k} células
+ * em lugar de {@code n(n-1)/2}. Os projetos são endereçados pelo índice na lista ordenada de nomes, como na
+ * {@link SimilarityMatrix}; os vizinhos de cada linha vêm do maior para o menor score (empates pelo menor
+ * índice), a mesma ordem de {@link SimilarityMatrix#topK(int, int)}.
+ */
+public final class NearestNeighbours {
+
+    private final List<String> projectNames;
+    private final int k;
+    private final int[][] neighbours;
+    private final float[][] similarities;
+
+    /**
+     * @param neighbours   índices dos vizinhos de cada projeto, do mais para o menos parecido
+     * @param similarities score (0 a 100) de cada vizinho, na mesma ordem
+     */
+    public NearestNeighbours(List<String> projectNames, int k, int[][] neighbours, float[][] similarities) {
+        if (neighbours.length != projectNames.size() || similarities.length != projectNames.size()) {
+            throw new IllegalArgumentException("Uma lista de vizinhos por projeto é obrigatória");
+        }
+        this.projectNames = List.copyOf(projectNames);
+        this.k = k;
+        this.neighbours = neighbours;
+        this.similarities = similarities;
+    }
+
+    public int size() { return projectNames.size(); }
+    public int getK() { return k; }
+    public List<String> getProjectNames() { return projectNames; }
+    public String getProjectName(int index) { return projectNames.get(index); }
+
+    /** Índices dos vizinhos de {@code row}, do mais para o menos parecido (no máximo {@code k}). */
+    public int[] neighbours(int row) {
+        return neighbours[row].clone();
+    }
+
+    public int neighbourCount(int row) {
+        return neighbours[row].length;
+    }
+
+    public int neighbour(int row, int rank) {
+        return neighbours[row][rank];
+    }
+
+    public double similarity(int row, int rank) {
+        return similarities[row][rank];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof NearestNeighbours other)) return false;
+        return k == other.k && projectNames.equals(other.projectNames)
+               && Arrays.deepEquals(neighbours, other.neighbours) && Arrays.deepEquals(similarities, other.similarities);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * projectNames.hashCode() + Arrays.deepHashCode(neighbours);
+    }
+
+    @Override
+    public String toString() {
+        return "NearestNeighbours{" +
+               "projects=" + projectNames.size() +
+               ", k=" + k +
+               '}';
+    }
+}
@@ -0,0 +1,356 @@
+package com.example.projectcomparator.model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Matriz de similaridade simétrica (0 a 100) entre projetos, guardada como o triângulo superior sem a
+ * diagonal em um único {@code float[]}: cada par ocupa 4 bytes, sem boxing nem duplicação por simetria.
+ * Os projetos são endereçados pelo índice na lista ordenada de nomes; a diagonal vale sempre 100.
+ * <p>
+ * Uma célula pode guardar só um limite superior do score (par descartado abaixo do limite sem ler arquivos,
+ * ver {@link #setUpperBound}); ela fica com o bit de sinal ligado, o que mantém o mesmo {@code float[]}.
+ * Da mesma forma, uma célula pode guardar só uma estimativa (par fora dos candidatos do LSH, ver
+ * {@link #setEstimate}), em outra escala que a do score; ela fica deslocada de {@code 1000} para cima.
+ * {@link #get} só devolve scores reais (NaN nessas células); o limite e a estimativa são lidos à parte, por
+ * {@link #upperBound} e {@link #estimate}.
+ * <p>
+ * Os arquivos idênticos em caminhos diferentes de um par comparado ficam à parte, em um mapa esparso
+ * ({@link #setCrossPathMatches}): são anotações para os relatórios, não entram em {@link #equals} nem em
+ * {@link #writeTo}.
+ * <p>
+ * Escritas em células distintas podem vir de threads diferentes; a visibilidade para quem lê depois
+ * fica a cargo de quem coordena as threads (join do pool/executor).
+ */
+public final class SimilarityMatrix {
+
+    /** Consumidor de células de uma linha, sem boxing; só recebe scores reais. */
+    @FunctionalInterface
+    public interface CellConsumer {
+        void accept(int column, double similarity);
+    }
+
+    // Células a partir deste valor guardam uma estimativa (o score real nunca passa de 100)
+    private static final float ESTIMATE_OFFSET = 1000f;
+
+    private final List<String> projectNames;
+    private final Map<String, Integer> indexByName;
+    private final float[] cells;
+    // Só os pares que têm arquivos movidos/renomeados, orientados de i para j (i < j)
+    private final Map<Integer, List<ComparisonResult.CrossPathMatch>> crossPathMatches = new ConcurrentHashMap<>();
+
+    public SimilarityMatrix(List<String> projectNames) {
+        this(List.copyOf(projectNames), new float[pairCount(projectNames.size())]);
+    }
+
+    private SimilarityMatrix(List<String> projectNames, float[] cells) {
+        this.projectNames = projectNames;
+        this.cells = cells;
+        this.indexByName = new HashMap<>(projectNames.size() * 2);
+        for (int i = 0; i < projectNames.size(); i++) {
+            if (indexByName.put(projectNames.get(i), i) != null) {
+                throw new IllegalArgumentException("Projeto repetido na matriz: " + projectNames.get(i));
+            }
+        }
+    }
+
+    /** Quantidade de pares distintos entre {@code size} projetos. */
+    public static int pairCount(int size) {
+        long pairs = (long) size * (size - 1) / 2;
+        if (pairs > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Projetos demais para uma matriz em memória: " + size);
+        }
+        return (int) pairs;
+    }
+
+    /** Posição do par (i, j), i != j, no triângulo superior sem diagonal de uma matriz {@code size x size}. */
+    public static int cellIndex(int i, int j, int size) {
+        int row = Math.min(i, j);
+        int col = Math.max(i, j);
+        // Em long: row * (2 * size - row - 1) passa de Integer.MAX_VALUE a partir de ~32 mil projetos
+        return (int) ((long) row * (2L * size - row - 1) / 2 + (col - row - 1));
+    }
+
+    public int size() { return projectNames.size(); }
+    public List<String> getProjectNames() { return projectNames; }
+    public String getProjectName(int index) { return projectNames.get(index); }
+
+    /** Índice do projeto, ou -1 se não estiver na matriz. */
+    public int indexOf(String projectName) {
+        Integer index = indexByName.get(projectName);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Score do par, ou {@code NaN} se a célula só guarda um limite superior ({@link #isUpperBound}) ou uma
+     * estimativa ({@link #isEstimate}), que não são scores.
+     */
+    public double get(int i, int j) {
+        if (i == j) {
+            return 100.0;
+        }
+        float cell = cells[cellIndex(i, j, projectNames.size())];
+        return isScore(cell) ? cell : Double.NaN;
+    }
+
+    // Nem limite superior (sinal ligado, inclusive -0.0f) nem estimativa
+    private static boolean isScore(float cell) {
+        return Float.floatToRawIntBits(cell) >= 0 && cell < ESTIMATE_OFFSET;
+    }
+
+    /** Limite superior guardado para o par, ou {@code NaN} se a célula não é um limite ({@link #isUpperBound}). */
+    public double upperBound(int i, int j) {
+        return isUpperBound(i, j) ? -cells[cellIndex(i, j, projectNames.size())] : Double.NaN;
+    }
+
+    /** Estimativa guardada para o par, ou {@code NaN} se a célula não é uma estimativa ({@link #isEstimate}). */
+    public double estimate(int i, int j) {
+        return isEstimate(i, j) ? cells[cellIndex(i, j, projectNames.size())] - ESTIMATE_OFFSET : Double.NaN;
+    }
+
+    public double get(String projectA, String projectB) {
+        return get(requireIndex(projectA), requireIndex(projectB));
+    }
+
+    public void set(int i, int j, double similarity) {
+        if (i == j) {
+            throw new IllegalArgumentException("A diagonal da matriz é fixa em 100%");
+        }
+        cells[cellIndex(i, j, projectNames.size())] = (float) similarity;
+    }
+
+    /** Guarda apenas um limite superior para o par, que não foi comparado. */
+    public void setUpperBound(int i, int j, double bound) {
+        if (i == j) {
+            throw new IllegalArgumentException("A diagonal da matriz é fixa em 100%");
+        }
+        cells[cellIndex(i, j, projectNames.size())] = -(float) bound; // -0.0f também tem o sinal ligado
+    }
+
+    public boolean isUpperBound(int i, int j) {
+        return i != j && Float.floatToRawIntBits(cells[cellIndex(i, j, projectNames.size())]) < 0;
+    }
+
+    /**
+     * Guarda apenas uma estimativa para o par, que não foi comparado: a similaridade de Jaccard (0 a 100)
+     * das assinaturas MinHash, que não é comparável ao score ponderado de conteúdo e datas.
+     */
+    public void setEstimate(int i, int j, double estimate) {
+        if (i == j) {
+            throw new IllegalArgumentException("A diagonal da matriz é fixa em 100%");
+        }
+        cells[cellIndex(i, j, projectNames.size())] = ESTIMATE_OFFSET + (float) estimate;
+    }
+
+    public boolean isEstimate(int i, int j) {
+        return i != j && cells[cellIndex(i, j, projectNames.size())] >= ESTIMATE_OFFSET;
+    }
+
+    /** Quantidade de pares que só têm a estimativa. */
+    public long estimateCount() {
+        long count = 0;
+        for (float cell : cells) {
+            if (cell >= ESTIMATE_OFFSET) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** Quantidade de pares que só têm o limite superior. */
+    public long upperBoundCount() {
+        long count = 0;
+        for (float cell : cells) {
+            if (Float.floatToRawIntBits(cell) < 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Guarda os arquivos idênticos em caminhos diferentes do par, com {@code relativePath1} no projeto
+     * {@code i} e {@code relativePath2} no projeto {@code j}. Uma lista vazia remove a anotação.
+     */
+    public void setCrossPathMatches(int i, int j, List<ComparisonResult.CrossPathMatch> matches) {
+        if (i == j) {
+            throw new IllegalArgumentException("A diagonal da matriz é fixa em 100%");
+        }
+        int cell = cellIndex(i, j, projectNames.size());
+        if (matches.isEmpty()) {
+            crossPathMatches.remove(cell);
+        } else {
+            crossPathMatches.put(cell, List.copyOf(i < j ? matches : swapped(matches)));
+        }
+    }
+
+    /** Arquivos idênticos em caminhos diferentes do par, com {@code relativePath1} no projeto {@code i}. */
+    public List<ComparisonResult.CrossPathMatch> getCrossPathMatches(int i, int j) {
+        if (i == j) {
+            return List.of();
+        }
+        List<ComparisonResult.CrossPathMatch> matches = crossPathMatches.getOrDefault(cellIndex(i, j, projectNames.size()), List.of());
+        return i < j ? matches : swapped(matches);
+    }
+
+    private static List<ComparisonResult.CrossPathMatch> swapped(List<ComparisonResult.CrossPathMatch> matches) {
+        return matches.stream()
+                      .map(match -> new ComparisonResult.CrossPathMatch(match.relativePath2(), match.relativePath1()))
+                      .toList();
+    }
+
+    public void set(String projectA, String projectB, double similarity) {
+        set(requireIndex(projectA), requireIndex(projectB), similarity);
+    }
+
+    private int requireIndex(String projectName) {
+        int index = indexOf(projectName);
+        if (index < 0) {
+            throw new IllegalArgumentException("Projeto fora da matriz: " + projectName);
+        }
+        return index;
+    }
+
+    /**
+     * Percorre as células da linha {@code row} em ordem de coluna, sem a diagonal e sem as células que só
+     * guardam um limite superior ou uma estimativa.
+     */
+    public void forEachInRow(int row, CellConsumer consumer) {
+        int size = projectNames.size();
+        for (int col = 0; col < size; col++) {
+            if (col != row) {
+                float cell = cells[cellIndex(row, col, size)];
+                if (isScore(cell)) {
+                    consumer.accept(col, cell);
+                }
+            }
+        }
+    }
+
+    /**
+     * Os {@code k} projetos mais parecidos com {@code row}, do maior para o menor score (empates pelo
+     * menor índice). Usa um heap de mínimo limitado a {@code k} posições: O(n log k) por linha.
+     * Células que só guardam um limite superior ou uma estimativa não entram no ranking, então o resultado
+     * pode ter menos de {@code k} projetos.
+     */
+    public int[] topK(int row, int k) {
+        int size = projectNames.size();
+        int limit = Math.min(k, size - 1);
+        if (limit <= 0) {
+            return new int[0];
+        }
+        int[] heap = new int[limit]; // heap[0] é o pior dos k melhores
+        int count = 0;
+        for (int col = 0; col < size; col++) {
+            if (col == row || !isScore(cells[cellIndex(row, col, size)])) {
+                continue;
+            }
+            if (count < limit) {
+                heap[count] = col;
+                siftUp(heap, count++, row);
+            } else if (better(col, heap[0], row)) {
+                heap[0] = col;
+                siftDown(heap, 0, count, row);
+            }
+        }
+        int[] result = new int[count]; // count < limit se a linha tem células sem score
+        for (int r = count - 1; r >= 0; r--) { // Extrai do pior para o melhor
+            result[r] = heap[0];
+            heap[0] = heap[--count];
+            siftDown(heap, 0, count, row);
+        }
+        return result;
+    }
+
+    // a é melhor vizinho que b para a linha 'row'?
+    private boolean better(int a, int b, int row) {
+        double scoreA = get(row, a);
+        double scoreB = get(row, b);
+        return scoreA > scoreB || (scoreA == scoreB && a < b);
+    }
+
+    private void siftUp(int[] heap, int position, int row) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (!better(heap[parent], heap[position], row)) {
+                break;
+            }
+            swap(heap, parent, position);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int position, int count, int row) {
+        while (true) {
+            int worst = position;
+            int left = 2 * position + 1;
+            int right = left + 1;
+            if (left < count && better(heap[worst], heap[left], row)) worst = left;
+            if (right < count && better(heap[worst], heap[right], row)) worst = right;
+            if (worst == position) {
+                return;
+            }
+            swap(heap, worst, position);
+            position = worst;
+        }
+    }
+
+    private static void swap(int[] heap, int a, int b) {
+        int tmp = heap[a];
+        heap[a] = heap[b];
+        heap[b] = tmp;
+    }
+
+    /** Grava nomes e células: {@code int n}, {@code n} nomes (UTF) e {@code n(n-1)/2} floats. */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(projectNames.size());
+        for (String name : projectNames) {
+            out.writeUTF(name);
+        }
+        for (float cell : cells) {
+            out.writeFloat(cell);
+        }
+    }
+
+    public static SimilarityMatrix readFrom(DataInput in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            throw new IOException("Tamanho de matriz inválido: " + size);
+        }
+        String[] names = new String[size];
+        for (int i = 0; i < size; i++) {
+            names[i] = in.readUTF();
+        }
+        float[] cells = new float[pairCount(size)];
+        for (int c = 0; c < cells.length; c++) {
+            cells[c] = in.readFloat();
+        }
+        return new SimilarityMatrix(List.of(names), cells);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SimilarityMatrix other)) return false;
+        return projectNames.equals(other.projectNames) && Arrays.equals(cells, other.cells);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * projectNames.hashCode() + Arrays.hashCode(cells);
+    }
+
+    @Override
+    public String toString() {
+        return "SimilarityMatrix{" +
+               "projects=" + projectNames.size() +
+               ", pairs=" + cells.length +
+               '}';
+    }
+}
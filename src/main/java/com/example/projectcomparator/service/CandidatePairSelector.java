@@ -0,0 +1,256 @@
+package com.example.projectcomparator.service;
+
+import com.example.projectcomparator.config.ComparatorProperties;
+import com.example.projectcomparator.model.FileInfo;
+import com.example.projectcomparator.model.Project;
+import com.example.projectcomparator.model.SimilarityMatrix;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Seleciona os pares de projetos que valem uma comparação completa usando assinaturas MinHash
+ * e LSH por bandas. Projetos que compartilham pelo menos uma banda inteira da assinatura viram
+ * candidatos; os demais recebem uma similaridade estimada a partir das assinaturas.
+ *
+ * <p>A probabilidade de um par com similaridade de Jaccard {@code s} virar candidato é
+ * {@code 1 - (1 - s^rows)^bands}: mais bandas aumentam a cobertura, mais linhas por banda
+ * reduzem os falsos positivos.</p>
+ */
+@Service
+public class CandidatePairSelector {
+
+    private static final Logger logger = LoggerFactory.getLogger(CandidatePairSelector.class);
+
+    private final ProjectComparerService comparisonService;
+    private final ComparatorProperties.Lsh config;
+    private final ComparatorProperties.Engine engine;
+
+    public CandidatePairSelector(ProjectComparerService comparisonService, ComparatorProperties properties) {
+        this.comparisonService = comparisonService;
+        this.config = properties.getLsh();
+        this.engine = properties.getEngine();
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * Pares (i, j), i < j, na ordem de {@code projects}, marcados como candidatos ou não. A estimativa de
+     * similaridade só é calculada, a partir das assinaturas, para os pares que a pedem: o motor só a usa
+     * nos pares que não são candidatos.
+     */
+    public static final class CandidatePairs {
+        private final int size;
+        private final BitSet candidates;
+        private final long[][] signatures;
+
+        CandidatePairs(long[][] signatures) {
+            this.size = signatures.length;
+            this.candidates = new BitSet(SimilarityMatrix.pairCount(size));
+            this.signatures = signatures;
+        }
+
+        // Mesma ordem de células da SimilarityMatrix
+        private int index(int i, int j) {
+            return SimilarityMatrix.cellIndex(i, j, size);
+        }
+
+        public boolean isCandidate(int i, int j) { return candidates.get(index(i, j)); }
+
+        /** Similaridade estimada (0 a 100): fração das posições em que as assinaturas MinHash coincidem. */
+        public double estimatedSimilarity(int i, int j) {
+            long[] a = signatures[i];
+            long[] b = signatures[j];
+            int equal = 0;
+            for (int h = 0; h < a.length; h++) {
+                if (a[h] == b[h]) {
+                    equal++;
+                }
+            }
+            return 100.0 * equal / a.length;
+        }
+
+        public long candidateCount() { return candidates.cardinality(); }
+        public long pairCount() { return SimilarityMatrix.pairCount(size); }
+    }
+
+    public CandidatePairs selectCandidates(List<Project> projects) {
+        int numHashes = config.getBands() * config.getRows();
+        long[] seeds = new long[numHashes];
+        long seed = 0x9E3779B97F4A7C15L;
+        for (int h = 0; h < numHashes; h++) {
+            seed = mix64(seed + h);
+            seeds[h] = seed;
+        }
+
+        long[][] signatures = signatures(projects, seeds);
+
+        int n = projects.size();
+        CandidatePairs result = new CandidatePairs(signatures);
+        for (int band = 0; band < config.getBands(); band++) {
+            Map<Long, List<Integer>> buckets = new HashMap<>();
+            for (int p = 0; p < n; p++) {
+                long bandHash = 1;
+                for (int r = 0; r < config.getRows(); r++) {
+                    bandHash = mix64(bandHash * 31 + signatures[p][band * config.getRows() + r]);
+                }
+                buckets.computeIfAbsent(bandHash, k -> new ArrayList<>()).add(p);
+            }
+            for (List<Integer> bucket : buckets.values()) {
+                for (int a = 0; a < bucket.size(); a++) {
+                    for (int b = a + 1; b < bucket.size(); b++) {
+                        result.candidates.set(result.index(bucket.get(a), bucket.get(b)));
+                    }
+                }
+            }
+        }
+
+        logger.info("LSH ({} bandas x {} linhas): {} de {} pares selecionados para comparação completa",
+                config.getBands(), config.getRows(), result.candidateCount(), result.pairCount());
+        return result;
+    }
+
+    /**
+     * Assinaturas de todos os projetos no mesmo executor e paralelismo do motor de comparação
+     * ({@code comparator.engine.*}): {@code parallelism} workers retiram o próximo projeto de um contador
+     * compartilhado, como as threads virtuais de {@link ComparisonEngine}.
+     */
+    private long[][] signatures(List<Project> projects, long[] seeds) {
+        long[][] signatures = new long[projects.size()][];
+        AtomicInteger nextProject = new AtomicInteger();
+        int parallelism = engine.effectiveParallelism();
+        List<Future<?>> futures = new ArrayList<>();
+        try (ExecutorService executor = engine.getExecutor() == ComparatorProperties.Engine.ExecutorType.VIRTUAL_THREADS
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : new ForkJoinPool(parallelism)) {
+            for (int w = 0; w < Math.min(parallelism, projects.size()); w++) {
+                futures.add(executor.submit(() -> {
+                    for (int p = nextProject.getAndIncrement(); p < projects.size(); p = nextProject.getAndIncrement()) {
+                        signatures[p] = signature(projects.get(p), seeds);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Cálculo das assinaturas interrompido", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falha ao calcular assinaturas: " + e.getCause().getMessage(), e.getCause());
+        }
+        return signatures;
+    }
+
+    /**
+     * Assinatura MinHash do conjunto de shingles (k-gramas de caracteres do conteúdo normalizado)
+     * de todos os arquivos do projeto, mais o caminho relativo de cada arquivo. O conteúdo é lido em
+     * blocos ({@link ProjectComparerService#readNormalizedChunks}), sem passar pelo cache de conteúdo.
+     */
+    private long[] signature(Project project, long[] seeds) {
+        long[] signature = new long[seeds.length];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        Shingler shingler = new Shingler(config.getShingleSize(), signature, seeds);
+        for (FileInfo file : project.getFiles().values()) {
+            update(signature, seeds, file.getRelativePath().hashCode() * 0xC2B2AE3D27D4EB4FL);
+            shingler.reset();
+            if (comparisonService.readNormalizedChunks(file, shingler)) {
+                shingler.finish();
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Hash polinomial (base 31) de cada k-grama do texto de um arquivo, mantido entre os blocos entregues
+     * pelo normalizador. Um texto com até {@code k} caracteres vira um único shingle, o hash de
+     * {@link Arrays#hashCode(char[])} do texto inteiro.
+     */
+    private static final class Shingler implements TextNormalizer.ChunkConsumer {
+        private final int k;
+        private final long power; // 31^(k-1), para remover o caractere que sai da janela
+        private final char[] window; // Últimos k caracteres, em anel
+        private final long[] signature;
+        private final long[] seeds;
+        private long length;
+        private long hash;
+
+        Shingler(int k, long[] signature, long[] seeds) {
+            this.k = k;
+            this.window = new char[k];
+            this.signature = signature;
+            this.seeds = seeds;
+            long power = 1;
+            for (int i = 1; i < k; i++) {
+                power *= 31;
+            }
+            this.power = power;
+        }
+
+        void reset() {
+            length = 0;
+            hash = 0;
+        }
+
+        @Override
+        public void accept(StringBuilder chunk) {
+            for (int c = 0, chunkLength = chunk.length(); c < chunkLength; c++) {
+                char next = chunk.charAt(c);
+                int slot = (int) (length % k);
+                if (length >= k) {
+                    if (length == k) {
+                        update(signature, seeds, hash); // O primeiro k-grama só conta se o texto passar de k
+                    }
+                    hash -= window[slot] * power;
+                }
+                hash = hash * 31 + next;
+                window[slot] = next;
+                length++;
+                if (length > k) {
+                    update(signature, seeds, hash);
+                }
+            }
+        }
+
+        void finish() {
+            if (length > 0 && length <= k) {
+                int textHash = 1; // Arrays.hashCode(char[]) do texto inteiro, que ainda está no começo do anel
+                for (int i = 0; i < length; i++) {
+                    textHash = 31 * textHash + window[i];
+                }
+                update(signature, seeds, textHash);
+            }
+        }
+    }
+
+    private static void update(long[] signature, long[] seeds, long shingle) {
+        for (int h = 0; h < seeds.length; h++) {
+            long value = mix64(shingle ^ seeds[h]);
+            if (value < signature[h]) {
+                signature[h] = value;
+            }
+        }
+    }
+
+    /** Finalizador do SplitMix64: espalha bem os bits para simular funções de hash independentes. */
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.projectcomparator.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Impressões de winnowing de um arquivo grande, calculadas bloco a bloco (ver
+ * {@link TextNormalizer#normalizeChunks}). Dois arquivos são comparados alinhando cada bloco de forma
+ * independente com o par de blocos consecutivos do outro arquivo que mais contém suas impressões; o score
+ * do arquivo é a fração das impressões dos dois arquivos cobertas assim. Como um trecho de até um bloco
+ * cabe sempre em dois blocos consecutivos, o resultado não depende de onde caem os cortes, e trechos
+ * reordenados ou movidos de lugar continuam sendo encontrados sem que nenhum texto inteiro fique em memória.
+ * <p>
+ * As impressões ficam em um único {@code long[]} ordenado (bits altos da impressão | índice do bloco),
+ * de modo que só os pares de blocos que compartilham alguma impressão são visitados.
+ */
+final class ChunkedFingerprints {
+
+    private static final int CHUNK_BITS = 16;
+    private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+    /** Blocos a partir deste índice são somados ao último. */
+    static final int MAX_CHUNKS = 1 << CHUNK_BITS;
+    // Acima deste número de pares de blocos, as impressões em comum são contadas em um mapa esparso
+    private static final long DENSE_PAIR_LIMIT = 1 << 20;
+
+    private static final ChunkedFingerprints EMPTY = new ChunkedFingerprints(new int[0], new long[0]);
+
+    private final int[] chunkFingerprintCounts;
+    private final long[] postings;
+
+    private ChunkedFingerprints(int[] chunkFingerprintCounts, long[] postings) {
+        this.chunkFingerprintCounts = chunkFingerprintCounts;
+        this.postings = postings;
+    }
+
+    /** @param chunks impressões de cada bloco, na ordem do arquivo (cada array ordenado e sem repetições) */
+    static ChunkedFingerprints of(List<long[]> chunks) {
+        if (chunks.isEmpty()) {
+            return EMPTY;
+        }
+        int chunkCount = Math.min(chunks.size(), MAX_CHUNKS);
+        int[] counts = new int[chunkCount];
+        int total = 0;
+        for (long[] chunk : chunks) {
+            total += chunk.length;
+        }
+        long[] postings = new long[total];
+        int position = 0;
+        for (int c = 0; c < chunks.size(); c++) {
+            int chunk = Math.min(c, chunkCount - 1);
+            counts[chunk] += chunks.get(c).length;
+            for (long fingerprint : chunks.get(c)) {
+                postings[position++] = (fingerprint & ~CHUNK_MASK) | chunk;
+            }
+        }
+        Arrays.sort(postings);
+        return new ChunkedFingerprints(counts, postings);
+    }
+
+    int chunkCount() {
+        return chunkFingerprintCounts.length;
+    }
+
+    int fingerprintCount() {
+        return postings.length;
+    }
+
+    /** Memória aproximada ocupada, para o orçamento do cache. */
+    long sizeInBytes() {
+        return 8L * postings.length + 4L * chunkFingerprintCounts.length;
+    }
+
+    /** Similaridade entre 0.0 e 1.0; as mesmas regras do winnowing para arquivos vazios. */
+    static double similarity(ChunkedFingerprints a, ChunkedFingerprints b) {
+        if (a.postings.length == 0 && b.postings.length == 0) {
+            return 1.0;
+        }
+        if (a.postings.length == 0 || b.postings.length == 0) {
+            return 0.0;
+        }
+        int chunksA = a.chunkCount();
+        int chunksB = b.chunkCount();
+        boolean dense = (long) chunksA * chunksB <= DENSE_PAIR_LIMIT;
+        int[] sharedDense = dense ? new int[chunksA * chunksB] : null;
+        Map<Long, Integer> sharedSparse = dense ? null : new HashMap<>();
+
+        // Junção das duas listas ordenadas: cada impressão em comum conta para todos os pares de blocos que a têm
+        int i = 0;
+        int j = 0;
+        while (i < a.postings.length && j < b.postings.length) {
+            long keyA = a.postings[i] & ~CHUNK_MASK;
+            long keyB = b.postings[j] & ~CHUNK_MASK;
+            if (keyA < keyB) {
+                i++;
+            } else if (keyA > keyB) {
+                j++;
+            } else {
+                int endA = i;
+                while (endA < a.postings.length && (a.postings[endA] & ~CHUNK_MASK) == keyA) {
+                    endA++;
+                }
+                int endB = j;
+                while (endB < b.postings.length && (b.postings[endB] & ~CHUNK_MASK) == keyB) {
+                    endB++;
+                }
+                for (int x = i; x < endA; x++) {
+                    int chunkA = (int) (a.postings[x] & CHUNK_MASK);
+                    for (int y = j; y < endB; y++) {
+                        int chunkB = (int) (b.postings[y] & CHUNK_MASK);
+                        if (dense) {
+                            sharedDense[chunkA * chunksB + chunkB]++;
+                        } else {
+                            sharedSparse.merge((long) chunkA << CHUNK_BITS | chunkB, 1, Integer::sum);
+                        }
+                    }
+                }
+                i = endA;
+                j = endB;
+            }
+        }
+
+        // Cobertura de cada bloco pelo melhor par de blocos consecutivos do outro arquivo
+        int[] coveredA = new int[chunksA];
+        int[] coveredB = new int[chunksB];
+        if (dense) {
+            for (int chunkA = 0; chunkA < chunksA; chunkA++) {
+                for (int chunkB = 0; chunkB < chunksB; chunkB++) {
+                    int shared = sharedDense[chunkA * chunksB + chunkB];
+                    int nextB = chunkB + 1 < chunksB ? sharedDense[chunkA * chunksB + chunkB + 1] : 0;
+                    int nextA = chunkA + 1 < chunksA ? sharedDense[(chunkA + 1) * chunksB + chunkB] : 0;
+                    coveredA[chunkA] = Math.max(coveredA[chunkA], shared + nextB);
+                    coveredB[chunkB] = Math.max(coveredB[chunkB], shared + nextA);
+                }
+            }
+        } else {
+            Map<Long, Integer> windowsA = new HashMap<>();
+            Map<Long, Integer> windowsB = new HashMap<>();
+            for (Map.Entry<Long, Integer> entry : sharedSparse.entrySet()) {
+                long key = entry.getKey();
+                int chunkA = (int) (key >>> CHUNK_BITS);
+                int chunkB = (int) (key & CHUNK_MASK);
+                // O par (a, b) entra nas janelas de A que começam em b e em b - 1, e nas de B que começam em a e a - 1
+                windowsA.merge(key, entry.getValue(), Integer::sum);
+                if (chunkB > 0) {
+                    windowsA.merge(key - 1, entry.getValue(), Integer::sum);
+                }
+                windowsB.merge(key, entry.getValue(), Integer::sum);
+                if (chunkA > 0) {
+                    windowsB.merge(key - (1L << CHUNK_BITS), entry.getValue(), Integer::sum);
+                }
+            }
+            windowsA.forEach((key, shared) -> {
+                int chunkA = (int) (key >>> CHUNK_BITS);
+                coveredA[chunkA] = Math.max(coveredA[chunkA], shared);
+            });
+            windowsB.forEach((key, shared) -> {
+                int chunkB = (int) (key & CHUNK_MASK);
+                coveredB[chunkB] = Math.max(coveredB[chunkB], shared);
+            });
+        }
+
+        // min: impressões distintas que colidem nos bits altos poderiam contar duas vezes
+        long covered = 0;
+        for (int chunk = 0; chunk < chunksA; chunk++) {
+            covered += Math.min(coveredA[chunk], a.chunkFingerprintCounts[chunk]);
+        }
+        for (int chunk = 0; chunk < chunksB; chunk++) {
+            covered += Math.min(coveredB[chunk], b.chunkFingerprintCounts[chunk]);
+        }
+        return (double) covered / (a.postings.length + b.postings.length);
+    }
+}
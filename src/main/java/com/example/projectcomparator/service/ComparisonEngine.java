@@ -0,0 +1,509 @@
+package com.example.projectcomparator.service;
+
+import com.example.projectcomparator.config.ComparatorProperties;
+import com.example.projectcomparator.model.ComparisonResult;
+import com.example.projectcomparator.model.NearestNeighbours;
+import com.example.projectcomparator.model.Project;
+import com.example.projectcomparator.model.SimilarityMatrix;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Calcula a matriz de similaridade distribuindo os pares do triângulo superior entre várias threads.
+ * Cada célula é escrita por exatamente uma tarefa, então o resultado é idêntico ao do laço sequencial.
+ */
+@Service
+public class ComparisonEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(ComparisonEngine.class);
+    // Folga (em pontos percentuais) para o arredondamento do score e do limite superior guardados em float
+    private static final double BOUND_TOLERANCE = 1e-3;
+
+    private final ProjectComparerService comparisonService;
+    private final CandidatePairSelector candidateSelector;
+    private final ProgressReporter progressReporter;
+    private final ComparatorProperties.Engine config;
+    private final boolean crossPathMatching;
+
+    private final Timer comparisonTimer;
+    private final Counter reusedPairs;
+    private final Counter estimatedPairs;
+    private final Counter prunedPairs;
+
+    public ComparisonEngine(ProjectComparerService comparisonService, CandidatePairSelector candidateSelector,
+                            ProgressReporter progressReporter, ComparatorProperties properties, MeterRegistry meterRegistry) {
+        this.comparisonService = comparisonService;
+        this.candidateSelector = candidateSelector;
+        this.progressReporter = progressReporter;
+        this.config = properties.getEngine();
+        this.crossPathMatching = properties.getSimilarity().isCrossPathMatching();
+        this.comparisonTimer = Timer.builder("comparator.phase").tag("phase", "comparison")
+                .description("Cálculo da matriz de similaridade").register(meterRegistry);
+        this.reusedPairs = Counter.builder("comparator.pairs.reused")
+                .description("Pares reaproveitados da execução anterior").register(meterRegistry);
+        this.estimatedPairs = Counter.builder("comparator.pairs.estimated")
+                .description("Pares fora dos candidatos do LSH, só com a similaridade estimada").register(meterRegistry);
+        this.prunedPairs = Counter.builder("comparator.pairs.pruned")
+                .description("Pares não comparados porque o limite superior de similaridade os descarta").register(meterRegistry);
+    }
+
+    /**
+     * Compara todos os pares (i, j) com j > i e devolve a matriz usada pelos serviços de relatório.
+     */
+    public SimilarityMatrix computeSimilarityMatrix(List<String> sortedProjectNames, Map<String, Project> projectMap) {
+        return computeSimilarityMatrix(sortedProjectNames, projectMap, null, null);
+    }
+
+    /**
+     * Variante incremental: pares cujos dois projetos têm o mesmo digest da execução anterior
+     * reaproveitam o score de {@code previous}; apenas os demais são comparados.
+     *
+     * @param digests  digest de cada projeto (ver {@link SimilarityMatrixStore#digest(Project)}); ignorado se {@code previous} for null
+     * @param previous matriz da execução anterior, ou null para calcular tudo
+     */
+    public SimilarityMatrix computeSimilarityMatrix(List<String> sortedProjectNames,
+                                                    Map<String, Project> projectMap,
+                                                    Map<String, String> digests,
+                                                    SimilarityMatrixStore.PreviousScores previous) {
+        return computeSimilarityMatrix(sortedProjectNames, projectMap, digests, previous, 0.0);
+    }
+
+    /**
+     * Como {@link #computeSimilarityMatrix(List, Map, Map, SimilarityMatrixStore.PreviousScores)}, mas pares cujo
+     * limite superior ({@link ProjectComparerService#similarityUpperBound}) fica abaixo de {@code similarityThreshold}
+     * não são comparados: a matriz guarda só o limite (ver {@link SimilarityMatrix#isUpperBound}).
+     * <p>
+     * Os pares comparados com score acima de {@code similarityThreshold} levam também os arquivos movidos ou
+     * renomeados ({@link SimilarityMatrix#getCrossPathMatches}); pares reaproveitados de {@code previous} não.
+     */
+    public SimilarityMatrix computeSimilarityMatrix(List<String> sortedProjectNames,
+                                                    Map<String, Project> projectMap,
+                                                    Map<String, String> digests,
+                                                    SimilarityMatrixStore.PreviousScores previous,
+                                                    double similarityThreshold) {
+        long start = System.nanoTime();
+        try {
+            return computeMatrix(sortedProjectNames, projectMap, digests, previous,
+                    config.isPruneBelowThreshold() ? similarityThreshold : 0.0, similarityThreshold);
+        } finally {
+            comparisonTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private SimilarityMatrix computeMatrix(List<String> sortedProjectNames, Map<String, Project> projectMap,
+                                           Map<String, String> digests, SimilarityMatrixStore.PreviousScores previous,
+                                           double pruneBelow, double matchesAbove) {
+        int n = sortedProjectNames.size();
+        Project[] projects = new Project[n];
+        for (int i = 0; i < n; i++) {
+            projects[i] = projectMap.get(sortedProjectNames.get(i));
+        }
+
+        SimilarityMatrix matrix = new SimilarityMatrix(sortedProjectNames);
+        // Células já preenchidas antes do cálculo (matriz incremental); só é escrito antes das tarefas começarem
+        BitSet known = new BitSet(SimilarityMatrix.pairCount(n));
+        long reused = 0;
+        if (previous != null) {
+            for (int i = 0; i < n; i++) {
+                String nameA = sortedProjectNames.get(i);
+                for (int j = i + 1; j < n; j++) {
+                    String nameB = sortedProjectNames.get(j);
+                    Double score = previous.find(nameA, digests.get(nameA), nameB, digests.get(nameB));
+                    if (score != null) {
+                        matrix.set(i, j, score);
+                        known.set(SimilarityMatrix.cellIndex(i, j, n));
+                        reused++;
+                    }
+                }
+            }
+            reusedPairs.increment(reused);
+            logger.info("{} de {} pares reaproveitados da execução anterior", reused, (long) n * (n - 1) / 2);
+        }
+
+        // Pré-seleção opcional: pares fora dos candidatos do LSH recebem apenas a similaridade estimada
+        CandidatePairSelector.CandidatePairs candidates = candidateSelector.isEnabled()
+                ? candidateSelector.selectCandidates(Arrays.asList(projects))
+                : null;
+
+        ContentHashIndex hashIndex = buildHashIndex(projects);
+
+        int parallelism = config.effectiveParallelism();
+        logger.info("Comparando {} pares com executor {} (paralelismo {})",
+                (long) n * (n - 1) / 2, config.getExecutor(), parallelism);
+
+        try (ProgressReporter.Progress progress = progressReporter.start("comparação", SimilarityMatrix.pairCount(n) - reused)) {
+            if (config.getExecutor() == ComparatorProperties.Engine.ExecutorType.VIRTUAL_THREADS) {
+                runOnVirtualThreads(projects, candidates, hashIndex, pruneBelow, matchesAbove, matrix, known, progress, parallelism);
+            } else {
+                try (ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+                    pool.invoke(new RowBlockTask(projects, candidates, hashIndex, pruneBelow, matchesAbove, matrix, known, progress, 0, n));
+                }
+            }
+        }
+        if (pruneBelow > 0) {
+            logger.info("{} pares descartados sem leitura de arquivos: limite superior abaixo de {}%",
+                    matrix.upperBoundCount(), pruneBelow);
+        }
+        return matrix;
+    }
+
+    /** Índice de hashes do lote para parear arquivos idênticos movidos/renomeados, ou null se desabilitado. */
+    private ContentHashIndex buildHashIndex(Project[] projects) {
+        if (!crossPathMatching) {
+            return null;
+        }
+        long start = System.nanoTime();
+        ContentHashIndex hashIndex = ContentHashIndex.build(Arrays.asList(projects));
+        logger.info("Índice de hashes de conteúdo: {} hashes compartilhados, {} ocorrências ({} ms)",
+                hashIndex.hashCount(), hashIndex.postingCount(), (System.nanoTime() - start) / 1_000_000);
+        return hashIndex;
+    }
+
+    private void computeRows(Project[] projects, CandidatePairSelector.CandidatePairs candidates, ContentHashIndex hashIndex,
+                             double pruneBelow, double matchesAbove, SimilarityMatrix matrix, BitSet known,
+                             ProgressReporter.Progress progress, int fromRow, int toRow) {
+        int n = projects.length;
+        for (int i = fromRow; i < toRow; i++) {
+            Project projectA = projects[i];
+            // A diagonal é fixa em 100% na própria matriz
+            for (int j = i + 1; j < n; j++) {
+                if (known.get(SimilarityMatrix.cellIndex(i, j, n))) { // Reaproveitado da execução anterior
+                    continue;
+                }
+                if (pruneBelow > 0) {
+                    double bound = ProjectComparerService.similarityUpperBound(projectA, projects[j], hashIndex);
+                    if (bound + BOUND_TOLERANCE < pruneBelow) {
+                        matrix.setUpperBound(i, j, bound);
+                        prunedPairs.increment();
+                        progress.increment();
+                        continue;
+                    }
+                }
+                if (candidates != null && !candidates.isCandidate(i, j)) {
+                    // Jaccard das assinaturas, em outra escala: a matriz marca a célula como estimativa
+                    matrix.setEstimate(i, j, candidates.estimatedSimilarity(i, j));
+                    estimatedPairs.increment();
+                    progress.increment();
+                    continue;
+                }
+                ComparisonResult result = comparisonService.compareProjects(projectA, projects[j], hashIndex);
+                matrix.set(i, j, result.getSimilarityPercentage());
+                if (result.getSimilarityPercentage() > matchesAbove) { // Só os pares destacados nos relatórios
+                    matrix.setCrossPathMatches(i, j, result.getCrossPathMatches());
+                }
+                progress.increment();
+            }
+        }
+    }
+
+    /**
+     * Modo vizinhos: os {@code k} projetos mais parecidos com cada projeto, sem calcular a matriz completa.
+     * Cada linha percorre os demais projetos em ordem decrescente do limite superior de similaridade
+     * ({@link ProjectComparerService#similarityUpperBound}) e para assim que o limite fica abaixo do pior
+     * dos {@code k} melhores já encontrados. Cada par comparado alimenta os heaps dos dois projetos, então
+     * um par só é comparado se puder entrar no top-k de pelo menos um deles, e nunca duas vezes.
+     * <p>
+     * O resultado é o mesmo de {@link SimilarityMatrix#topK(int, int)} sobre a matriz completa. A matriz
+     * incremental e a pré-seleção por LSH não se aplicam a este modo; as linhas rodam sempre no fork-join.
+     */
+    public NearestNeighbours computeNearestNeighbours(List<String> sortedProjectNames, Map<String, Project> projectMap, int k) {
+        long start = System.nanoTime();
+        try {
+            return computeNeighbours(sortedProjectNames, projectMap, k);
+        } finally {
+            comparisonTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private NearestNeighbours computeNeighbours(List<String> sortedProjectNames, Map<String, Project> projectMap, int k) {
+        int n = sortedProjectNames.size();
+        Project[] projects = new Project[n];
+        NeighbourHeap[] heaps = new NeighbourHeap[n];
+        for (int i = 0; i < n; i++) {
+            projects[i] = projectMap.get(sortedProjectNames.get(i));
+            heaps[i] = new NeighbourHeap(Math.max(0, Math.min(k, n - 1)));
+        }
+        ContentHashIndex hashIndex = buildHashIndex(projects);
+        // Pares (i < j) já comparados, chave i * n + j; o score vai direto para os dois heaps
+        Set<Long> compared = ConcurrentHashMap.newKeySet();
+
+        int parallelism = config.effectiveParallelism();
+        logger.info("Calculando os {} vizinhos mais parecidos de {} projetos (paralelismo {})", k, n, parallelism);
+        try (ProgressReporter.Progress progress = progressReporter.start("vizinhos", n);
+             ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+            pool.submit(() -> IntStream.range(0, n).parallel().forEach(row -> {
+                computeNeighbourRow(projects, hashIndex, heaps, compared, row);
+                progress.increment();
+            })).join();
+        }
+
+        long totalPairs = (long) n * (n - 1) / 2;
+        prunedPairs.increment(totalPairs - compared.size());
+        logger.info("{} de {} pares comparados; {} descartados pelo limite superior",
+                compared.size(), totalPairs, totalPairs - compared.size());
+
+        int[][] neighbours = new int[n][];
+        float[][] similarities = new float[n][];
+        for (int i = 0; i < n; i++) {
+            neighbours[i] = new int[heaps[i].size()];
+            similarities[i] = new float[heaps[i].size()];
+            heaps[i].copySorted(neighbours[i], similarities[i]);
+        }
+        return new NearestNeighbours(sortedProjectNames, k, neighbours, similarities);
+    }
+
+    private void computeNeighbourRow(Project[] projects, ContentHashIndex hashIndex, NeighbourHeap[] heaps,
+                                     Set<Long> compared, int row) {
+        int n = projects.length;
+        // Limite nos 32 bits altos (float >= 0 mantém a ordem nos bits) e coluna nos baixos: ordenar os longs
+        // ordena as colunas pelo limite sem boxing
+        long[] order = new long[n - 1];
+        int count = 0;
+        for (int col = 0; col < n; col++) {
+            if (col != row) {
+                float bound = (float) ProjectComparerService.similarityUpperBound(projects[row], projects[col], hashIndex);
+                order[count++] = ((long) Float.floatToIntBits(bound) << 32) | col;
+            }
+        }
+        Arrays.sort(order);
+
+        NeighbourHeap heap = heaps[row];
+        for (int c = count - 1; c >= 0; c--) {
+            int col = (int) order[c];
+            if (heap.excludes(Float.intBitsToFloat((int) (order[c] >>> 32)))) {
+                break; // Os demais têm limite ainda menor: nenhum entra no top-k desta linha
+            }
+            int i = Math.min(row, col);
+            int j = Math.max(row, col);
+            if (!compared.add((long) i * n + j)) {
+                continue; // Comparado pela linha do outro projeto
+            }
+            float similarity = (float) comparisonService.compareProjects(projects[i], projects[j], hashIndex).getSimilarityPercentage();
+            heaps[i].offer(j, similarity);
+            heaps[j].offer(i, similarity);
+        }
+    }
+
+    /**
+     * Heap de mínimo com os {@code k} melhores vizinhos de um projeto (a raiz é o pior deles), com a mesma
+     * ordem de {@link SimilarityMatrix#topK}: maior score primeiro, empates pelo menor índice. Recebe ofertas
+     * das linhas de outros projetos, por isso os acessos são sincronizados.
+     */
+    private static final class NeighbourHeap {
+        private final int[] columns;
+        private final float[] similarities;
+        private int count;
+
+        NeighbourHeap(int capacity) {
+            this.columns = new int[capacity];
+            this.similarities = new float[capacity];
+        }
+
+        /** Um vizinho com score até {@code bound} não entra mais no heap. */
+        synchronized boolean excludes(double bound) {
+            return count == columns.length && bound + BOUND_TOLERANCE < similarities[0];
+        }
+
+        synchronized void offer(int column, float similarity) {
+            if (count < columns.length) {
+                columns[count] = column;
+                similarities[count] = similarity;
+                siftUp(count++);
+            } else if (count > 0 && better(column, similarity, columns[0], similarities[0])) {
+                columns[0] = column;
+                similarities[0] = similarity;
+                siftDown(0);
+            }
+        }
+
+        synchronized int size() {
+            return count;
+        }
+
+        /** Copia os vizinhos do melhor para o pior; chamado só depois que todas as linhas terminaram. */
+        synchronized void copySorted(int[] sortedColumns, float[] sortedSimilarities) {
+            Integer[] positions = new Integer[count];
+            for (int p = 0; p < count; p++) {
+                positions[p] = p;
+            }
+            // Colunas são únicas no heap: entre posições distintas sempre há um melhor
+            Arrays.sort(positions, (a, b) -> a.equals(b) ? 0
+                                             : better(columns[a], similarities[a], columns[b], similarities[b]) ? -1 : 1);
+            for (int p = 0; p < count; p++) {
+                sortedColumns[p] = columns[positions[p]];
+                sortedSimilarities[p] = similarities[positions[p]];
+            }
+        }
+
+        private static boolean better(int columnA, float similarityA, int columnB, float similarityB) {
+            return similarityA > similarityB || (similarityA == similarityB && columnA < columnB);
+        }
+
+        private void siftUp(int position) {
+            while (position > 0) {
+                int parent = (position - 1) / 2;
+                if (!better(columns[parent], similarities[parent], columns[position], similarities[position])) {
+                    break;
+                }
+                swap(parent, position);
+                position = parent;
+            }
+        }
+
+        private void siftDown(int position) {
+            while (true) {
+                int worst = position;
+                int left = 2 * position + 1;
+                int right = left + 1;
+                if (left < count && better(columns[worst], similarities[worst], columns[left], similarities[left])) worst = left;
+                if (right < count && better(columns[worst], similarities[worst], columns[right], similarities[right])) worst = right;
+                if (worst == position) {
+                    return;
+                }
+                swap(worst, position);
+                position = worst;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int column = columns[a];
+            columns[a] = columns[b];
+            columns[b] = column;
+            float similarity = similarities[a];
+            similarities[a] = similarities[b];
+            similarities[b] = similarity;
+        }
+    }
+
+    private static long pairCount(int n, int fromRow, int toRow) {
+        long pairs = 0;
+        for (int i = fromRow; i < toRow; i++) {
+            pairs += n - 1 - i;
+        }
+        return pairs;
+    }
+
+    /**
+     * Agrupa linhas consecutivas em blocos com aproximadamente {@code blockPairs} pares cada.
+     */
+    private List<int[]> rowBlocks(int n) {
+        List<int[]> blocks = new ArrayList<>();
+        int start = 0;
+        long pairs = 0;
+        for (int i = 0; i < n; i++) {
+            pairs += n - 1 - i;
+            if (pairs >= config.getBlockPairs() || i == n - 1) {
+                blocks.add(new int[] { start, i + 1 });
+                start = i + 1;
+                pairs = 0;
+            }
+        }
+        return blocks;
+    }
+
+    /**
+     * Roda {@code parallelism} threads virtuais de vida longa que retiram o próximo bloco de linhas de um
+     * contador compartilhado até esgotá-los. Cada thread atravessa vários blocos, então o estado por thread
+     * da comparação (normalizador e buffers em {@link ProjectComparerService}) é criado uma vez por worker,
+     * e não uma vez por bloco.
+     */
+    private void runOnVirtualThreads(Project[] projects, CandidatePairSelector.CandidatePairs candidates,
+                                     ContentHashIndex hashIndex, double pruneBelow, double matchesAbove,
+                                     SimilarityMatrix matrix, BitSet known,
+                                     ProgressReporter.Progress progress, int parallelism) {
+        List<int[]> blocks = rowBlocks(projects.length);
+        AtomicInteger nextBlock = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int w = 0; w < Math.min(parallelism, blocks.size()); w++) {
+                futures.add(executor.submit(() -> {
+                    for (int b = nextBlock.getAndIncrement(); b < blocks.size(); b = nextBlock.getAndIncrement()) {
+                        int[] block = blocks.get(b);
+                        computeRows(projects, candidates, hashIndex, pruneBelow, matchesAbove, matrix, known, progress, block[0], block[1]);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Comparação interrompida", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falha ao comparar projetos: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Divide o intervalo de linhas ao meio (por quantidade de pares) até atingir o tamanho de bloco;
+     * as metades ficam disponíveis para roubo de trabalho pelas outras threads do pool.
+     */
+    @SuppressWarnings("serial") // ForkJoinTask é Serializable, mas a tarefa nunca sai do pool
+    private class RowBlockTask extends RecursiveAction {
+        private final Project[] projects;
+        private final CandidatePairSelector.CandidatePairs candidates;
+        private final ContentHashIndex hashIndex;
+        private final double pruneBelow;
+        private final double matchesAbove;
+        private final SimilarityMatrix matrix;
+        private final BitSet known;
+        private final ProgressReporter.Progress progress;
+        private final int fromRow;
+        private final int toRow;
+
+        RowBlockTask(Project[] projects, CandidatePairSelector.CandidatePairs candidates, ContentHashIndex hashIndex,
+                     double pruneBelow, double matchesAbove, SimilarityMatrix matrix, BitSet known,
+                     ProgressReporter.Progress progress, int fromRow, int toRow) {
+            this.projects = projects;
+            this.candidates = candidates;
+            this.hashIndex = hashIndex;
+            this.pruneBelow = pruneBelow;
+            this.matchesAbove = matchesAbove;
+            this.matrix = matrix;
+            this.known = known;
+            this.progress = progress;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+        }
+
+        @Override
+        protected void compute() {
+            int n = projects.length;
+            long pairs = pairCount(n, fromRow, toRow);
+            if (toRow - fromRow <= 1 || pairs <= config.getBlockPairs()) {
+                computeRows(projects, candidates, hashIndex, pruneBelow, matchesAbove, matrix, known, progress, fromRow, toRow);
+                return;
+            }
+            int split = fromRow + 1;
+            long half = pairs / 2;
+            long accumulated = n - 1 - fromRow;
+            while (split < toRow - 1 && accumulated < half) {
+                accumulated += n - 1 - split;
+                split++;
+            }
+            invokeAll(new RowBlockTask(projects, candidates, hashIndex, pruneBelow, matchesAbove, matrix, known, progress, fromRow, split),
+                      new RowBlockTask(projects, candidates, hashIndex, pruneBelow, matchesAbove, matrix, known, progress, split, toRow));
+        }
+    }
+}
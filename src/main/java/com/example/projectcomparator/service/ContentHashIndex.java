@@ -0,0 +1,105 @@
+package com.example.projectcomparator.service;
+
+import com.example.projectcomparator.model.FileInfo;
+import com.example.projectcomparator.model.Project;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice invertido, por lote de projetos, de hash de conteúdo para as ocorrências {@code (projeto, arquivo)}.
+ * Permite achar, para um arquivo de um projeto, os arquivos idênticos de outro projeto em qualquer caminho
+ * com uma consulta ao mapa, sem comparar todos os arquivos contra todos.
+ * <p>
+ * Só entram no índice hashes presentes em pelo menos dois projetos; arquivos vazios ficam de fora
+ * (seriam "idênticos" a qualquer outro arquivo vazio). Imutável depois de construído e seguro para
+ * consultas simultâneas.
+ */
+public final class ContentHashIndex {
+
+    /** Ocorrência de um hash: índice do projeto no lote e o arquivo. */
+    private record Posting(int project, FileInfo file) { }
+
+    private final Map<Project, Integer> projectIndexes;
+    // Ocorrências de cada hash ordenadas pelo índice do projeto (busca binária por projeto)
+    private final Map<String, Posting[]> postings;
+    private final long postingCount;
+
+    private ContentHashIndex(Map<Project, Integer> projectIndexes, Map<String, Posting[]> postings, long postingCount) {
+        this.projectIndexes = projectIndexes;
+        this.postings = postings;
+        this.postingCount = postingCount;
+    }
+
+    public static ContentHashIndex build(List<Project> projects) {
+        Map<Project, Integer> projectIndexes = new IdentityHashMap<>(projects.size() * 2);
+        Map<String, List<Posting>> lists = new HashMap<>();
+        for (int p = 0; p < projects.size(); p++) {
+            Project project = projects.get(p);
+            projectIndexes.put(project, p);
+            for (FileInfo file : project.getFiles().values()) {
+                if (file.getContentHash() != null && file.getSize() > 0) {
+                    lists.computeIfAbsent(file.getContentHash(), h -> new ArrayList<>(2)).add(new Posting(p, file));
+                }
+            }
+        }
+
+        Map<String, Posting[]> postings = new HashMap<>();
+        long postingCount = 0;
+        for (Map.Entry<String, List<Posting>> entry : lists.entrySet()) {
+            List<Posting> list = entry.getValue();
+            // Projetos são percorridos em ordem, então a lista já está ordenada por projeto
+            if (list.get(0).project() != list.get(list.size() - 1).project()) {
+                postings.put(entry.getKey(), list.toArray(Posting[]::new));
+                postingCount += list.size();
+            }
+        }
+        return new ContentHashIndex(projectIndexes, postings, postingCount);
+    }
+
+    /** Arquivos de {@code project} com o hash informado (vazio se não houver ou se o hash não estiver no índice). */
+    public List<FileInfo> find(String contentHash, Project project) {
+        Integer projectIndex = projectIndexes.get(project);
+        Posting[] list = contentHash != null ? postings.get(contentHash) : null;
+        if (projectIndex == null || list == null) {
+            return Collections.emptyList();
+        }
+        int low = 0;
+        int high = list.length;
+        while (low < high) { // Primeira ocorrência com projeto >= projectIndex
+            int mid = (low + high) >>> 1;
+            if (list[mid].project() < projectIndex) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        List<FileInfo> files = null;
+        for (int i = low; i < list.length && list[i].project() == projectIndex; i++) {
+            if (files == null) {
+                files = new ArrayList<>(2);
+            }
+            files.add(list[i].file());
+        }
+        return files != null ? files : Collections.emptyList();
+    }
+
+    /** Quantidade de hashes compartilhados por mais de um projeto. */
+    public int hashCount() {
+        return postings.size();
+    }
+
+    public long postingCount() {
+        return postingCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ContentHashIndex{hashes=%d, postings=%d, projects=%d}", postings.size(), postingCount,
+                             projectIndexes.size());
+    }
+}
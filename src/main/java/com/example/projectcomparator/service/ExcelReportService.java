@@ -1,6 +1,8 @@
 package com.example.projectcomparator.service;
 
+import org.apache.poi.common.usermodel.HyperlinkType;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFCellStyle;
 import org.apache.poi.xssf.usermodel.XSSFColor;
 import org.apache.poi.xssf.usermodel.XSSFFont;
@@ -9,21 +11,52 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import com.example.projectcomparator.config.ComparatorProperties;
+import com.example.projectcomparator.model.ComparisonResult;
+import com.example.projectcomparator.model.FileInfo;
+import com.example.projectcomparator.model.NearestNeighbours;
 import com.example.projectcomparator.model.Project;
+import com.example.projectcomparator.model.SimilarityMatrix;
 
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashMap;
+import java.nio.file.attribute.FileTime;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.TreeMap;
 
 @Service
 public class ExcelReportService {
 
     private static final Logger logger = LoggerFactory.getLogger(ExcelReportService.class);
     private static final String DEFAULT_SHEET_NAME = "Similaridade de Projetos";
+    private static final String MANIFEST_SHEET_NAME = "Arquivos";
+    private static final String NEIGHBOURS_SHEET_NAME = "Vizinhos mais próximos";
+
+    private final ComparatorProperties.Report config;
+    private final Timer reportTimer;
+
+    public ExcelReportService(ComparatorProperties properties, MeterRegistry meterRegistry) {
+        this.config = properties.getReport();
+        this.reportTimer = Timer.builder("comparator.phase").tag("phase", "report.xlsx")
+                .description("Geração do relatório Excel").register(meterRegistry);
+    }
+
+    /** Decide entre XSSF (tudo em memória, com comentários) e SXSSF (streaming, com planilha de arquivos). */
+    boolean useStreaming(int projectCount) {
+        return switch (config.getExcelMode()) {
+            case IN_MEMORY -> false;
+            case STREAMING -> true;
+            case AUTO -> projectCount >= config.getStreamingThreshold();
+        };
+    }
 
     private void addComment(Workbook workbook, Sheet sheet, Cell cell, String commentText) {
         CreationHelper factory = workbook.getCreationHelper();
@@ -58,169 +91,447 @@ public class ExcelReportService {
         style.setTopBorderColor(IndexedColors.GREY_40_PERCENT.getIndex());
     }
 
-    public void generateReport(List<String> sortedProjectNames,
+    public void generateReport(SimilarityMatrix similarityMatrix, Map<String, Project> projectMap,
+                               double similarityThreshold, String outputFilePath) throws IOException {
+        long start = System.nanoTime();
+        try {
+            writeReport(similarityMatrix, projectMap, similarityThreshold, outputFilePath);
+        } finally {
+            reportTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void writeReport(SimilarityMatrix similarityMatrix,
 							   Map<String, Project> projectMap,
-                               Map<String, Map<String, Double>> similarityScores,
 							   double similarityThreshold,
                                String outputFilePath) throws IOException {
 
-        if (sortedProjectNames == null || sortedProjectNames.isEmpty()) {
+        if (similarityMatrix == null || similarityMatrix.size() == 0) {
             logger.warn("Nenhum nome de projeto fornecido para o relatório Excel.");
             System.out.println("Nenhum nome de projeto para gerar o relatório Excel.");
             // Opcionalmente, criar um arquivo Excel vazio com uma mensagem
             // return;
         }
-        if (similarityScores == null) {
-            similarityScores = new HashMap<>();
+        if (similarityMatrix == null) {
+            similarityMatrix = new SimilarityMatrix(List.of());
         }
+        List<String> sortedProjectNames = similarityMatrix.getProjectNames();
+
+        int projectCount = sortedProjectNames.size();
+        boolean streaming = useStreaming(projectCount);
+        logger.info("Gerando relatório Excel em modo {} ({} projetos)", streaming ? "streaming" : "em memória", projectCount);
 
+        // Os estilos são criados uma única vez no XSSFWorkbook; no modo streaming o SXSSFWorkbook
+        // compartilha esses estilos e mantém apenas 'row-window' linhas de cada planilha em memória.
         try (XSSFWorkbook workbook = new XSSFWorkbook()) {
-            Sheet sheet = workbook.createSheet(DEFAULT_SHEET_NAME);
-            sheet.createFreezePane(1, 1); // (qtde de cima para baixo, qtde esquerda para direita)
-
-            // --- Criação de Estilos ---
-            DataFormat dataFormat = workbook.createDataFormat();
-            short percentageDataFormat = dataFormat.getFormat("0.00%");
-
-            // Estilo para cabeçalhos da tabela (nomes dos projetos)
-            XSSFCellStyle headerStyle = workbook.createCellStyle();
-            XSSFFont headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerFont.setColor(new XSSFColor(new java.awt.Color(255, 255, 255), null)); // Texto branco
-            headerStyle.setFont(headerFont);
-            headerStyle.setFillForegroundColor(new XSSFColor(new java.awt.Color(44, 62, 80), null)); // #2c3e50 (Azul escuro)
-            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-            headerStyle.setAlignment(HorizontalAlignment.LEFT);
-            headerStyle.setVerticalAlignment(VerticalAlignment.CENTER);
-            setCellBorders(headerStyle);
-
-            // Estilo para cabeçalhos de linha (nomes dos projetos na primeira coluna)
-            XSSFCellStyle rowHeaderStyle = workbook.createCellStyle();
-            rowHeaderStyle.cloneStyleFrom(headerStyle); // Baseia-se no headerStyle
-            rowHeaderStyle.setFillForegroundColor(new XSSFColor(new java.awt.Color(127, 140, 141), null)); // #7f8c8d (Cinza)
-            rowHeaderStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-            rowHeaderStyle.setAlignment(HorizontalAlignment.LEFT);
-
-			// Estilo para células com informações do projeto
-			// Estilo padrão para outras células de dados
-            XSSFCellStyle infoDataStyle = workbook.createCellStyle();
-            infoDataStyle.setAlignment(HorizontalAlignment.LEFT);
-			infoDataStyle.setWrapText(true);
-            setCellBorders(infoDataStyle);
-
-            // Estilo para células de dados com similaridade > 20%
-            XSSFCellStyle highlightStyle = workbook.createCellStyle();
-            highlightStyle.setDataFormat(percentageDataFormat);
-            highlightStyle.setFillForegroundColor(new XSSFColor(new java.awt.Color(254, 203, 203), null)); //rgb(254, 203, 203) (Verde claro)
-            highlightStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-            XSSFFont highlightFont = workbook.createFont();
-            highlightFont.setColor(new XSSFColor(new java.awt.Color(255, 0, 0), null)); //rgb(255, 0, 0) (Verde escuro)
-            highlightStyle.setFont(highlightFont);
-            highlightStyle.setAlignment(HorizontalAlignment.CENTER);
-            setCellBorders(highlightStyle);
-
-            // Estilo para células da diagonal (100%)
-            XSSFCellStyle diagonalStyle = workbook.createCellStyle();
-            diagonalStyle.setDataFormat(percentageDataFormat);
-            diagonalStyle.setFillForegroundColor(new XSSFColor(new java.awt.Color(189, 195, 199), null)); // #bdc3c7 (Cinza claro/médio)
-            diagonalStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-            XSSFFont diagonalFont = workbook.createFont();
-            diagonalFont.setBold(true);
-            diagonalFont.setColor(new XSSFColor(new java.awt.Color(44, 62, 80), null)); // #2c3e50
-            diagonalStyle.setFont(diagonalFont);
-            diagonalStyle.setAlignment(HorizontalAlignment.CENTER);
-            setCellBorders(diagonalStyle);
-
-            // Estilo padrão para outras células de dados
-            XSSFCellStyle defaultDataStyle = workbook.createCellStyle();
-            defaultDataStyle.setDataFormat(percentageDataFormat);
-            defaultDataStyle.setAlignment(HorizontalAlignment.CENTER);
-            setCellBorders(defaultDataStyle);
-
-
-            // --- Preenchimento da Planilha ---
-
-            // Linha de cabeçalho (nomes dos projetos nas colunas)
-            Row headerRow = sheet.createRow(0);
-            Cell topLeftCell = headerRow.createCell(0); // Célula do canto superior esquerdo
-            topLeftCell.setCellValue("Projetos");
-            topLeftCell.setCellStyle(headerStyle); // Usar o mesmo estilo dos outros cabeçalhos
-
-			// // Linha com dados do projeto
-			// Cell topLeftCell2 = headerRow.createCell(1); // Célula do canto superior esquerdo
-			// topLeftCell2.setCellValue("Informações");
-            // topLeftCell2.setCellStyle(headerStyle); // Usar o mesmo estilo dos outros cabeçalhos
-
-            for (int i = 0; i < sortedProjectNames.size(); i++) {
-                Cell cell = headerRow.createCell(i + 1);
-                cell.setCellValue(sortedProjectNames.get(i));
-                cell.setCellStyle(headerStyle);
-            }
+            SXSSFWorkbook streamingWorkbook = streaming ? new SXSSFWorkbook(workbook, config.getRowWindow()) : null;
+            try {
+                Workbook output = streaming ? streamingWorkbook : workbook;
+                if (streaming) {
+                    streamingWorkbook.setCompressTempFiles(true);
+                }
+                Sheet sheet = output.createSheet(DEFAULT_SHEET_NAME);
+                sheet.createFreezePane(1, 1); // (qtde de cima para baixo, qtde esquerda para direita)
+
+                // --- Criação de Estilos ---
+                DataFormat dataFormat = workbook.createDataFormat();
+                short percentageDataFormat = dataFormat.getFormat("0.00%");
+
+                // Estilo para cabeçalhos da tabela (nomes dos projetos)
+                XSSFCellStyle headerStyle = workbook.createCellStyle();
+                XSSFFont headerFont = workbook.createFont();
+                headerFont.setBold(true);
+                headerFont.setColor(new XSSFColor(new java.awt.Color(255, 255, 255), null)); // Texto branco
+                headerStyle.setFont(headerFont);
+                headerStyle.setFillForegroundColor(new XSSFColor(new java.awt.Color(44, 62, 80), null)); // #2c3e50 (Azul escuro)
+                headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+                headerStyle.setAlignment(HorizontalAlignment.LEFT);
+                headerStyle.setVerticalAlignment(VerticalAlignment.CENTER);
+                setCellBorders(headerStyle);
+
+                // Estilo para cabeçalhos de linha (nomes dos projetos na primeira coluna)
+                XSSFCellStyle rowHeaderStyle = workbook.createCellStyle();
+                rowHeaderStyle.cloneStyleFrom(headerStyle); // Baseia-se no headerStyle
+                rowHeaderStyle.setFillForegroundColor(new XSSFColor(new java.awt.Color(127, 140, 141), null)); // #7f8c8d (Cinza)
+                rowHeaderStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+                rowHeaderStyle.setAlignment(HorizontalAlignment.LEFT);
+
+				// Estilo para células com informações do projeto
+				// Estilo padrão para outras células de dados
+                XSSFCellStyle infoDataStyle = workbook.createCellStyle();
+                infoDataStyle.setAlignment(HorizontalAlignment.LEFT);
+				infoDataStyle.setWrapText(true);
+                setCellBorders(infoDataStyle);
+
+                // Estilo para células de dados com similaridade > 20%
+                XSSFCellStyle highlightStyle = workbook.createCellStyle();
+                highlightStyle.setDataFormat(percentageDataFormat);
+                highlightStyle.setFillForegroundColor(new XSSFColor(new java.awt.Color(254, 203, 203), null)); //rgb(254, 203, 203) (Verde claro)
+                highlightStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+                XSSFFont highlightFont = workbook.createFont();
+                highlightFont.setColor(new XSSFColor(new java.awt.Color(255, 0, 0), null)); //rgb(255, 0, 0) (Verde escuro)
+                highlightStyle.setFont(highlightFont);
+                highlightStyle.setAlignment(HorizontalAlignment.CENTER);
+                setCellBorders(highlightStyle);
+
+                // Estilo para células da diagonal (100%)
+                XSSFCellStyle diagonalStyle = workbook.createCellStyle();
+                diagonalStyle.setDataFormat(percentageDataFormat);
+                diagonalStyle.setFillForegroundColor(new XSSFColor(new java.awt.Color(189, 195, 199), null)); // #bdc3c7 (Cinza claro/médio)
+                diagonalStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+                XSSFFont diagonalFont = workbook.createFont();
+                diagonalFont.setBold(true);
+                diagonalFont.setColor(new XSSFColor(new java.awt.Color(44, 62, 80), null)); // #2c3e50
+                diagonalStyle.setFont(diagonalFont);
+                diagonalStyle.setAlignment(HorizontalAlignment.CENTER);
+                setCellBorders(diagonalStyle);
+
+                // Estilo padrão para outras células de dados
+                XSSFCellStyle defaultDataStyle = workbook.createCellStyle();
+                defaultDataStyle.setDataFormat(percentageDataFormat);
+                defaultDataStyle.setAlignment(HorizontalAlignment.CENTER);
+                setCellBorders(defaultDataStyle);
+
+                // Estilo para pares abaixo do limite descartados pelo limite superior: a célula guarda o limite,
+                // não o score (formato curto para caber na largura das colunas de dados)
+                XSSFCellStyle upperBoundStyle = workbook.createCellStyle();
+                upperBoundStyle.cloneStyleFrom(defaultDataStyle);
+                upperBoundStyle.setDataFormat(dataFormat.getFormat("\"máx. \"0.00%"));
+                XSSFFont upperBoundFont = workbook.createFont();
+                upperBoundFont.setItalic(true);
+                upperBoundFont.setColor(new XSSFColor(new java.awt.Color(127, 140, 141), null)); // #7f8c8d
+                upperBoundStyle.setFont(upperBoundFont);
+
+                // Estilo para pares fora dos candidatos do LSH: a célula guarda a estimativa das assinaturas,
+                // em outra escala que a do score, e nunca é destacada pelo limite
+                XSSFCellStyle estimatedStyle = workbook.createCellStyle();
+                estimatedStyle.cloneStyleFrom(upperBoundStyle);
+                estimatedStyle.setDataFormat(dataFormat.getFormat("\"est. \"0.00%"));
+
+
+                // --- Preenchimento da Planilha ---
+
+                // Linha de cabeçalho (nomes dos projetos nas colunas)
+                Row headerRow = sheet.createRow(0);
+                Cell topLeftCell = headerRow.createCell(0); // Célula do canto superior esquerdo
+                topLeftCell.setCellValue("Projetos");
+                topLeftCell.setCellStyle(headerStyle); // Usar o mesmo estilo dos outros cabeçalhos
+
+				// // Linha com dados do projeto
+				// Cell topLeftCell2 = headerRow.createCell(1); // Célula do canto superior esquerdo
+				// topLeftCell2.setCellValue("Informações");
+                // topLeftCell2.setCellStyle(headerStyle); // Usar o mesmo estilo dos outros cabeçalhos
+
+                for (int i = 0; i < sortedProjectNames.size(); i++) {
+                    Cell cell = headerRow.createCell(i + 1);
+                    cell.setCellValue(sortedProjectNames.get(i));
+                    cell.setCellStyle(headerStyle);
+                }
 
-            // Linhas de dados
-            for (int i = 0; i < sortedProjectNames.size(); i++) {
-                String rowProjName = sortedProjectNames.get(i);
-                Row dataRow = sheet.createRow(i + 1);
-
-                // Cabeçalho da linha (nome do projeto na primeira coluna)
-                Cell rowHeaderCell = dataRow.createCell(0);
-                rowHeaderCell.setCellValue(rowProjName);
-                rowHeaderCell.setCellStyle(rowHeaderStyle);
-
-				String fileInfo = projectMap.get(rowProjName).printFileInfo();
-				if (fileInfo.length() > 32767) {
-					fileInfo = fileInfo.substring(0,32767);
-				}
-				addComment(workbook, sheet, rowHeaderCell, fileInfo);
-
-				// Cell rowHeaderCell2 = dataRow.createCell(1);
-                // rowHeaderCell2.setCellValue(fileInfo);
-                // rowHeaderCell2.setCellStyle(infoDataStyle);
-
-                for (int j = 0; j < sortedProjectNames.size(); j++) {
-                    String colProjName = sortedProjectNames.get(j);
-                    Cell dataCell = dataRow.createCell(j + 1);
-
-                    double similarity = similarityScores
-                                            .getOrDefault(rowProjName, new HashMap<>())
-                                            .getOrDefault(colProjName, 0.0);
-
-                    dataCell.setCellValue(similarity / 100.0); // POI espera valor decimal para % (ex: 0.75 para 75%)
-
-                    if (rowProjName.equals(colProjName)) {
-                        dataCell.setCellStyle(diagonalStyle);
-                    } else if (similarity > similarityThreshold) {
-                        dataCell.setCellStyle(highlightStyle);
-                    } else {
-                        dataCell.setCellStyle(defaultDataStyle);
+                // Linha da planilha de arquivos onde começa cada projeto (destino do link no modo streaming)
+                int[] manifestRows = streaming ? manifestStartRows(sortedProjectNames, projectMap) : null;
+
+                // Linhas de dados
+                for (int i = 0; i < sortedProjectNames.size(); i++) {
+                    String rowProjName = sortedProjectNames.get(i);
+                    Row dataRow = sheet.createRow(i + 1);
+
+                    // Cabeçalho da linha (nome do projeto na primeira coluna)
+                    Cell rowHeaderCell = dataRow.createCell(0);
+                    rowHeaderCell.setCellValue(rowProjName);
+                    rowHeaderCell.setCellStyle(rowHeaderStyle);
+
+					if (streaming) {
+						// Comentários exigem um desenho por célula; no streaming a listagem vai para a planilha de arquivos
+						Hyperlink link = output.getCreationHelper().createHyperlink(HyperlinkType.DOCUMENT);
+						link.setAddress("'" + MANIFEST_SHEET_NAME + "'!A" + (manifestRows[i] + 1));
+						rowHeaderCell.setHyperlink(link);
+					} else {
+						String fileInfo = projectMap.get(rowProjName).printFileInfo();
+						if (fileInfo.length() > 32767) {
+							fileInfo = fileInfo.substring(0,32767);
+						}
+						addComment(workbook, sheet, rowHeaderCell, fileInfo);
+					}
+
+					// Cell rowHeaderCell2 = dataRow.createCell(1);
+                    // rowHeaderCell2.setCellValue(fileInfo);
+                    // rowHeaderCell2.setCellStyle(infoDataStyle);
+
+                    for (int j = 0; j < sortedProjectNames.size(); j++) {
+                        Cell dataCell = dataRow.createCell(j + 1);
+
+                        // Limites e estimativas não são scores: get() devolve NaN para eles
+                        double similarity = similarityMatrix.isUpperBound(i, j) ? similarityMatrix.upperBound(i, j)
+                                          : similarityMatrix.isEstimate(i, j) ? similarityMatrix.estimate(i, j)
+                                          : similarityMatrix.get(i, j);
+
+                        dataCell.setCellValue(similarity / 100.0); // POI espera valor decimal para % (ex: 0.75 para 75%)
+
+                        if (i == j) {
+                            dataCell.setCellStyle(diagonalStyle);
+                        } else if (similarityMatrix.isUpperBound(i, j)) {
+                            dataCell.setCellStyle(upperBoundStyle);
+                        } else if (similarityMatrix.isEstimate(i, j)) {
+                            dataCell.setCellStyle(estimatedStyle);
+                        } else if (similarity > similarityThreshold) {
+                            dataCell.setCellStyle(highlightStyle);
+                            List<ComparisonResult.CrossPathMatch> moved = similarityMatrix.getCrossPathMatches(i, j);
+                            if (!streaming && !moved.isEmpty()) {
+                                String movedInfo = ComparisonResult.crossPathInfo(moved); // Do projeto da linha para o da coluna
+                                if (movedInfo.length() > 32767) {
+                                    movedInfo = movedInfo.substring(0, 32767);
+                                }
+                                addComment(workbook, sheet, dataCell, movedInfo);
+                            }
+                        } else {
+                            dataCell.setCellStyle(defaultDataStyle);
+                        }
                     }
                 }
-            }
 
-            // Ajustar largura das colunas
-            sheet.setColumnWidth(0, 25 * 256); // Largura para a primeira coluna (nomes dos projetos)
-			// sheet.autoSizeColumn(1);
-            for (int i = 0; i < sortedProjectNames.size(); i++) {
-                sheet.setColumnWidth(i + 1, 15 * 256); // Largura para colunas de dados
-                // Alternativamente, usar autoSizeColumn, mas pode ser lento para muitas colunas/linhas
-                // sheet.autoSizeColumn(i + 1);
-            }
-             if (sortedProjectNames.isEmpty()) { // Se não há projetos, ajuste a primeira coluna pelo menos
-                sheet.setColumnWidth(0, 25 * 256);
-            }
+                long upperBoundPairs = similarityMatrix.upperBoundCount();
+                if (upperBoundPairs > 0) {
+                    Cell noteCell = sheet.createRow(sortedProjectNames.size() + 2).createCell(0);
+                    noteCell.setCellValue(String.format(
+                            "%d de %d pares abaixo do limite sem leitura de arquivos; as células \"máx. X%%\" mostram o limite superior da similaridade",
+                            upperBoundPairs, SimilarityMatrix.pairCount(projectCount)));
+                }
+                long estimatedPairs = similarityMatrix.estimateCount();
+                if (estimatedPairs > 0) {
+                    Cell noteCell = sheet.createRow(sortedProjectNames.size() + (upperBoundPairs > 0 ? 3 : 2)).createCell(0);
+                    noteCell.setCellValue(String.format(
+                            "%d de %d pares fora dos candidatos do LSH; as células \"est. X%%\" mostram a similaridade estimada pelas assinaturas, não um score comparado",
+                            estimatedPairs, SimilarityMatrix.pairCount(projectCount)));
+                }
+
+                // Ajustar largura das colunas
+                sheet.setColumnWidth(0, 25 * 256); // Largura para a primeira coluna (nomes dos projetos)
+				// sheet.autoSizeColumn(1);
+                for (int i = 0; i < sortedProjectNames.size(); i++) {
+                    sheet.setColumnWidth(i + 1, 15 * 256); // Largura para colunas de dados
+                    // Alternativamente, usar autoSizeColumn, mas pode ser lento para muitas colunas/linhas
+                    // sheet.autoSizeColumn(i + 1);
+                }
+                 if (sortedProjectNames.isEmpty()) { // Se não há projetos, ajuste a primeira coluna pelo menos
+                    sheet.setColumnWidth(0, 25 * 256);
+                }
 
+                if (streaming) {
+                    writeManifestSheet(output, sortedProjectNames, projectMap, headerStyle, rowHeaderStyle, infoDataStyle);
+                }
 
-            // Escrever o arquivo
-            Path outputPathObj = Paths.get(outputFilePath);
-            try (FileOutputStream fileOut = new FileOutputStream(outputPathObj.toFile())) {
-                workbook.write(fileOut);
+                // Escrever o arquivo
+                Path outputPathObj = Paths.get(outputFilePath);
+                try (FileOutputStream fileOut = new FileOutputStream(outputPathObj.toFile())) {
+                    output.write(fileOut);
+                }
+                logger.info("Relatório Excel gerado com sucesso em: {}", outputPathObj.toAbsolutePath());
+                System.out.println("Relatório Excel gerado com sucesso em: " + outputPathObj.toAbsolutePath());
+            } finally {
+                if (streamingWorkbook != null) {
+                    // Remove os arquivos temporários das linhas já descarregadas; fechar de novo o XSSFWorkbook é inócuo
+                    streamingWorkbook.close();
+                }
             }
-            logger.info("Relatório Excel gerado com sucesso em: {}", outputPathObj.toAbsolutePath());
-            System.out.println("Relatório Excel gerado com sucesso em: " + outputPathObj.toAbsolutePath());
 
         } catch (IOException e) {
             logger.error("Erro ao gerar relatório Excel: {}", e.getMessage(), e);
             throw e; // Propaga a exceção para ser tratada pelo chamador
         }
     }
+
+    /**
+     * Relatório do modo vizinhos: uma linha por (projeto, vizinho), com a posição e a similaridade,
+     * em vez da matriz completa. O tamanho cresce com {@code projetos * k}.
+     */
+    public void generateNeighbourReport(NearestNeighbours neighbours, Map<String, Project> projectMap,
+                                        double similarityThreshold, String outputFilePath) throws IOException {
+        long start = System.nanoTime();
+        try {
+            writeNeighbourReport(neighbours, projectMap, similarityThreshold, outputFilePath);
+        } finally {
+            reportTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void writeNeighbourReport(NearestNeighbours neighbours, Map<String, Project> projectMap,
+                                      double similarityThreshold, String outputFilePath) throws IOException {
+        int projectCount = neighbours.size();
+        boolean streaming = useStreaming(projectCount);
+        logger.info("Gerando relatório Excel de vizinhos em modo {} ({} projetos, k = {})",
+                streaming ? "streaming" : "em memória", projectCount, neighbours.getK());
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            SXSSFWorkbook streamingWorkbook = streaming ? new SXSSFWorkbook(workbook, config.getRowWindow()) : null;
+            try {
+                Workbook output = streaming ? streamingWorkbook : workbook;
+                Sheet sheet = output.createSheet(NEIGHBOURS_SHEET_NAME);
+                sheet.createFreezePane(0, 1);
+
+                short percentageDataFormat = workbook.createDataFormat().getFormat("0.00%");
+                XSSFCellStyle headerStyle = workbook.createCellStyle();
+                XSSFFont headerFont = workbook.createFont();
+                headerFont.setBold(true);
+                headerFont.setColor(new XSSFColor(new java.awt.Color(255, 255, 255), null));
+                headerStyle.setFont(headerFont);
+                headerStyle.setFillForegroundColor(new XSSFColor(new java.awt.Color(44, 62, 80), null)); // #2c3e50
+                headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+                setCellBorders(headerStyle);
+
+                XSSFCellStyle textStyle = workbook.createCellStyle();
+                setCellBorders(textStyle);
+
+                XSSFCellStyle defaultDataStyle = workbook.createCellStyle();
+                defaultDataStyle.setDataFormat(percentageDataFormat);
+                defaultDataStyle.setAlignment(HorizontalAlignment.CENTER);
+                setCellBorders(defaultDataStyle);
+
+                XSSFCellStyle highlightStyle = workbook.createCellStyle();
+                highlightStyle.cloneStyleFrom(defaultDataStyle);
+                highlightStyle.setFillForegroundColor(new XSSFColor(new java.awt.Color(254, 203, 203), null));
+                highlightStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+                XSSFFont highlightFont = workbook.createFont();
+                highlightFont.setColor(new XSSFColor(new java.awt.Color(255, 0, 0), null));
+                highlightStyle.setFont(highlightFont);
+
+                String[] headers = { "Projeto", "Posição", "Vizinho", "Similaridade", "Arquivos (projeto)", "Arquivos (vizinho)" };
+                Row headerRow = sheet.createRow(0);
+                for (int c = 0; c < headers.length; c++) {
+                    Cell cell = headerRow.createCell(c);
+                    cell.setCellValue(headers[c]);
+                    cell.setCellStyle(headerStyle);
+                }
+
+                int rowIndex = 1;
+                for (int i = 0; i < projectCount; i++) {
+                    String projectName = neighbours.getProjectName(i);
+                    for (int rank = 0; rank < neighbours.neighbourCount(i); rank++) {
+                        String neighbourName = neighbours.getProjectName(neighbours.neighbour(i, rank));
+                        double similarity = neighbours.similarity(i, rank);
+                        Row row = sheet.createRow(rowIndex++);
+                        setTextCell(row.createCell(0), projectName, textStyle);
+                        Cell rankCell = row.createCell(1);
+                        rankCell.setCellValue(rank + 1);
+                        rankCell.setCellStyle(textStyle);
+                        setTextCell(row.createCell(2), neighbourName, textStyle);
+                        Cell similarityCell = row.createCell(3);
+                        similarityCell.setCellValue(similarity / 100.0);
+                        similarityCell.setCellStyle(similarity > similarityThreshold ? highlightStyle : defaultDataStyle);
+                        setFileCountCell(row.createCell(4), projectMap.get(projectName), textStyle);
+                        setFileCountCell(row.createCell(5), projectMap.get(neighbourName), textStyle);
+                    }
+                }
+
+                sheet.setColumnWidth(0, 25 * 256);
+                sheet.setColumnWidth(1, 10 * 256);
+                sheet.setColumnWidth(2, 25 * 256);
+                sheet.setColumnWidth(3, 15 * 256);
+                sheet.setColumnWidth(4, 18 * 256);
+                sheet.setColumnWidth(5, 18 * 256);
+
+                Path outputPathObj = Paths.get(outputFilePath);
+                try (FileOutputStream fileOut = new FileOutputStream(outputPathObj.toFile())) {
+                    output.write(fileOut);
+                }
+                logger.info("Relatório Excel de vizinhos gerado com sucesso em: {}", outputPathObj.toAbsolutePath());
+                System.out.println("Relatório Excel gerado com sucesso em: " + outputPathObj.toAbsolutePath());
+            } finally {
+                if (streamingWorkbook != null) {
+                    streamingWorkbook.close();
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Erro ao gerar relatório Excel de vizinhos: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    private static void setTextCell(Cell cell, String value, CellStyle style) {
+        cell.setCellValue(value);
+        cell.setCellStyle(style);
+    }
+
+    private static void setFileCountCell(Cell cell, Project project, CellStyle style) {
+        if (project != null) {
+            cell.setCellValue(project.getFiles().size());
+        }
+        cell.setCellStyle(style);
+    }
+
+    private static int[] manifestStartRows(List<String> sortedProjectNames, Map<String, Project> projectMap) {
+        int[] startRows = new int[sortedProjectNames.size()];
+        int row = 1; // Linha 0 é o cabeçalho
+        for (int i = 0; i < sortedProjectNames.size(); i++) {
+            startRows[i] = row;
+            row += Math.max(1, projectMap.get(sortedProjectNames.get(i)).getFiles().size());
+        }
+        return startRows;
+    }
+
+    /**
+     * Planilha com um arquivo por linha (projeto, caminho, tamanho, hash, datas), escrita em ordem
+     * para que o SXSSF possa descarregar as linhas antigas. Projetos sem arquivos ocupam uma linha vazia,
+     * mantendo as posições calculadas em {@link #manifestStartRows}.
+     */
+    private void writeManifestSheet(Workbook workbook, List<String> sortedProjectNames, Map<String, Project> projectMap,
+                                    CellStyle headerStyle, CellStyle projectStyle, CellStyle infoDataStyle) {
+        Sheet manifest = workbook.createSheet(MANIFEST_SHEET_NAME);
+        manifest.createFreezePane(0, 1);
+
+        CellStyle dateStyle = workbook.createCellStyle();
+        dateStyle.cloneStyleFrom(infoDataStyle);
+        dateStyle.setWrapText(false);
+        dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd hh:mm:ss"));
+
+        String[] headers = { "Projeto", "Arquivo", "Tamanho (bytes)", "SHA-256", "Criação", "Modificação" };
+        Row headerRow = manifest.createRow(0);
+        for (int c = 0; c < headers.length; c++) {
+            Cell cell = headerRow.createCell(c);
+            cell.setCellValue(headers[c]);
+            cell.setCellStyle(headerStyle);
+        }
+
+        int rowIndex = 1;
+        for (String projectName : sortedProjectNames) {
+            Map<String, FileInfo> files = new TreeMap<>(projectMap.get(projectName).getFiles());
+            if (files.isEmpty()) {
+                Cell cell = manifest.createRow(rowIndex++).createCell(0);
+                cell.setCellValue(projectName);
+                cell.setCellStyle(projectStyle);
+                continue;
+            }
+            for (FileInfo file : files.values()) {
+                Row row = manifest.createRow(rowIndex++);
+                Cell projectCell = row.createCell(0);
+                projectCell.setCellValue(projectName);
+                projectCell.setCellStyle(projectStyle);
+                Cell pathCell = row.createCell(1);
+                pathCell.setCellValue(file.getRelativePath());
+                pathCell.setCellStyle(infoDataStyle);
+                Cell sizeCell = row.createCell(2);
+                sizeCell.setCellValue(file.getSize());
+                sizeCell.setCellStyle(infoDataStyle);
+                Cell hashCell = row.createCell(3);
+                hashCell.setCellValue(file.getContentHash() != null ? file.getContentHash() : "");
+                hashCell.setCellStyle(infoDataStyle);
+                setDateCell(row.createCell(4), file.getCreationTime(), dateStyle);
+                setDateCell(row.createCell(5), file.getLastModifiedTime(), dateStyle);
+            }
+        }
+
+        manifest.setColumnWidth(0, 25 * 256);
+        manifest.setColumnWidth(1, 60 * 256);
+        manifest.setColumnWidth(2, 15 * 256);
+        manifest.setColumnWidth(3, 66 * 256);
+        manifest.setColumnWidth(4, 20 * 256);
+        manifest.setColumnWidth(5, 20 * 256);
+    }
+
+    private static void setDateCell(Cell cell, FileTime time, CellStyle dateStyle) {
+        if (time != null) {
+            cell.setCellValue(Date.from(time.toInstant()));
+        }
+        cell.setCellStyle(dateStyle);
+    }
 }
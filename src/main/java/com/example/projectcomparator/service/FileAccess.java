@@ -0,0 +1,201 @@
+package com.example.projectcomparator.service;
+
+import com.example.projectcomparator.config.ComparatorProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Camada única de leitura de arquivos usada pelo hash e pela comparação. O conteúdo é entregue
+ * como um {@link ByteBuffer}, que o processador não deve alterar:
+ * <ul>
+ * <li>arquivos até {@code buffer-size} são lidos de uma vez em um buffer do heap reaproveitado de um pool
+ * (com array acessível, o {@code MessageDigest} e o decoder UTF-8 usam seus caminhos rápidos);</li>
+ * <li>arquivos até {@code map-threshold} passam pelo mesmo buffer em blocos consecutivos ({@link #readBlocks});</li>
+ * <li>só arquivos acima de {@code map-threshold} são mapeados em memória com {@link FileChannel#map}, sem cópia
+ * para o heap. O Java não libera um mapeamento antes do GC, e no Windows o arquivo fica travado até lá: por
+ * isso o limite é alto e fontes comuns nunca são mapeados;</li>
+ * <li>arquivos de outros sistemas de arquivos (ex.: entradas de um ZIP aberto como {@code FileSystem}) são
+ * lidos por {@link Files#newByteChannel}, que descompacta em streaming, sempre pelo buffer do pool, de uma
+ * vez ou em blocos conforme o tamanho.</li>
+ * </ul>
+ * Assim a memória do heap usada na leitura é limitada pelo pool, qualquer que seja o tamanho dos arquivos.
+ * {@link #readsWhole} diz se {@link #read} consegue entregar o arquivo em um único buffer; quem só precisa
+ * percorrer os bytes (ex.: o hash) usa {@link #readBlocks}, que serve para qualquer arquivo.
+ * Os buffers só são válidos durante a chamada do processador.
+ */
+@Service
+public class FileAccess {
+
+    @FunctionalInterface
+    public interface ContentProcessor<T> {
+        T process(ByteBuffer content) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface BlockProcessor {
+        void process(ByteBuffer block) throws IOException;
+    }
+
+    private final int bufferSize;
+    private final long mapThreshold;
+    private final int maxPooledBuffers;
+    private final Deque<ByteBuffer> pool = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger pooledBuffers = new AtomicInteger();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder mappedFiles = new LongAdder();
+    private final DistributionSummary fileSizes;
+
+    public FileAccess(ComparatorProperties properties, MeterRegistry meterRegistry) {
+        ComparatorProperties.FileAccess config = properties.getFileAccess();
+        this.bufferSize = (int) Math.min(Integer.MAX_VALUE - 8, config.getBufferSize().toBytes());
+        this.mapThreshold = config.getMapThreshold().toBytes();
+        this.maxPooledBuffers = config.getMaxPooledBuffers();
+        FunctionCounter.builder("comparator.file.bytes.read", bytesRead, LongAdder::sum)
+                .baseUnit(BaseUnits.BYTES)
+                .description("Bytes lidos dos arquivos (hash e comparação)")
+                .register(meterRegistry);
+        FunctionCounter.builder("comparator.file.mapped", mappedFiles, LongAdder::sum)
+                .description("Arquivos lidos com FileChannel.map")
+                .register(meterRegistry);
+        this.fileSizes = DistributionSummary.builder("comparator.file.size")
+                .baseUnit(BaseUnits.BYTES)
+                .description("Tamanho de cada arquivo lido")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Entrega o conteúdo inteiro do arquivo em um único buffer. Arquivos entre {@code buffer-size} e
+     * {@code map-threshold}, e entradas de outros sistemas de arquivos acima de {@code buffer-size}, não cabem
+     * no buffer do pool e devem ser lidos por {@link #readBlocks} (ver {@link #readsWhole}).
+     */
+    public <T> T read(Path path, ContentProcessor<T> processor) throws IOException {
+        try (SeekableByteChannel channel = open(path)) {
+            long size = channel.size();
+            if (isMapped(path, size)) {
+                return processor.process(map((FileChannel) channel, size));
+            }
+            if (size > bufferSize) {
+                throw new IOException("Arquivo maior que buffer-size, só pode ser lido em blocos: " + path + " (" + size + " bytes)");
+            }
+            ByteBuffer buffer = acquireBuffer();
+            try {
+                return readFully(channel, buffer, processor);
+            } finally {
+                releaseBuffer(buffer);
+            }
+        }
+    }
+
+    /** true se {@link #read} entrega o arquivo de {@code size} bytes em um único buffer. */
+    public boolean readsWhole(Path path, long size) {
+        return size <= bufferSize || isMapped(path, size);
+    }
+
+    /**
+     * Entrega o conteúdo do arquivo em blocos consecutivos de até {@code buffer-size} bytes, na ordem do
+     * arquivo. Arquivos mapeados chegam em um único bloco.
+     */
+    public void readBlocks(Path path, BlockProcessor processor) throws IOException {
+        try (SeekableByteChannel channel = open(path)) {
+            long size = channel.size();
+            if (isMapped(path, size)) {
+                processor.process(map((FileChannel) channel, size));
+                return;
+            }
+            ByteBuffer buffer = acquireBuffer();
+            long total = 0;
+            try {
+                int read;
+                do {
+                    read = channel.read(buffer);
+                    if (read < 0 || !buffer.hasRemaining()) {
+                        buffer.flip();
+                        total += buffer.remaining();
+                        if (buffer.hasRemaining()) {
+                            processor.process(buffer);
+                        }
+                        buffer.clear();
+                    }
+                } while (read >= 0);
+            } finally {
+                releaseBuffer(buffer);
+                bytesRead.add(total);
+            }
+            fileSizes.record(total);
+        }
+    }
+
+    // O FileChannel do zipfs extrairia a entrada para um arquivo temporário e não suporta map
+    private static SeekableByteChannel open(Path path) throws IOException {
+        return path.getFileSystem() == FileSystems.getDefault() ? FileChannel.open(path, StandardOpenOption.READ)
+                                                                : Files.newByteChannel(path, StandardOpenOption.READ);
+    }
+
+    private boolean isMapped(Path path, long size) {
+        return size > mapThreshold && size > bufferSize && path.getFileSystem() == FileSystems.getDefault();
+    }
+
+    private ByteBuffer map(FileChannel channel, long size) throws IOException {
+        ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        bytesRead.add(size);
+        mappedFiles.increment();
+        fileSizes.record(size);
+        return mapped;
+    }
+
+    private <T> T readFully(ReadableByteChannel channel, ByteBuffer buffer, ContentProcessor<T> processor) throws IOException {
+        int read;
+        do { // Lê até o fim do arquivo (ou até encher o buffer, se o arquivo cresceu)
+            read = channel.read(buffer);
+        } while (read >= 0 && buffer.hasRemaining());
+        buffer.flip();
+        bytesRead.add(buffer.remaining());
+        fileSizes.record(buffer.remaining());
+        return processor.process(buffer);
+    }
+
+    private ByteBuffer acquireBuffer() {
+        ByteBuffer buffer = pool.pollFirst();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocate(bufferSize);
+        } else {
+            pooledBuffers.decrementAndGet();
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    private void releaseBuffer(ByteBuffer buffer) {
+        if (pooledBuffers.incrementAndGet() <= maxPooledBuffers) {
+            pool.offerFirst(buffer);
+        } else {
+            pooledBuffers.decrementAndGet(); // Pool cheio: o buffer é liberado pelo GC
+        }
+    }
+
+    /** Total de bytes entregues desde o início da execução. */
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    public long getMappedFiles() {
+        return mappedFiles.sum();
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.projectcomparator.service;
+
+import com.example.projectcomparator.model.FileInfo;
+
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Cache LRU limitado por bytes para dados derivados do conteúdo de arquivos (ex.: texto normalizado).
+ * A chave combina caminho absoluto, tamanho e data de modificação, então um arquivo alterado no meio
+ * da execução nunca devolve um valor antigo. Seguro para uso por várias threads.
+ *
+ * @param <V> tipo do valor armazenado
+ */
+public class FileContentCache<V> {
+
+    /** Custo aproximado de cada entrada além do próprio valor (chave, nó do mapa, cabeçalhos). */
+    private static final long ENTRY_OVERHEAD_BYTES = 96;
+
+    public record FileKey(Path absolutePath, long size, long lastModifiedMillis) {
+        public static FileKey of(FileInfo fileInfo) {
+            long lastModified = fileInfo.getLastModifiedTime() != null ? fileInfo.getLastModifiedTime().toMillis() : 0L;
+            return new FileKey(fileInfo.getAbsolutePath(), fileInfo.getSize(), lastModified);
+        }
+    }
+
+    public record Statistics(long hits, long misses, long evictions, int entries, long usedBytes, long maxBytes) {
+        @Override
+        public String toString() {
+            return String.format("hits=%d, misses=%d, evictions=%d, entries=%d, bytes=%d/%d",
+                                 hits, misses, evictions, entries, usedBytes, maxBytes);
+        }
+    }
+
+    private record Entry<V>(V value, long weight) { }
+
+    private final long maxBytes;
+    private final ToLongFunction<V> weigher;
+    private final LinkedHashMap<FileKey, Entry<V>> entries = new LinkedHashMap<>(256, 0.75f, true); // ordem de acesso = LRU
+    private long usedBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public FileContentCache(long maxBytes, ToLongFunction<V> weigher) {
+        this.maxBytes = maxBytes;
+        this.weigher = weigher;
+    }
+
+    /**
+     * Devolve o valor em cache para o arquivo ou o calcula com {@code loader}. O carregamento acontece
+     * fora do lock, então duas threads podem eventualmente carregar o mesmo arquivo ao mesmo tempo;
+     * o resultado é o mesmo e apenas um fica no cache.
+     */
+    public V get(FileInfo fileInfo, Function<FileInfo, V> loader) {
+        FileKey key = FileKey.of(fileInfo);
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                hits.increment();
+                return entry.value();
+            }
+        }
+        misses.increment();
+        V value = loader.apply(fileInfo);
+        put(key, value);
+        return value;
+    }
+
+    private synchronized void put(FileKey key, V value) {
+        long weight = weigher.applyAsLong(value) + ENTRY_OVERHEAD_BYTES;
+        if (weight > maxBytes) {
+            return; // Maior que o orçamento inteiro: não vale a pena expulsar tudo por ele
+        }
+        Entry<V> previous = entries.put(key, new Entry<>(value, weight));
+        if (previous != null) {
+            usedBytes -= previous.weight();
+        }
+        usedBytes += weight;
+        Iterator<Map.Entry<FileKey, Entry<V>>> eldest = entries.entrySet().iterator();
+        while (usedBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<FileKey, Entry<V>> candidate = eldest.next();
+            if (candidate.getKey().equals(key)) {
+                continue;
+            }
+            usedBytes -= candidate.getValue().weight();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        usedBytes = 0;
+    }
+
+    public synchronized Statistics statistics() {
+        return new Statistics(hits.sum(), misses.sum(), evictions.sum(), entries.size(), usedBytes, maxBytes);
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.projectcomparator.service;
+
+import com.example.projectcomparator.config.ComparatorProperties;
+import com.example.projectcomparator.model.FileInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Índice persistente, em arquivo binário compacto, com o hash SHA-256 e as impressões de winnowing
+ * de cada arquivo já processado. Cada entrada é identificada pelo caminho do arquivo (raiz do projeto
+ * + caminho relativo) e só é reaproveitada se o tamanho e a data de modificação ainda conferem, de modo
+ * que uma nova execução sobre a mesma pasta só relê os arquivos novos ou alterados.
+ * <p>
+ * Só sobrevivem ao {@link #save()} as entradas de arquivos consultados ou gravados na execução atual;
+ * as de arquivos apagados, renomeados ou fora da varredura são descartadas, e o índice não cresce
+ * indefinidamente.
+ */
+@Service
+public class FingerprintIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(FingerprintIndex.class);
+
+    private static final int MAGIC = 0x50434958; // "PCIX"
+    // Versão 2: arquivos que não são UTF-8 válido passaram a ter impressões (antes ficavam vazias)
+    private static final int VERSION = 2;
+    private static final HexFormat HEX = HexFormat.of();
+
+    private record Entry(long size, long lastModifiedMillis, byte[] sha256, long[] fingerprints) {
+        boolean matches(FileInfo fileInfo) {
+            return size == fileInfo.getSize() && lastModifiedMillis == FingerprintIndex.lastModifiedMillis(fileInfo);
+        }
+    }
+
+    private final int kgramSize;
+    private final int windowSize;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Chaves consultadas ou gravadas desde o load(): as demais não vão para o save()
+    private final Set<String> touched = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private Path indexFile;
+
+    public FingerprintIndex(ComparatorProperties properties) {
+        // As impressões só valem para os mesmos parâmetros de winnowing
+        this.kgramSize = properties.getSimilarity().getKgramSize();
+        this.windowSize = properties.getSimilarity().getWindowSize();
+    }
+
+    private static long lastModifiedMillis(FileInfo fileInfo) {
+        return fileInfo.getLastModifiedTime() != null ? fileInfo.getLastModifiedTime().toMillis() : 0L;
+    }
+
+    // Entradas de um ZIP usam a URI (jar:file:...!/caminho), que inclui o arquivo compactado
+    private static String key(Path file) {
+        Path absolute = file.toAbsolutePath().normalize();
+        return absolute.getFileSystem() == FileSystems.getDefault() ? absolute.toString() : absolute.toUri().toString();
+    }
+
+    /**
+     * Carrega o índice de {@code file}, se existir. Um arquivo ausente, corrompido ou de outra versão
+     * resulta em um índice vazio (tudo será recalculado e o arquivo regravado no {@link #save()}).
+     */
+    public void load(Path file) {
+        this.indexFile = file;
+        entries.clear();
+        touched.clear();
+        dirty.set(false);
+        if (!Files.isRegularFile(file)) {
+            logger.info("Índice de impressões não encontrado em {}; será criado ao fim da execução", file.toAbsolutePath());
+            return;
+        }
+        long start = System.nanoTime();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                logger.warn("Índice de impressões {} em formato desconhecido; ignorando", file);
+                return;
+            }
+            int storedKgramSize = in.readInt();
+            int storedWindowSize = in.readInt();
+            boolean sameParameters = storedKgramSize == kgramSize && storedWindowSize == windowSize;
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+                long size = in.readLong();
+                long lastModified = in.readLong();
+                byte[] sha256 = null;
+                int hashLength = in.readUnsignedByte();
+                if (hashLength > 0) {
+                    sha256 = new byte[hashLength];
+                    in.readFully(sha256);
+                }
+                long[] fingerprints = null;
+                int fingerprintCount = in.readInt();
+                if (fingerprintCount >= 0) {
+                    fingerprints = new long[fingerprintCount];
+                    for (int f = 0; f < fingerprintCount; f++) {
+                        fingerprints[f] = in.readLong();
+                    }
+                }
+                entries.put(path, new Entry(size, lastModified, sha256, sameParameters ? fingerprints : null));
+            }
+            logger.info("Índice de impressões carregado: {} arquivos em {} ms", count, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            logger.warn("Não foi possível ler o índice de impressões {}: {}", file, e.getMessage());
+            entries.clear();
+        }
+    }
+
+    /**
+     * Descarta as entradas de arquivos que não apareceram nesta execução e grava o índice (em um arquivo
+     * temporário seguido de move atômico) se algo mudou.
+     */
+    public void save() {
+        if (indexFile == null) {
+            return;
+        }
+        if (entries.keySet().retainAll(touched)) {
+            dirty.set(true);
+        }
+        if (!dirty.get()) {
+            return;
+        }
+        long start = System.nanoTime();
+        Path absolute = indexFile.toAbsolutePath();
+        Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                Map<String, Entry> snapshot = Map.copyOf(entries);
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(kgramSize);
+                out.writeInt(windowSize);
+                out.writeInt(snapshot.size());
+                for (Map.Entry<String, Entry> e : snapshot.entrySet()) {
+                    Entry entry = e.getValue();
+                    out.writeUTF(e.getKey());
+                    out.writeLong(entry.size());
+                    out.writeLong(entry.lastModifiedMillis());
+                    if (entry.sha256() != null) {
+                        out.writeByte(entry.sha256().length);
+                        out.write(entry.sha256());
+                    } else {
+                        out.writeByte(0);
+                    }
+                    if (entry.fingerprints() != null) {
+                        out.writeInt(entry.fingerprints().length);
+                        for (long fingerprint : entry.fingerprints()) {
+                            out.writeLong(fingerprint);
+                        }
+                    } else {
+                        out.writeInt(-1);
+                    }
+                }
+            }
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty.set(false);
+            logger.info("Índice de impressões gravado em {} ({} arquivos, {} ms)",
+                    absolute, entries.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            logger.error("Falha ao gravar índice de impressões {}: {}", absolute, e.getMessage());
+        }
+    }
+
+    /** Hash SHA-256 (hex) já calculado para o arquivo, ou null se ausente/desatualizado. */
+    public String findContentHash(Path file, long size, long lastModifiedMillis) {
+        String key = key(file);
+        touched.add(key);
+        Entry entry = entries.get(key);
+        if (entry == null || entry.sha256() == null || entry.size() != size || entry.lastModifiedMillis() != lastModifiedMillis) {
+            return null;
+        }
+        return HEX.formatHex(entry.sha256());
+    }
+
+    public void putContentHash(Path file, long size, long lastModifiedMillis, String contentHash) {
+        String key = key(file);
+        touched.add(key);
+        entries.compute(key, (k, old) -> {
+            boolean sameVersion = old != null && old.size() == size && old.lastModifiedMillis() == lastModifiedMillis;
+            return new Entry(size, lastModifiedMillis, HEX.parseHex(contentHash), sameVersion ? old.fingerprints() : null);
+        });
+        dirty.set(true);
+    }
+
+    /** Impressões de winnowing já calculadas para o arquivo, ou null se ausentes/desatualizadas. */
+    public long[] findFingerprints(FileInfo fileInfo) {
+        String key = key(fileInfo.getAbsolutePath());
+        touched.add(key);
+        Entry entry = entries.get(key);
+        return entry != null && entry.matches(fileInfo) ? entry.fingerprints() : null;
+    }
+
+    public void putFingerprints(FileInfo fileInfo, long[] fingerprints) {
+        String key = key(fileInfo.getAbsolutePath());
+        touched.add(key);
+        entries.compute(key, (k, old) -> {
+            byte[] sha256 = old != null && old.matches(fileInfo) ? old.sha256() : null;
+            return new Entry(fileInfo.getSize(), lastModifiedMillis(fileInfo), sha256, fingerprints);
+        });
+        dirty.set(true);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
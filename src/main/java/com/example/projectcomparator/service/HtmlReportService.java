@@ -1,25 +1,62 @@
 package com.example.projectcomparator.service;
 
+import com.example.projectcomparator.config.ComparatorProperties;
+import com.example.projectcomparator.model.ComparisonResult;
+import com.example.projectcomparator.model.NearestNeighbours;
 import com.example.projectcomparator.model.Project; // Se precisar acessar o objeto Project diretamente
+import com.example.projectcomparator.model.SimilarityMatrix;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashMap;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class HtmlReportService {
 
     private static final Logger logger = LoggerFactory.getLogger(HtmlReportService.class);
     private static final String DEFAULT_OUTPUT_FILENAME = "relatorio_similaridade_projetos.html";
+    private static final String INTERACTIVE_TEMPLATE = "/report/interactive-report.html";
+    private static final String DATA_MARKER = "<!--MATRIX-DATA-->";
+    // Múltiplo de 3 bytes para que os blocos em base64 possam ser concatenados sem padding intermediário
+    private static final int FLOATS_PER_CHUNK = 3 * 1024;
+
+    private final ComparatorProperties.Report config;
+    private final Timer reportTimer;
+
+    public HtmlReportService(ComparatorProperties properties, MeterRegistry meterRegistry) {
+        this.config = properties.getReport();
+        this.reportTimer = Timer.builder("comparator.phase").tag("phase", "report.html")
+                .description("Geração do relatório HTML").register(meterRegistry);
+    }
+
+    /** Decide entre a tabela HTML completa e o relatório interativo com a matriz compacta. */
+    boolean useInteractive(int projectCount) {
+        return switch (config.getHtmlMode()) {
+            case TABLE -> false;
+            case INTERACTIVE -> true;
+            case AUTO -> projectCount >= config.getStreamingThreshold();
+        };
+    }
 
     // Helper para escapar caracteres HTML, caso os nomes dos projetos os contenham
     private String escapeHtml(String text) {
@@ -31,21 +68,32 @@ public class HtmlReportService {
                    .replace("'", "&#39;");
     }
 
-    public void generateReport(List<String> sortedProjectNames,
+    public void generateReport(SimilarityMatrix similarityMatrix, Map<String, Project> projectMap,
+                               double similarityThreshold, String outputFilePath) throws IOException {
+        long start = System.nanoTime();
+        try {
+            writeReport(similarityMatrix, projectMap, similarityThreshold, outputFilePath);
+        } finally {
+            reportTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void writeReport(SimilarityMatrix similarityMatrix,
                                Map<String, Project> projectMap,
-                               Map<String, Map<String, Double>> similarityScores,
 							   double similarityThreshold,
                                String outputFilePath) throws IOException {
 
-        if (sortedProjectNames == null || sortedProjectNames.isEmpty()) {
+        if (similarityMatrix == null || similarityMatrix.size() == 0) {
             logger.warn("Nenhum nome de projeto fornecido para o relatório HTML.");
             System.out.println("Nenhum nome de projeto para gerar o relatório HTML.");
             return;
         }
-        if (similarityScores == null) {
-            similarityScores = new HashMap<>(); // Evita NullPointerException
-        }
+        List<String> sortedProjectNames = similarityMatrix.getProjectNames();
 
+        if (useInteractive(sortedProjectNames.size())) {
+            generateInteractiveReport(similarityMatrix, similarityThreshold, outputFilePath);
+            return;
+        }
 
         StringBuilder htmlBuilder = new StringBuilder();
 
@@ -69,6 +117,9 @@ public class HtmlReportService {
         htmlBuilder.append("        td.highlight-similarity { background-color: #d4edda !important; color: #155724; font-weight: bold; }\n"); // Similaridade > 20%
         htmlBuilder.append("        td.diagonal { background-color: #bdc3c7 !important; color: #2c3e50; font-weight: bold; }\n"); // Diagonal
         htmlBuilder.append("        td.low-similarity { /* Estilo base já aplicado por tr:nth-child ou tr:hover */ }\n");
+        htmlBuilder.append("        td.upper-bound { color: #7f8c8d; font-style: italic; }\n"); // Par descartado pelo limite superior
+        htmlBuilder.append("        td.estimated { color: #7f8c8d; font-style: italic; }\n"); // Par fora dos candidatos do LSH
+        htmlBuilder.append("        p.note { text-align: center; color: #7f8c8d; }\n");
         htmlBuilder.append("    </style>\n");
         htmlBuilder.append("</head>\n");
         htmlBuilder.append("<body>\n");
@@ -88,25 +139,27 @@ public class HtmlReportService {
 
         // Corpo da Tabela
         htmlBuilder.append("            <tbody>\n");
-        for (String rowProjName : sortedProjectNames) {
+        for (int i = 0; i < sortedProjectNames.size(); i++) {
+            String rowProjName = sortedProjectNames.get(i);
             htmlBuilder.append("            <tr>\n");
             // Cabeçalho da Linha (Nome do projeto)
             htmlBuilder.append("                <th style=\"text-align: left; background-color: #7f8c8d;\">").append(escapeHtml(rowProjName)).append("</th>\n");
-            for (String colProjName : sortedProjectNames) {
+            for (int j = 0; j < sortedProjectNames.size(); j++) {
                 String cellClass = "";
                 String cellValue;
 
-                // Obtem a similaridade do mapa pré-calculado
-                double similarity = similarityScores
-                                        .getOrDefault(rowProjName, new HashMap<>())
-                                        .getOrDefault(colProjName, 0.0);
-
-                if (rowProjName.equals(colProjName)) {
+                if (i == j) {
                     cellClass = "diagonal";
-                    // O valor já será 100.0% vindo do mapa se pré-calculado corretamente.
-                    // Se não, podemos forçar aqui, mas o ideal é que o mapa reflita isso.
                     cellValue = String.format(Locale.US, "%.2f%%", 100.0);
+                } else if (similarityMatrix.isUpperBound(i, j)) {
+                    cellClass = "upper-bound";
+                    cellValue = String.format(Locale.US, "abaixo do limite (máx. %.2f%%)", similarityMatrix.upperBound(i, j));
+                } else if (similarityMatrix.isEstimate(i, j)) {
+                    cellClass = "estimated";
+                    cellValue = String.format(Locale.US, "estimado %.2f%%", similarityMatrix.estimate(i, j));
                 } else {
+                    // Obtem a similaridade da matriz pré-calculada
+                    double similarity = similarityMatrix.get(i, j);
                     cellValue = String.format(Locale.US, "%.2f%%", similarity);
                     if (similarity > similarityThreshold) {
                         cellClass = "highlight-similarity";
@@ -114,13 +167,30 @@ public class HtmlReportService {
                         cellClass = "low-similarity"; // Classe para manter consistência, pode não ter estilo específico
                     }
                 }
-                htmlBuilder.append("                <td class=\"").append(cellClass).append("\">").append(cellValue).append("</td>\n");
+                htmlBuilder.append("                <td class=\"").append(cellClass).append("\"");
+                List<ComparisonResult.CrossPathMatch> moved = similarityMatrix.getCrossPathMatches(i, j);
+                if (!moved.isEmpty()) { // Dica ao passar o mouse, do projeto da linha para o da coluna
+                    htmlBuilder.append(" title=\"").append(escapeHtml(ComparisonResult.crossPathInfo(moved))).append("\"");
+                }
+                htmlBuilder.append(">").append(cellValue).append("</td>\n");
             }
             htmlBuilder.append("            </tr>\n");
         }
         htmlBuilder.append("        </tbody>\n");
         htmlBuilder.append("        </table>\n");
         htmlBuilder.append("    </div>\n"); // Fim table-container
+        long upperBoundPairs = similarityMatrix.upperBoundCount();
+        if (upperBoundPairs > 0) {
+            htmlBuilder.append("    <p class=\"note\">").append(upperBoundPairs).append(" de ")
+                       .append(SimilarityMatrix.pairCount(sortedProjectNames.size()))
+                       .append(" pares abaixo do limite descartados pelo limite superior, sem leitura de arquivos.</p>\n");
+        }
+        long estimatedPairs = similarityMatrix.estimateCount();
+        if (estimatedPairs > 0) {
+            htmlBuilder.append("    <p class=\"note\">").append(estimatedPairs).append(" de ")
+                       .append(SimilarityMatrix.pairCount(sortedProjectNames.size()))
+                       .append(" pares fora dos candidatos do LSH: \"estimado\" é a similaridade das assinaturas MinHash, não um score comparado.</p>\n");
+        }
         htmlBuilder.append("</body>\n");
         htmlBuilder.append("</html>\n");
 
@@ -129,4 +199,140 @@ public class HtmlReportService {
         logger.info("Relatório HTML gerado com sucesso em: {}", outputPathObj.toAbsolutePath());
         System.out.println("Relatório HTML gerado com sucesso em: " + outputPathObj.toAbsolutePath());
     }
+
+    /**
+     * Relatório do modo vizinhos: uma linha por projeto com os seus {@code k} vizinhos mais parecidos,
+     * escrita em streaming. O tamanho cresce com {@code projetos * k}, não com o quadrado dos projetos.
+     */
+    public void generateNeighbourReport(NearestNeighbours neighbours, double similarityThreshold,
+                                        String outputFilePath) throws IOException {
+        long start = System.nanoTime();
+        try {
+            writeNeighbourReport(neighbours, similarityThreshold, outputFilePath);
+        } finally {
+            reportTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void writeNeighbourReport(NearestNeighbours neighbours, double similarityThreshold,
+                                      String outputFilePath) throws IOException {
+        Path outputPathObj = Paths.get(outputFilePath.isEmpty() ? DEFAULT_OUTPUT_FILENAME : outputFilePath);
+        try (BufferedWriter writer = Files.newBufferedWriter(outputPathObj, StandardCharsets.UTF_8)) {
+            writer.write("<!DOCTYPE html>\n");
+            writer.write("<html lang=\"pt-BR\">\n");
+            writer.write("<head>\n");
+            writer.write("    <meta charset=\"UTF-8\">\n");
+            writer.write("    <meta name=\"viewport\" content=\"width=device-width, initial-scale=1.0\">\n");
+            writer.write("    <title>Vizinhos Mais Parecidos</title>\n");
+            writer.write("    <style>\n");
+            writer.write("        body { font-family: 'Segoe UI', Tahoma, Geneva, Verdana, sans-serif; margin: 0; padding: 20px; background-color: #f4f7f6; color: #333; }\n");
+            writer.write("        h1 { text-align: center; color: #2c3e50; margin-bottom: 30px; }\n");
+            writer.write("        table { border-collapse: collapse; margin: 20px auto; box-shadow: 0 4px 15px rgba(0,0,0,0.1); background-color: #fff; }\n");
+            writer.write("        th, td { border: 1px solid #ddd; padding: 8px 12px; text-align: left; }\n");
+            writer.write("        th { background-color: #2c3e50; color: #ffffff; }\n");
+            writer.write("        td.highlight-similarity { background-color: #d4edda; color: #155724; font-weight: bold; }\n");
+            writer.write("    </style>\n");
+            writer.write("</head>\n");
+            writer.write("<body>\n");
+            writer.write("    <h1>Vizinhos Mais Parecidos (k = " + neighbours.getK() + ")</h1>\n");
+            writer.write("    <table>\n");
+            writer.write("        <thead>\n            <tr><th>Projeto</th>");
+            for (int rank = 1; rank <= neighbours.getK(); rank++) {
+                writer.write("<th>" + rank + "º vizinho</th>");
+            }
+            writer.write("</tr>\n        </thead>\n        <tbody>\n");
+            for (int i = 0; i < neighbours.size(); i++) {
+                writer.write("            <tr><th>");
+                writer.write(escapeHtml(neighbours.getProjectName(i)));
+                writer.write("</th>");
+                for (int rank = 0; rank < neighbours.neighbourCount(i); rank++) {
+                    double similarity = neighbours.similarity(i, rank);
+                    writer.write(similarity > similarityThreshold ? "<td class=\"highlight-similarity\">" : "<td>");
+                    writer.write(escapeHtml(neighbours.getProjectName(neighbours.neighbour(i, rank))));
+                    writer.write(String.format(Locale.US, " (%.2f%%)</td>", similarity));
+                }
+                writer.write("</tr>\n");
+            }
+            writer.write("        </tbody>\n");
+            writer.write("    </table>\n");
+            writer.write("</body>\n");
+            writer.write("</html>\n");
+        }
+        logger.info("Relatório HTML de vizinhos gerado com sucesso em: {}", outputPathObj.toAbsolutePath());
+        System.out.println("Relatório HTML gerado com sucesso em: " + outputPathObj.toAbsolutePath());
+    }
+
+    /**
+     * Relatório para matrizes grandes: o documento é escrito em streaming e a matriz vai embutida como
+     * o triângulo superior (sem diagonal) em float32 little-endian codificado em base64; pares que só têm o
+     * limite superior vão com o sinal negativo. O mapa de calor (canvas), a lista virtualizada de pares, o
+     * filtro por limite e a ordenação rodam no navegador, então o tamanho do arquivo e o tempo de geração
+     * crescem linearmente com o número de células.
+     */
+    private void generateInteractiveReport(SimilarityMatrix similarityMatrix,
+                                           double similarityThreshold,
+                                           String outputFilePath) throws IOException {
+        List<String> sortedProjectNames = similarityMatrix.getProjectNames();
+        String template;
+        try (InputStream in = HtmlReportService.class.getResourceAsStream(INTERACTIVE_TEMPLATE)) {
+            if (in == null) {
+                throw new IOException("Modelo do relatório interativo não encontrado: " + INTERACTIVE_TEMPLATE);
+            }
+            template = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        int marker = template.indexOf(DATA_MARKER);
+
+        Path outputPathObj = Paths.get(outputFilePath.isEmpty() ? DEFAULT_OUTPUT_FILENAME : outputFilePath);
+        try (BufferedWriter writer = Files.newBufferedWriter(outputPathObj, StandardCharsets.UTF_8)) {
+            writer.write(template, 0, marker);
+
+            writer.write("    <script id=\"report-meta\" type=\"application/json\">{\"names\":[");
+            for (int i = 0; i < sortedProjectNames.size(); i++) {
+                if (i > 0) writer.write(',');
+                JsonStrings.write(writer, sortedProjectNames.get(i));
+            }
+            writer.write("],\"threshold\":");
+            writer.write(Double.toString(similarityThreshold));
+            writer.write(",\"upperBoundPairs\":");
+            writer.write(Long.toString(similarityMatrix.upperBoundCount()));
+            writer.write(",\"estimatedPairs\":");
+            writer.write(Long.toString(similarityMatrix.estimateCount()));
+            writer.write(",\"generatedAt\":");
+            JsonStrings.write(writer, LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+            writer.write("}</script>\n");
+
+            writer.write("    <script id=\"report-matrix\" type=\"application/octet-stream\">\n");
+            writeMatrix(writer, similarityMatrix);
+            writer.write("</script>\n");
+
+            writer.write(template, marker + DATA_MARKER.length(), template.length() - marker - DATA_MARKER.length());
+        }
+        logger.info("Relatório HTML interativo gerado com sucesso em: {} ({} bytes)",
+                outputPathObj.toAbsolutePath(), Files.size(outputPathObj));
+        System.out.println("Relatório HTML gerado com sucesso em: " + outputPathObj.toAbsolutePath());
+    }
+
+    private void writeMatrix(Writer writer, SimilarityMatrix similarityMatrix) throws IOException {
+        Base64.Encoder encoder = Base64.getEncoder();
+        ByteBuffer chunk = ByteBuffer.allocate(FLOATS_PER_CHUNK * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        int n = similarityMatrix.size();
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                // Pares com só o limite superior vão com o sinal negativo e os estimados deslocados de 1000,
+                // como na SimilarityMatrix
+                chunk.putFloat(similarityMatrix.isUpperBound(i, j) ? -(float) similarityMatrix.upperBound(i, j)
+                        : similarityMatrix.isEstimate(i, j) ? 1000f + (float) similarityMatrix.estimate(i, j)
+                        : (float) similarityMatrix.get(i, j));
+                if (!chunk.hasRemaining()) {
+                    writer.write(encoder.encodeToString(chunk.array()));
+                    writer.write('\n');
+                    chunk.clear();
+                }
+            }
+        }
+        if (chunk.position() > 0) {
+            writer.write(encoder.encodeToString(Arrays.copyOf(chunk.array(), chunk.position())));
+            writer.write('\n');
+        }
+    }
 }
@@ -0,0 +1,133 @@
+package com.example.projectcomparator.service;
+
+import java.util.Arrays;
+
+/**
+ * Implementação própria de Jaro-Winkler sobre {@code char[]}, com o mesmo resultado (bit a bit) de
+ * {@code org.apache.commons.text.similarity.JaroWinklerSimilarity} 1.12. Os vetores de trabalho ficam
+ * em um buffer por thread que só cresce, então comparações sucessivas não alocam memória.
+ *
+ * <p>O modo limitado ({@link #similarity(char[], char[], double)}) interrompe o cálculo assim que
+ * o score máximo ainda alcançável fica abaixo do corte informado.</p>
+ */
+public final class JaroWinklerKernel {
+
+    private static final double SCALING_FACTOR = 0.1;
+    private static final int BOUND_CHECK_INTERVAL = 64;
+
+    private static final class Scratch {
+        boolean[] minFlags = new boolean[0];
+        boolean[] maxFlags = new boolean[0];
+
+        void ensureCapacity(int minLength, int maxLength) {
+            if (minFlags.length < minLength) {
+                minFlags = new boolean[Math.max(minLength, minFlags.length * 2)];
+            }
+            if (maxFlags.length < maxLength) {
+                maxFlags = new boolean[Math.max(maxLength, maxFlags.length * 2)];
+            }
+            Arrays.fill(minFlags, 0, minLength, false);
+            Arrays.fill(maxFlags, 0, maxLength, false);
+        }
+    }
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private JaroWinklerKernel() {
+    }
+
+    /** Similaridade exata, entre 0.0 e 1.0. */
+    public static double similarity(char[] left, char[] right) {
+        return similarity(left, right, 0.0);
+    }
+
+    /**
+     * Similaridade com corte. Se o resultado for maior ou igual a {@code cutoff}, ele é exato;
+     * caso contrário, o valor devolvido é apenas um limite superior (menor que {@code cutoff}).
+     * Com {@code cutoff <= 0} o cálculo é sempre completo.
+     */
+    public static double similarity(char[] left, char[] right, double cutoff) {
+        if (Arrays.equals(left, right)) {
+            return 1d;
+        }
+
+        char[] max;
+        char[] min;
+        if (left.length > right.length) {
+            max = left;
+            min = right;
+        } else {
+            max = right;
+            min = left;
+        }
+
+        int prefix = 0;
+        for (int mi = 0; mi < Math.min(4, min.length); mi++) {
+            if (left[mi] != right[mi]) {
+                break;
+            }
+            prefix++;
+        }
+
+        Scratch scratch = SCRATCH.get();
+        scratch.ensureCapacity(min.length, max.length);
+        boolean[] minFlags = scratch.minFlags;
+        boolean[] maxFlags = scratch.maxFlags;
+
+        int range = Math.max(max.length / 2 - 1, 0);
+        int matches = 0;
+        for (int mi = 0; mi < min.length; mi++) {
+            char c1 = min[mi];
+            for (int xi = Math.max(mi - range, 0), xn = Math.min(mi + range + 1, max.length); xi < xn; xi++) {
+                if (!maxFlags[xi] && c1 == max[xi]) {
+                    minFlags[mi] = true;
+                    maxFlags[xi] = true;
+                    matches++;
+                    break;
+                }
+            }
+            if (cutoff > 0 && (mi % BOUND_CHECK_INTERVAL) == 0) {
+                double bound = upperBound(matches + (min.length - mi - 1), left.length, right.length, prefix);
+                if (bound < cutoff) {
+                    return bound;
+                }
+            }
+        }
+
+        if (matches == 0) {
+            return 0d;
+        }
+
+        // Compara, em ordem, os caracteres casados de cada lado sem materializar as sequências
+        int halfTranspositions = 0;
+        int xi = 0;
+        for (int mi = 0; mi < min.length; mi++) {
+            if (minFlags[mi]) {
+                while (!maxFlags[xi]) {
+                    xi++;
+                }
+                if (min[mi] != max[xi]) {
+                    halfTranspositions++;
+                }
+                xi++;
+            }
+        }
+
+        double m = matches;
+        double j = (m / left.length + m / right.length + (m - (double) halfTranspositions / 2) / m) / 3;
+        return j < 0.7d ? j : j + SCALING_FACTOR * prefix * (1d - j);
+    }
+
+    /**
+     * Maior score possível com no máximo {@code maxMatches} casamentos e nenhuma transposição.
+     * A fórmula de Jaro-Winkler é não decrescente em relação a j, então o limite é válido.
+     */
+    private static double upperBound(int maxMatches, int leftLength, int rightLength, int prefix) {
+        if (maxMatches <= 0) {
+            return 0d;
+        }
+        double m = maxMatches;
+        double j = Math.min(1d, (Math.min(1d, m / leftLength) + Math.min(1d, m / rightLength) + 1d) / 3);
+        return j < 0.7d ? j : j + SCALING_FACTOR * prefix * (1d - j);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.projectcomparator.service;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Escrita de strings JSON, compartilhada pelo relatório HTML interativo e pelo resumo da execução.
+ * Escapa também {@code <}, {@code >} e {@code &}, para que um nome de projeto não consiga fechar o
+ * {@code <script>} em que o JSON do relatório está embutido.
+ */
+final class JsonStrings {
+
+    private JsonStrings() {
+    }
+
+    static void write(Writer writer, String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> writer.write("\\\"");
+                case '\\' -> writer.write("\\\\");
+                case '\n' -> writer.write("\\n");
+                case '\r' -> writer.write("\\r");
+                case '\t' -> writer.write("\\t");
+                default -> {
+                    if (c < 0x20 || c == '<' || c == '>' || c == '&' || c == '\u2028' || c == '\u2029') {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+                }
+            }
+        }
+        writer.write('"');
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.projectcomparator.service;
+
+import com.example.projectcomparator.config.ComparatorProperties;
+import org.springframework.stereotype.Service;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Andamento de uma fase longa (ex.: a comparação de pares). As threads de trabalho só incrementam um
+ * {@link LongAdder}; uma única thread amostra o contador a cada {@code comparator.progress.interval}
+ * e imprime em stderr a taxa do último intervalo, os MB/s lidos e o tempo restante estimado.
+ */
+@Service
+public class ProgressReporter {
+
+    private static final double MEGABYTE = 1024.0 * 1024.0;
+
+    private final ComparatorProperties.Progress config;
+    private final FileAccess fileAccess;
+
+    public ProgressReporter(ComparatorProperties properties, FileAccess fileAccess) {
+        this.config = properties.getProgress();
+        this.fileAccess = fileAccess;
+    }
+
+    /**
+     * Começa a acompanhar {@code total} unidades de trabalho. O andamento deve ser fechado ao fim da fase,
+     * o que imprime a linha final com o tempo total.
+     */
+    public Progress start(String phase, long total) {
+        Progress progress = new Progress(phase, total, fileAccess.getBytesRead(), System.nanoTime());
+        if (config.isEnabled() && !config.getInterval().isZero() && total > 0) {
+            progress.schedule(config.getInterval(), System.err);
+        }
+        return progress;
+    }
+
+    public class Progress implements AutoCloseable {
+
+        private final String phase;
+        private final long total;
+        private final LongAdder completed = new LongAdder();
+        private final long startBytes;
+        private final long startNanos;
+        private ScheduledExecutorService sampler;
+        private PrintStream out;
+        // Só acessados pela thread de amostragem
+        private long lastCompleted;
+        private long lastBytes;
+        private long lastNanos;
+
+        Progress(String phase, long total, long startBytes, long startNanos) {
+            this.phase = phase;
+            this.total = total;
+            this.startBytes = startBytes;
+            this.startNanos = startNanos;
+            this.lastBytes = startBytes;
+            this.lastNanos = startNanos;
+        }
+
+        private void schedule(Duration interval, PrintStream out) {
+            this.out = out;
+            this.sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "progresso-" + phase);
+                thread.setDaemon(true);
+                return thread;
+            });
+            long millis = Math.max(1, interval.toMillis());
+            sampler.scheduleAtFixedRate(() -> out.println(sample(System.nanoTime())), millis, millis, TimeUnit.MILLISECONDS);
+        }
+
+        /** Uma unidade concluída; pode ser chamado por várias threads ao mesmo tempo. */
+        public void increment() {
+            completed.increment();
+        }
+
+        public long getCompleted() {
+            return completed.sum();
+        }
+
+        /** Linha de andamento desde a amostra anterior; visível no pacote para os testes. */
+        String sample(long nowNanos) {
+            long done = completed.sum();
+            long bytes = fileAccess.getBytesRead();
+            double intervalSeconds = Math.max(1e-9, (nowNanos - lastNanos) / 1e9);
+            double pairsPerSecond = (done - lastCompleted) / intervalSeconds;
+            double megabytesPerSecond = (bytes - lastBytes) / MEGABYTE / intervalSeconds;
+            // Tempo restante pela taxa média desde o início, mais estável que a do último intervalo
+            double elapsedSeconds = (nowNanos - startNanos) / 1e9;
+            String eta = done > 0 ? formatDuration((long) ((total - done) * elapsedSeconds / done)) : "--:--:--";
+            lastCompleted = done;
+            lastBytes = bytes;
+            lastNanos = nowNanos;
+            return String.format("[%s] %,d/%,d (%.1f%%) | %,.0f/s | %.1f MB/s | restante %s",
+                    phase, done, total, total > 0 ? 100.0 * done / total : 100.0, pairsPerSecond, megabytesPerSecond, eta);
+        }
+
+        /** Linha final com o total da fase e as taxas médias. */
+        String summary(long nowNanos) {
+            long done = completed.sum();
+            double elapsedSeconds = Math.max(1e-9, (nowNanos - startNanos) / 1e9);
+            return String.format("[%s] %,d concluídos em %s | %,.0f/s | %.1f MB/s",
+                    phase, done, formatDuration((long) elapsedSeconds), done / elapsedSeconds,
+                    (fileAccess.getBytesRead() - startBytes) / MEGABYTE / elapsedSeconds);
+        }
+
+        @Override
+        public void close() {
+            if (sampler != null) {
+                sampler.shutdownNow();
+                try {
+                    sampler.awaitTermination(1, TimeUnit.SECONDS); // Não intercala uma amostra em curso com a linha final
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                out.println(summary(System.nanoTime()));
+            }
+        }
+    }
+
+    static String formatDuration(long seconds) {
+        return String.format("%02d:%02d:%02d", seconds / 3600, (seconds / 60) % 60, seconds % 60);
+    }
+}
@@ -1,21 +1,37 @@
 package com.example.projectcomparator.service;
 
+import com.example.projectcomparator.config.ComparatorProperties;
 import com.example.projectcomparator.model.ComparisonResult;
 import com.example.projectcomparator.model.FileInfo;
 import com.example.projectcomparator.model.Project;
-import org.apache.commons.text.similarity.JaroWinklerSimilarity; // Novo import
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException; // Novo import
-import java.nio.charset.StandardCharsets; // Novo import
-import java.nio.file.Files; // Novo import
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * Compara pares de projetos. O serviço não mantém estado mutável entre chamadas e pode ser
+ * usado simultaneamente por várias threads (ver {@link ComparisonEngine}).
+ */
 @Service
 public class ProjectComparerService {
     private static final Logger logger = LoggerFactory.getLogger(ProjectComparerService.class);
@@ -24,89 +40,394 @@ public class ProjectComparerService {
     private static final double WEIGHT_CREATION_TIME = 0.15;
     private static final double WEIGHT_MODIFICATION_TIME = 0.15;
 
-    private final JaroWinklerSimilarity jaroWinkler = new JaroWinklerSimilarity();
+    private final ComparatorProperties.Similarity.Strategy strategy;
+    private final double fileCutoff;
+    private final WinnowingFingerprinter fingerprinter;
+    private final long chunkThreshold;
+    private final int chunkSize;
+    // Acima desta capacidade, o builder da thread é esvaziado depois do uso em vez de ficar com o tamanho do maior arquivo
+    private final int retainedBufferChars;
+
+    // Conteúdo normalizado de cada arquivo (char[] para o JaroWinklerKernel), lido do disco uma única vez por execução
+    private final FileContentCache<char[]> contentCache;
+    // Impressões de winnowing (long[] ordenado) de cada arquivo, calculadas uma única vez por execução
+    private final FileContentCache<long[]> fingerprintCache;
+    // Impressões por bloco dos arquivos acima de chunk-threshold, que nunca entram inteiros nos caches acima
+    private final FileContentCache<ChunkedFingerprints> chunkCache;
+
+    private final FingerprintIndex fingerprintIndex;
+    private final FileAccess fileAccess;
+
+    private final Timer pairTimer;
+    private final Timer normalizeTimer;
+    private final Counter filesCompared;
+    private final Counter identicalFiles;
+    private final Counter crossPathFiles;
+    private final Counter chunkedFiles;
+    private final Counter fallbackEncodingFiles;
+
+    public ProjectComparerService(ComparatorProperties properties, FingerprintIndex fingerprintIndex, FileAccess fileAccess,
+                                  MeterRegistry meterRegistry) {
+        this.fingerprintIndex = fingerprintIndex;
+        this.fileAccess = fileAccess;
+        ComparatorProperties.Similarity similarity = properties.getSimilarity();
+        this.strategy = similarity.getStrategy();
+        this.fileCutoff = similarity.getFileCutoff();
+        this.fingerprinter = new WinnowingFingerprinter(similarity.getKgramSize(), similarity.getWindowSize());
+        this.chunkThreshold = similarity.getChunkThreshold().toBytes();
+        this.chunkSize = similarity.getChunkSize();
+        this.retainedBufferChars = (int) Math.min(Integer.MAX_VALUE, Math.max(chunkThreshold, 4L * chunkSize));
+        this.contentCache = new FileContentCache<>(properties.getCache().getMaxSize().toBytes(),
+                                                   content -> 2L * content.length); // char = 2 bytes
+        this.fingerprintCache = new FileContentCache<>(properties.getCache().getFingerprintMaxSize().toBytes(),
+                                                       fingerprints -> 8L * fingerprints.length);
+        this.chunkCache = new FileContentCache<>(properties.getCache().getFingerprintMaxSize().toBytes(),
+                                                 ChunkedFingerprints::sizeInBytes);
+
+        this.pairTimer = Timer.builder("comparator.pair")
+                .description("Comparação de um par de projetos").register(meterRegistry);
+        this.normalizeTimer = Timer.builder("comparator.file.normalize")
+                .description("Leitura e normalização de um arquivo").register(meterRegistry);
+        this.filesCompared = Counter.builder("comparator.files.compared")
+                .description("Pares de arquivos presentes nos dois projetos").register(meterRegistry);
+        this.identicalFiles = Counter.builder("comparator.files.identical")
+                .description("Pares de arquivos resolvidos pelo hash, sem leitura").register(meterRegistry);
+        this.crossPathFiles = Counter.builder("comparator.files.cross-path")
+                .description("Arquivos idênticos pareados entre caminhos diferentes").register(meterRegistry);
+        this.chunkedFiles = Counter.builder("comparator.files.chunked")
+                .description("Pares de arquivos grandes comparados por blocos").register(meterRegistry);
+        this.fallbackEncodingFiles = Counter.builder("comparator.files.fallback-encoding")
+                .description("Arquivos que não são UTF-8 válido, lidos como Windows-1252").register(meterRegistry);
+        registerCacheMetrics(meterRegistry, "content", contentCache);
+        registerCacheMetrics(meterRegistry, "fingerprint", fingerprintCache);
+        registerCacheMetrics(meterRegistry, "chunk", chunkCache);
+    }
+
+    private static void registerCacheMetrics(MeterRegistry meterRegistry, String name, FileContentCache<?> cache) {
+        FunctionCounter.builder("comparator.cache.hits", cache, c -> c.statistics().hits())
+                .tag("cache", name).register(meterRegistry);
+        FunctionCounter.builder("comparator.cache.misses", cache, c -> c.statistics().misses())
+                .tag("cache", name).register(meterRegistry);
+        FunctionCounter.builder("comparator.cache.evictions", cache, c -> c.statistics().evictions())
+                .tag("cache", name).register(meterRegistry);
+        Gauge.builder("comparator.cache.size", cache, c -> c.statistics().usedBytes())
+                .tag("cache", name).baseUnit(BaseUnits.BYTES).register(meterRegistry);
+    }
+
+    public FileContentCache.Statistics getContentCacheStatistics() {
+        return contentCache.statistics();
+    }
+
+    public FileContentCache.Statistics getFingerprintCacheStatistics() {
+        return fingerprintCache.statistics();
+    }
+
+    /** Descarta o conteúdo em cache; chamado ao fim de cada execução. */
+    public void clearContentCache() {
+        contentCache.clear();
+        fingerprintCache.clear();
+        chunkCache.clear();
+    }
 
     /**
-     * Normaliza o conteúdo do texto para comparação.
+     * Normaliza o conteúdo do texto para comparação (ver {@link TextNormalizer}).
      * - Remove espaços/tabs no início/fim de cada linha.
      * - Substitui múltiplos espaços/tabs internos por um único espaço.
      * - Reduz múltiplas linhas em branco a uma única linha em branco.
      * - Normaliza quebras de linha para '\n'.
      */
-    private String normalizeTextContent(String content) {
-        if (content == null) return "";
-
-        // Normaliza quebras de linha
-        content = content.replaceAll("\r\n", "\n").replaceAll("\r", "\n");
-
-        String[] lines = content.split("\n");
-        StringBuilder normalized = new StringBuilder();
-        boolean lastLineWasEffectivelyBlank = false;
-
-        for (String line : lines) {
-            String trimmedLine = line.trim().replaceAll("\\s+", " ");
-            if (trimmedLine.isEmpty()) {
-                if (!lastLineWasEffectivelyBlank) {
-                    normalized.append("\n"); // Adiciona uma única linha em branco
-                    lastLineWasEffectivelyBlank = true;
-                }
-            } else {
-                normalized.append(trimmedLine).append("\n");
-                lastLineWasEffectivelyBlank = false;
+    String normalizeTextContent(String content) {
+        return TextNormalizer.normalize(content);
+    }
+
+    // Builder e normalizador (com seus buffers e decoders) reaproveitados por thread de comparação
+    private static final ThreadLocal<StringBuilder> NORMALIZED_BUFFER = ThreadLocal.withInitial(StringBuilder::new);
+    private static final ThreadLocal<TextNormalizer> NORMALIZER = ThreadLocal.withInitial(() -> new TextNormalizer(NORMALIZED_BUFFER.get()));
+
+    private void countEncoding(FileInfo fileInfo, TextEncoding encoding) {
+        if (encoding == TextEncoding.WINDOWS_1252) {
+            fallbackEncodingFiles.increment();
+            logger.debug("Arquivo {} não é UTF-8 válido; lido como Windows-1252", fileInfo.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Lê e normaliza o arquivo em streaming e entrega o texto normalizado (em um builder reaproveitado,
+     * válido apenas durante a chamada) para {@code consumer}. A codificação é detectada pelos bytes
+     * (ver {@link TextNormalizer#normalizeInto(java.nio.ByteBuffer)}): só uma falha de leitura deixa o
+     * conteúdo vazio. Depois de um arquivo grande, o builder volta a ocupar só o necessário para os próximos.
+     */
+    private <T> T withNormalizedContent(FileInfo fileInfo, Function<StringBuilder, T> consumer) {
+        StringBuilder normalized = NORMALIZED_BUFFER.get();
+        TextNormalizer normalizer = NORMALIZER.get();
+        long start = System.nanoTime();
+        try {
+            countEncoding(fileInfo, normalize(fileInfo, normalizer, 0, null));
+        } catch (IOException e) {
+            logger.warn("Não foi possível ler o arquivo {}: {}", fileInfo.getAbsolutePath(), e.getMessage());
+            // Se não puder ler o arquivo, seu conteúdo é tratado como vazio para fins de cálculo de similaridade.
+            normalized.setLength(0);
+        } finally {
+            normalizeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        try {
+            return consumer.apply(normalized);
+        } finally {
+            if (normalized.capacity() > retainedBufferChars) {
+                normalized.setLength(0);
+                normalized.trimToSize();
             }
         }
-        // Remove a última nova linha se o StringBuilder não estiver vazio e terminar com \n
-        if (normalized.length() > 0 && normalized.charAt(normalized.length() - 1) == '\n') {
-            normalized.setLength(normalized.length() - 1);
+    }
+
+    private static char[] toCharArray(StringBuilder text) {
+        char[] chars = new char[text.length()];
+        text.getChars(0, chars.length, chars, 0);
+        return chars;
+    }
+
+    /** Conteúdo normalizado do arquivo, compartilhando o cache usado nas comparações. */
+    char[] getNormalizedContent(FileInfo fileInfo) {
+        return contentCache.get(fileInfo, f -> withNormalizedContent(f, ProjectComparerService::toCharArray));
+    }
+
+    /**
+     * Impressões de winnowing do conteúdo normalizado; um array vazio indica conteúdo vazio ou ilegível.
+     * O texto normalizado não é guardado no cache de conteúdo, apenas as impressões, calculadas em streaming
+     * sobre os blocos do normalizador: nem um arquivo acima de {@code chunk-threshold} fica inteiro em memória.
+     */
+    long[] getFingerprints(FileInfo fileInfo) {
+        return fingerprintCache.get(fileInfo, this::loadFingerprints);
+    }
+
+    private long[] loadFingerprints(FileInfo fileInfo) {
+        // Reaproveita as impressões do índice persistente se o arquivo não mudou desde a última execução
+        long[] fingerprints = fingerprintIndex.findFingerprints(fileInfo);
+        if (fingerprints == null) {
+            WinnowingFingerprinter.Incremental incremental = fingerprinter.incremental();
+            fingerprints = readNormalizedChunks(fileInfo, incremental) ? incremental.finish() : new long[0];
+            fingerprintIndex.putFingerprints(fileInfo, fingerprints);
         }
-        return normalized.toString();
+        return fingerprints;
     }
 
-    private double calculateFileContentSimilarity(FileInfo f1, FileInfo f2) {
-        String content1 = "";
-        String content2 = "";
+    /**
+     * Impressões de winnowing por bloco de {@code chunk-size} caracteres normalizados; só um bloco do texto
+     * fica em memória durante a leitura. Um arquivo ilegível resulta em impressões vazias.
+     */
+    ChunkedFingerprints getChunkedFingerprints(FileInfo fileInfo) {
+        return chunkCache.get(fileInfo, this::loadChunkedFingerprints);
+    }
+
+    private ChunkedFingerprints loadChunkedFingerprints(FileInfo fileInfo) {
+        List<long[]> chunks = new ArrayList<>();
+        if (!readNormalizedChunks(fileInfo, chunk -> chunks.add(fingerprinter.fingerprint(chunk)))) {
+            chunks.clear();
+        }
+        return ChunkedFingerprints.of(chunks);
+    }
 
+    /**
+     * Entrega o conteúdo normalizado do arquivo a {@code consumer} em blocos de cerca de {@code chunk-size}
+     * caracteres (ver {@link TextNormalizer#normalizeChunks}), sem passar pelos caches: só um bloco fica em
+     * memória, qualquer que seja o tamanho do arquivo.
+     *
+     * @return false se o arquivo não pôde ser lido (os blocos já entregues devem ser descartados)
+     */
+    boolean readNormalizedChunks(FileInfo fileInfo, TextNormalizer.ChunkConsumer consumer) {
+        TextNormalizer normalizer = NORMALIZER.get();
+        long start = System.nanoTime();
         try {
-            content1 = Files.readString(f1.getAbsolutePath(), StandardCharsets.UTF_8);
+            countEncoding(fileInfo, normalize(fileInfo, normalizer, chunkSize, consumer));
+            return true;
         } catch (IOException e) {
-            logger.warn("Não foi possível ler o arquivo {}: {}", f1.getAbsolutePath(), e.getMessage());
-            // Se não puder ler o arquivo 1, a similaridade depende se o arquivo 2 também não pode ser lido ou está vazio.
+            logger.warn("Não foi possível ler o arquivo {}: {}", fileInfo.getAbsolutePath(), e.getMessage());
+            return false;
+        } finally {
+            normalizeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Normaliza o arquivo inteiro no builder de {@code normalizer} ou, com {@code consumer}, em blocos de cerca de
+     * {@code chunkSize} caracteres. Um arquivo que não cabe em um único buffer (entrada grande de ZIP) é lido
+     * duas vezes em blocos: a primeira passada só detecta a codificação, a segunda normaliza.
+     */
+    private TextEncoding normalize(FileInfo fileInfo, TextNormalizer normalizer, int chunkSize,
+                                   TextNormalizer.ChunkConsumer consumer) throws IOException {
+        Path path = fileInfo.getAbsolutePath();
+        if (fileAccess.readsWhole(path, fileInfo.getSize())) {
+            return fileAccess.read(path, consumer == null ? normalizer::normalizeInto
+                                                          : bytes -> normalizer.normalizeChunks(bytes, chunkSize, consumer));
+        }
+        TextEncoding.Detector detector = new TextEncoding.Detector();
+        fileAccess.readBlocks(path, detector::update);
+        TextEncoding encoding = detector.result();
+        if (consumer == null) {
+            normalizer.begin(encoding);
+        } else {
+            normalizer.begin(encoding, chunkSize, consumer);
         }
         try {
-            content2 = Files.readString(f2.getAbsolutePath(), StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            logger.warn("Não foi possível ler o arquivo {}: {}", f2.getAbsolutePath(), e.getMessage());
-            // Se não puder ler o arquivo 2...
+            fileAccess.readBlocks(path, normalizer::feed);
+        } finally {
+            normalizer.end();
         }
-        
-        // Se ambos os arquivos não puderam ser lidos, ou um não pode ser lido e o outro é vazio, considere-os similares nesse aspecto.
-        // Ou, se um falhou e o outro tem conteúdo, são 0% similares.
-        // Para simplificar: se um falha, tratamos seu conteúdo como vazio para fins de cálculo de similaridade.
-        // Se ambos falham, conteúdo vazio vs vazio = 1.0 de similaridade.
+        return encoding;
+    }
 
-        String normalizedContent1 = normalizeTextContent(content1);
-        String normalizedContent2 = normalizeTextContent(content2);
+    // Só no winnowing: os blocos trocariam o score do Jaro-Winkler pela cobertura das impressões
+    private boolean isChunked(FileInfo f1, FileInfo f2) {
+        return strategy == ComparatorProperties.Similarity.Strategy.WINNOWING
+               && chunkThreshold > 0 && Math.max(f1.getSize(), f2.getSize()) > chunkThreshold;
+    }
+
+    // Visível no pacote para os benchmarks JMH (src/jmh/java)
+    double calculateFileContentSimilarity(FileInfo f1, FileInfo f2) {
+        // Conteúdo bruto idêntico implica conteúdo normalizado idêntico: não é preciso ler os arquivos
+        if (f1.getContentHash() != null && f1.getContentHash().equals(f2.getContentHash())) {
+            identicalFiles.increment();
+            return 1.0;
+        }
+        if (isChunked(f1, f2)) {
+            // Arquivos grandes (bundles, dumps .sql, .json gerados): blocos alinhados em vez do texto inteiro
+            chunkedFiles.increment();
+            return ChunkedFingerprints.similarity(getChunkedFingerprints(f1), getChunkedFingerprints(f2));
+        }
+        if (strategy == ComparatorProperties.Similarity.Strategy.WINNOWING) {
+            // Mesmas regras para vazios do Jaro-Winkler: vazio x vazio = 1.0, vazio x não vazio = 0.0
+            return WinnowingFingerprinter.similarity(getFingerprints(f1), getFingerprints(f2));
+        }
+
+        // Se um arquivo não pode ser lido, seu conteúdo é tratado como vazio.
+        // Se ambos falham, conteúdo vazio vs vazio = 1.0 de similaridade.
+        char[] normalizedContent1 = getNormalizedContent(f1);
+        char[] normalizedContent2 = getNormalizedContent(f2);
 
-        if (normalizedContent1.isEmpty() && normalizedContent2.isEmpty()) {
+        if (normalizedContent1.length == 0 && normalizedContent2.length == 0) {
             return 1.0; // Dois arquivos vazios (ou que falharam na leitura) são considerados "idênticos" em conteúdo
         }
-        if (normalizedContent1.isEmpty() || normalizedContent2.isEmpty()) {
-             // Um vazio e outro não, após normalização
-            if (!content1.isEmpty() && !content2.isEmpty()) { // Ambos tinham conteúdo original, mas um se tornou vazio após normalização
-                 // e o outro não. Ex: um arquivo só com espaços e outro com texto.
-                 // O Jaro-Winkler já lidaria com isso, mas podemos ser explícitos.
-            } else { // Um era originalmente vazio/ilegível e o outro não.
-                return 0.0;
-            }
+        if (normalizedContent1.length == 0 || normalizedContent2.length == 0) {
+            return 0.0; // Um vazio (ou ilegível) e outro não, após normalização
         }
 
-        // Usar JaroWinklerSimilarity para obter um score entre 0.0 e 1.0
-        return jaroWinkler.apply(normalizedContent1, normalizedContent2);
+        if (fileCutoff > 0) {
+            // Modo limitado: abaixo do corte o arquivo é considerado sem similaridade de conteúdo
+            double score = JaroWinklerKernel.similarity(normalizedContent1, normalizedContent2, fileCutoff);
+            return score >= fileCutoff ? score : 0.0;
+        }
+        // Jaro-Winkler para obter um score entre 0.0 e 1.0
+        return JaroWinklerKernel.similarity(normalizedContent1, normalizedContent2);
     }
 
     public ComparisonResult compareProjects(Project p1, Project p2) {
+        return compareProjects(p1, p2, null);
+    }
+
+    /**
+     * Compara os arquivos de mesmo caminho relativo e, com {@code hashIndex}, também pareia arquivos
+     * de conteúdo idêntico que só existem em um caminho de cada projeto (arquivo movido ou renomeado).
+     * Cada par assim conta como um único arquivo, com conteúdo idêntico, em vez de dois arquivos ausentes.
+     *
+     * @param hashIndex índice de hashes do lote que contém {@code p1} e {@code p2}, ou null para comparar só por caminho
+     */
+    public ComparisonResult compareProjects(Project p1, Project p2, ContentHashIndex hashIndex) {
+        long start = System.nanoTime();
+        try {
+            return compareFiles(p1, p2, hashIndex);
+        } finally {
+            pairTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Limite superior (0 a 100) de {@link #compareProjects(Project, Project, ContentHashIndex)} calculado só
+     * com caminhos, datas e hashes, sem ler nenhum arquivo. Um arquivo presente em só um dos projetos soma 0
+     * mas conta no denominador, então cada caminho comum soma no máximo o peso do conteúdo mais os pesos
+     * das datas que coincidem; com {@code hashIndex}, só os arquivos que têm um idêntico em um caminho
+     * exclusivo do outro projeto podem virar pares movidos/renomeados.
+     *
+     * @param hashIndex índice de hashes do lote, ou null se o pareamento entre caminhos estiver desligado
+     */
+    public static double similarityUpperBound(Project p1, Project p2, ContentHashIndex hashIndex) {
         Map<String, FileInfo> files1 = p1.getFiles();
         Map<String, FileInfo> files2 = p2.getFiles();
+        int common = 0;
+        int movable1 = 0;
+        double commonScore = 0;
+        for (FileInfo f1 : files1.values()) {
+            FileInfo f2 = files2.get(f1.getRelativePath());
+            if (f2 != null) {
+                common++;
+                // Mesma expressão de compareFiles com conteúdo 1.0
+                commonScore += (1.0 * WEIGHT_CONTENT) +
+                               ((Objects.equals(f1.getCreationTime(), f2.getCreationTime()) ? 1.0 : 0.0) * WEIGHT_CREATION_TIME) +
+                               ((Objects.equals(f1.getLastModifiedTime(), f2.getLastModifiedTime()) ? 1.0 : 0.0) * WEIGHT_MODIFICATION_TIME);
+            } else if (hashIndex != null && hasCrossPathCandidate(f1, files1, p2, hashIndex)) {
+                movable1++;
+            }
+        }
+        int movable2 = 0;
+        if (movable1 > 0) {
+            for (FileInfo f2 : files2.values()) {
+                if (!files1.containsKey(f2.getRelativePath()) && hasCrossPathCandidate(f2, files2, p1, hashIndex)) {
+                    movable2++;
+                }
+            }
+        }
+        int moved = Math.min(movable1, movable2);
+        int fileSlots = files1.size() + files2.size() - common - moved;
+        return fileSlots == 0 ? 100.0 : 100.0 * (commonScore + moved) / fileSlots;
+    }
+
+    // Algum arquivo idêntico a 'file' em 'other' cujo caminho não existe no projeto de 'file'?
+    private static boolean hasCrossPathCandidate(FileInfo file, Map<String, FileInfo> ownFiles, Project other,
+                                                 ContentHashIndex hashIndex) {
+        for (FileInfo candidate : hashIndex.find(file.getContentHash(), other)) {
+            if (!ownFiles.containsKey(candidate.getRelativePath())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Para cada arquivo que só existe em {@code files1}, procura no índice um arquivo idêntico de {@code p2}
+     * cujo caminho não exista em {@code files1}. Devolve o caminho em {@code p1} -> arquivo pareado em {@code p2}.
+     */
+    private static Map<String, FileInfo> findCrossPathPartners(Map<String, FileInfo> files1, Map<String, FileInfo> files2,
+                                                               Project p2, ContentHashIndex hashIndex) {
+        Map<String, FileInfo> partners = null;
+        Set<String> claimed = null;
+        for (FileInfo f1 : files1.values()) {
+            if (files2.containsKey(f1.getRelativePath())) {
+                continue;
+            }
+            for (FileInfo candidate : hashIndex.find(f1.getContentHash(), p2)) {
+                if (!files1.containsKey(candidate.getRelativePath())
+                    && (claimed == null || !claimed.contains(candidate.getRelativePath()))) {
+                    if (partners == null) {
+                        partners = new LinkedHashMap<>();
+                        claimed = new HashSet<>();
+                    }
+                    partners.put(f1.getRelativePath(), candidate);
+                    claimed.add(candidate.getRelativePath());
+                    break;
+                }
+            }
+        }
+        return partners != null ? partners : Map.of();
+    }
+
+    private ComparisonResult compareFiles(Project p1, Project p2, ContentHashIndex hashIndex) {
+        Map<String, FileInfo> files1 = p1.getFiles();
+        Map<String, FileInfo> files2 = p2.getFiles();
+        Map<String, FileInfo> crossPathPartners = hashIndex != null
+                ? findCrossPathPartners(files1, files2, p2, hashIndex)
+                : Map.of();
+        Set<String> partnerPaths2 = crossPathPartners.isEmpty()
+                ? Set.of()
+                : crossPathPartners.values().stream().map(FileInfo::getRelativePath).collect(Collectors.toSet());
 
         Set<String> allRelativePaths = Stream.concat(files1.keySet().stream(), files2.keySet().stream())
                                              .collect(Collectors.toSet());
@@ -124,10 +445,17 @@ public class ProjectComparerService {
         for (String path : allRelativePaths) {
             FileInfo f1 = files1.get(path);
             FileInfo f2 = files2.get(path);
+            if (f1 == null && partnerPaths2.contains(path)) {
+                continue; // Já contado junto com o arquivo pareado de p1
+            }
+            if (f2 == null && f1 != null) {
+                f2 = crossPathPartners.get(path); // Arquivo movido/renomeado, se houver
+            }
 
             double currentFileWeightedScore = 0;
 
             if (f1 != null && f2 != null) {
+                filesCompared.increment();
                 double fileContentScore = calculateFileContentSimilarity(f1, f2);
                 double fileCreationTimeScore = java.util.Objects.equals(f1.getCreationTime(), f2.getCreationTime()) ? 1.0 : 0.0;
                 double fileModificationTimeScore = java.util.Objects.equals(f1.getLastModifiedTime(), f2.getLastModifiedTime()) ? 1.0 : 0.0;
@@ -147,7 +475,8 @@ public class ProjectComparerService {
             totalScore += currentFileWeightedScore;
         }
 
-        double similarityPercentage = (allRelativePaths.isEmpty()) ? 100.0 : (totalScore / allRelativePaths.size()) * 100.0;
+        int fileSlots = allRelativePaths.size() - crossPathPartners.size(); // Cada par entre caminhos ocupa uma única posição
+        double similarityPercentage = (fileSlots == 0) ? 100.0 : (totalScore / fileSlots) * 100.0;
         
         // Para ser cópia exata, todos os arquivos devem existir em ambos, ter metadados idênticos,
         // e conteúdo perfeitamente similar (score 1.0 após normalização/comparação).
@@ -172,6 +501,13 @@ public class ProjectComparerService {
         }
 
 
-        return new ComparisonResult(p1, p2, exactCopy, similarityPercentage);
+        if (crossPathPartners.isEmpty()) {
+            return new ComparisonResult(p1, p2, exactCopy, similarityPercentage);
+        }
+        crossPathFiles.increment(crossPathPartners.size());
+        List<ComparisonResult.CrossPathMatch> crossPathMatches = crossPathPartners.entrySet().stream()
+                .map(entry -> new ComparisonResult.CrossPathMatch(entry.getKey(), entry.getValue().getRelativePath()))
+                .toList();
+        return new ComparisonResult(p1, p2, exactCopy, similarityPercentage, crossPathMatches);
     }
 }
\ No newline at end of file
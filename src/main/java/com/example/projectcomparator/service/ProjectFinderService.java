@@ -1,14 +1,15 @@
 package com.example.projectcomparator.service;
 
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.ProviderNotFoundException;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileTime;
-import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
@@ -16,17 +17,31 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
-import java.util.function.Function;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PreDestroy;
+
+import com.example.projectcomparator.config.ComparatorProperties;
 import com.example.projectcomparator.model.FileInfo;
 import com.example.projectcomparator.model.Project;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 @Service
 public class ProjectFinderService {
 
@@ -37,7 +52,7 @@ public class ProjectFinderService {
             // Adicione outras extensões relevantes aqui
     );
     private static final Set<String> EXCLUDED_DIRS = Set.of(
-		"target", "build", "bin", ".git", ".svn", ".idea", ".vscode", ".settings", "node_modules", "out", ".mvn", ".gradle", ".angular"
+		"target", "build", "bin", ".git", ".svn", ".idea", ".vscode", ".settings", "node_modules", "out", ".mvn", ".gradle", ".angular", "__macosx"
             // Adicione outros diretórios a serem ignorados
     );
     private static final Set<String> EXCLUDED_FILES_BY_NAME = Set.of( // Files to exclude by exact name
@@ -47,41 +62,196 @@ public class ProjectFinderService {
         ".class", ".jar", ".log", ".tmp", ".bak", ".zip", ".gz", ".png", ".jpg", ".jpeg", ".gif"
         // Adicione outras extensões a serem ignoradas
     );
+    private static final String ARCHIVE_EXTENSION = ".zip";
+
+    private final FingerprintIndex fingerprintIndex;
+    private final FileAccess fileAccess;
+    private final Semaphore projectPermits;
+    private final Semaphore openFilePermits;
+    private final boolean readArchives;
+    // ZIPs abertos como FileSystem: os arquivos dos projetos são lidos deles até o fim da execução
+    private final Queue<FileSystem> openArchives = new ConcurrentLinkedQueue<>();
+
+    private final Timer discoveryTimer;
+    private final Timer projectTimer;
+    private final Timer hashTimer;
+    private final Counter filesDiscovered;
+    private final Counter hashesReused;
 
+    public ProjectFinderService(ComparatorProperties properties, FingerprintIndex fingerprintIndex, FileAccess fileAccess,
+                                MeterRegistry meterRegistry) {
+        this.fingerprintIndex = fingerprintIndex;
+        this.fileAccess = fileAccess;
+        ComparatorProperties.Discovery discovery = properties.getDiscovery();
+        this.projectPermits = new Semaphore(discovery.getMaxConcurrentProjects());
+        this.openFilePermits = new Semaphore(discovery.getMaxOpenFiles());
+        this.readArchives = discovery.isReadArchives();
+        this.discoveryTimer = Timer.builder("comparator.phase").tag("phase", "discovery")
+                .description("Busca e carga de todos os projetos").register(meterRegistry);
+        this.projectTimer = Timer.builder("comparator.discovery.project")
+                .description("Carga de um projeto (percurso da árvore e hashes)").register(meterRegistry);
+        this.hashTimer = Timer.builder("comparator.file.hash")
+                .description("SHA-256 de um arquivo, incluindo a leitura").register(meterRegistry);
+        this.filesDiscovered = Counter.builder("comparator.files.discovered")
+                .description("Arquivos relevantes encontrados nos projetos").register(meterRegistry);
+        this.hashesReused = Counter.builder("comparator.file.hash.reused")
+                .description("Hashes reaproveitados do índice persistente").register(meterRegistry);
+    }
+
+    /**
+     * Procura um projeto em cada subdiretório de {@code parentDirectory} e, com
+     * {@code comparator.discovery.read-archives}, em cada arquivo {@code .zip} (o nome do projeto é o do arquivo
+     * sem a extensão). Cada entrega é carregada em uma thread virtual própria; a lista devolvida segue a ordem
+     * alfabética das entregas, independentemente da ordem em que as tarefas terminam.
+     * <p>
+     * Um ZIP é aberto uma única vez como {@link FileSystem} e lido sem extração; fica aberto para a comparação
+     * e os relatórios, até {@link #closeArchives()}.
+     */
     public List<Project> findProjects(Path parentDirectory, boolean webProject) {
+        long start = System.nanoTime();
+        try {
+            return discoverProjects(parentDirectory, webProject);
+        } finally {
+            discoveryTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private List<Project> discoverProjects(Path parentDirectory, boolean webProject) {
         List<Project> projects = new ArrayList<>();
         if (!Files.isDirectory(parentDirectory)) {
             logger.error("O caminho fornecido não é um diretório: {}", parentDirectory);
             return projects;
         }
 
-        try (Stream<Path> subDirectories = Files.list(parentDirectory).filter(Files::isDirectory)) {
-            subDirectories.forEach(subDir -> {
-				Path projectRoot = webProject ? findHtmlFile(subDir) : findProjectRootMarker(subDir);
-                if (projectRoot != null) {
-                    logger.info("Projeto {} encontrado em: {}", subDir, projectRoot.toAbsolutePath());
-                    try {
-                        Map<String, FileInfo> projectFiles = loadProjectFiles(projectRoot);
-                        if (!projectFiles.isEmpty()) {
-                            projects.add(new Project(subDir.getFileName().toString(), projectRoot, projectFiles));
-                        } else {
-                            logger.warn("Nenhum arquivo relevante encontrado para o projeto em: {}", projectRoot);
-                        }
-                    } catch (IOException | NoSuchAlgorithmException e) {
-                        logger.error("Erro ao carregar arquivos do projeto {}: {}", projectRoot, e.getMessage());
-                    }
-                }
-            });
+        List<Path> submissions;
+        try (Stream<Path> entries = Files.list(parentDirectory)) {
+            submissions = entries.filter(p -> Files.isDirectory(p) || (readArchives && isArchive(p)))
+                                 .filter(p -> !isShadowedArchive(p))
+                                 .sorted()
+                                 .toList();
         } catch (IOException e) {
             logger.error("Erro ao listar subdiretórios de {}: {}", parentDirectory, e.getMessage());
+            return projects;
+        }
+
+        List<Future<Project>> futures = new ArrayList<>(submissions.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Path submission : submissions) {
+                futures.add(executor.submit(() -> loadProject(submission, webProject)));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    Project project = futures.get(i).get();
+                    if (project != null) {
+                        projects.add(project);
+                    }
+                } catch (ExecutionException e) {
+                    logger.error("Erro ao carregar projeto em {}: {}", submissions.get(i), e.getCause().getMessage(), e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Busca de projetos interrompida em {}", parentDirectory);
         }
         return projects;
     }
 
+    private Project loadProject(Path submission, boolean webProject) throws InterruptedException {
+        projectPermits.acquire(); // Limita quantas árvores de diretório são percorridas ao mesmo tempo
+        long start = System.nanoTime();
+        FileSystem archive = null;
+        Project project = null;
+        try {
+            String projectName = submission.getFileName().toString();
+            Path searchRoot = submission;
+            if (isArchive(submission)) {
+                archive = openArchive(submission);
+                if (archive == null) {
+                    return null;
+                }
+                projectName = projectName.substring(0, projectName.length() - ARCHIVE_EXTENSION.length());
+                searchRoot = archive.getRootDirectories().iterator().next();
+            }
+            Path projectRoot = webProject ? findHtmlFile(searchRoot) : findProjectRootMarker(searchRoot);
+            if (projectRoot == null) {
+                return null;
+            }
+            logger.info("Projeto {} encontrado em: {}", submission, projectRoot.toAbsolutePath().toUri());
+            try {
+                Map<String, FileInfo> projectFiles = loadProjectFiles(projectRoot);
+                if (!projectFiles.isEmpty()) {
+                    project = new Project(projectName, projectRoot, projectFiles);
+                    return project;
+                }
+                logger.warn("Nenhum arquivo relevante encontrado para o projeto em: {}", projectRoot.toUri());
+            } catch (IOException | NoSuchAlgorithmException e) {
+                logger.error("Erro ao carregar arquivos do projeto {}: {}", projectRoot.toUri(), e.getMessage());
+            }
+            return null;
+        } finally {
+            if (archive != null) {
+                if (project != null) {
+                    openArchives.add(archive);
+                } else {
+                    closeArchive(archive); // Sem projeto, nada mais será lido do ZIP
+                }
+            }
+            projectTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            projectPermits.release();
+        }
+    }
+
+    private static boolean isArchive(Path path) {
+        return path.getFileName().toString().toLowerCase().endsWith(ARCHIVE_EXTENSION) && Files.isRegularFile(path);
+    }
+
+    // "aluno.zip" ao lado do diretório "aluno" (a entrega já extraída): vale o diretório
+    private static boolean isShadowedArchive(Path path) {
+        if (Files.isDirectory(path) || !isArchive(path)) {
+            return false;
+        }
+        String fileName = path.getFileName().toString();
+        Path directory = path.resolveSibling(fileName.substring(0, fileName.length() - ARCHIVE_EXTENSION.length()));
+        if (Files.isDirectory(directory)) {
+            logger.warn("Ignorando {}: o diretório {} tem o mesmo nome de projeto", path, directory);
+            return true;
+        }
+        return false;
+    }
+
+    private FileSystem openArchive(Path archive) {
+        try {
+            return FileSystems.newFileSystem(archive);
+        } catch (IOException | ProviderNotFoundException e) {
+            logger.error("Erro ao abrir o arquivo compactado {}: {}", archive, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Fecha os ZIPs abertos pelas buscas de projetos; os {@link FileInfo} deles deixam de ser legíveis.
+     * Chamado ao fim da execução, depois dos relatórios, e no encerramento do contexto.
+     */
+    @PreDestroy
+    public void closeArchives() {
+        FileSystem archive;
+        while ((archive = openArchives.poll()) != null) {
+            closeArchive(archive);
+        }
+    }
+
+    private static void closeArchive(FileSystem archive) {
+        try {
+            archive.close();
+        } catch (IOException e) {
+            logger.warn("Erro ao fechar o arquivo compactado {}: {}", archive, e.getMessage());
+        }
+    }
+
 	private Path findHtmlFile(Path directoryToSearch) {
-		try {
-			logger.info("Directory to find: {}", directoryToSearch.toString());
-			Optional<Path> markerFile = Files.walk(directoryToSearch, 3) // Limitar profundidade para otimizar
+		logger.info("Directory to find: {}", directoryToSearch.toString());
+		try (Stream<Path> walk = Files.walk(directoryToSearch, 3)) { // Limitar profundidade para otimizar
+			Optional<Path> markerFile = walk
                     .filter(Files::isRegularFile)
 					.filter(p -> {
 						String fileName = p.getFileName().toString().toLowerCase();
@@ -102,8 +272,8 @@ public class ProjectFinderService {
 	}
 
     private Path findProjectRootMarker(Path directoryToSearch) {
-        try {
-            Optional<Path> markerFile = Files.walk(directoryToSearch, 3) // Limitar profundidade para otimizar
+        try (Stream<Path> walk = Files.walk(directoryToSearch, 3)) { // Limitar profundidade para otimizar
+            Optional<Path> markerFile = walk
                     .filter(Files::isRegularFile)
                     .filter(p -> PROJECT_MARKERS.contains(p.getFileName().toString().toLowerCase()))
                     .findFirst();
@@ -114,12 +284,14 @@ public class ProjectFinderService {
         }
     }
 
-    private Map<String, FileInfo> loadProjectFiles(Path projectRoot) throws IOException, NoSuchAlgorithmException {
+    // Visível no pacote para os benchmarks JMH (src/jmh/java)
+    Map<String, FileInfo> loadProjectFiles(Path projectRoot) throws IOException, NoSuchAlgorithmException {
         Map<String, FileInfo> files = new LinkedHashMap<>();
         Files.walkFileTree(projectRoot, new SimpleFileVisitor<Path>() {
             @Override
             public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
-                if (EXCLUDED_DIRS.contains(dir.getFileName().toString().toLowerCase()) &&
+                if (dir.getFileName() != null && // Raiz de um ZIP não tem nome
+                    EXCLUDED_DIRS.contains(dir.getFileName().toString().toLowerCase()) &&
                     !dir.equals(projectRoot)) { // Don't skip the project root itself if it matches an excluded name by chance
                     logger.debug("Ignorando diretório excluído: {}", dir);
                     return FileVisitResult.SKIP_SUBTREE;
@@ -139,11 +311,19 @@ public class ProjectFinderService {
 
                 try {
                     String relativePath = projectRoot.relativize(file).toString().replace("\\", "/"); // Normalizar separadores
-                    String contentHash = calculateSHA256(file);
                     FileTime creationTime = attrs.creationTime();
                     FileTime lastModifiedTime = attrs.lastModifiedTime();
+                    // Reaproveita o hash do índice persistente se o arquivo não mudou desde a última execução
+                    String contentHash = fingerprintIndex.findContentHash(file, attrs.size(), lastModifiedTime.toMillis());
+                    if (contentHash == null) {
+                        contentHash = calculateSHA256(file);
+                        fingerprintIndex.putContentHash(file, attrs.size(), lastModifiedTime.toMillis(), contentHash);
+                    } else {
+                        hashesReused.increment();
+                    }
 
-                    files.put(relativePath, new FileInfo(relativePath, file, creationTime, lastModifiedTime));
+                    files.put(relativePath, new FileInfo(relativePath, file, attrs.size(), contentHash, creationTime, lastModifiedTime));
+                    filesDiscovered.increment();
 
                     logger.debug("Arquivo adicionado: {}", relativePath);
                 } catch (NoSuchAlgorithmException e) {
@@ -171,12 +351,17 @@ public class ProjectFinderService {
         return "";
     }
 
-    private String calculateSHA256(Path path) throws IOException, NoSuchAlgorithmException {
+    // Visível no pacote para os benchmarks JMH (src/jmh/java)
+    String calculateSHA256(Path path) throws IOException, NoSuchAlgorithmException {
         MessageDigest md = MessageDigest.getInstance("SHA-256");
-        try (InputStream is = Files.newInputStream(path);
-             DigestInputStream dis = new DigestInputStream(is, md)) {
-            //noinspection StatementWithEmptyBody
-            while (dis.read() != -1) ; // Ler o arquivo para calcular o hash
+        openFilePermits.acquireUninterruptibly(); // Limita arquivos abertos simultaneamente entre todas as tarefas
+        long start = System.nanoTime();
+        try {
+            // Hash direto sobre o buffer do pool ou mapeado, sem cópia adicional; entradas grandes de ZIP chegam em blocos
+            fileAccess.readBlocks(path, md::update);
+        } finally {
+            hashTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            openFilePermits.release();
         }
         byte[] digest = md.digest();
         return bytesToHex(digest);
@@ -0,0 +1,563 @@
+package com.example.projectcomparator.service;
+
+import com.example.projectcomparator.config.ComparatorProperties;
+import com.example.projectcomparator.model.FileInfo;
+import com.example.projectcomparator.model.Project;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Corpus de referência: hashes de conteúdo e impressões de winnowing dos arquivos de projetos de lotes
+ * anteriores (ex.: semestres passados), gravados em um arquivo só de acréscimo. Um lote novo é consultado
+ * por índice invertido, sem {@link ProjectComparerService#compareProjects}: cada arquivo do lote procura
+ * os arquivos idênticos (pelo hash) e os que compartilham impressões, e só esses arquivos do corpus são
+ * pontuados. O custo de uma consulta depende das impressões do projeto e das listas de ocorrências
+ * visitadas (limitadas por {@code common-fingerprint-limit}), com uma busca binária por impressão;
+ * não cresce linearmente com o tamanho do corpus.
+ * <p>
+ * O score de um par (projeto do lote, projeto do corpus) só considera conteúdo: cada arquivo do lote vale
+ * o maior Jaccard de impressões (1.0 se idêntico) entre os arquivos do projeto do corpus, e o total é
+ * dividido pelas posições de arquivo dos dois projetos, como em {@code compareProjects}. Datas não entram:
+ * entregas de outro semestre nunca teriam as mesmas.
+ * <p>
+ * Formato: cabeçalho (magic, versão, k e janela do winnowing) seguido de um registro por projeto, com o
+ * tamanho em bytes na frente. Um registro incompleto no fim do arquivo (execução interrompida) é descartado
+ * na carga e sobrescrito no acréscimo seguinte. {@link #query} pode ser chamado por várias threads ao mesmo
+ * tempo; {@link #load} e {@link #append}, não.
+ */
+@Service
+public class ReferenceCorpus {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceCorpus.class);
+
+    private static final int MAGIC = 0x50435243; // "PCRC"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final HexFormat HEX = HexFormat.of();
+
+    // Cada ocorrência é um long: bits altos da impressão | id do arquivo nos FILE_BITS bits baixos, em um
+    // array ordenado. Impressões que só diferem nos bits baixos colidem, com probabilidade desprezível.
+    private static final int FILE_BITS = 26;
+    private static final long FILE_MASK = (1L << FILE_BITS) - 1;
+
+    /** Projeto do corpus parecido com um projeto do lote; {@code similarity} de 0 a 100. */
+    public record Match(String project, String reference, double similarity, int identicalFiles, int similarFiles) { }
+
+    private record StoredFile(String relativePath, String contentHash, long[] fingerprints) { }
+
+    private record StoredProject(String name, String digest, List<StoredFile> files) { }
+
+    // Acumulado de um projeto do corpus durante a consulta de um projeto do lote
+    private static final class Score {
+        double sum;
+        int identicalFiles;
+        int similarFiles;
+    }
+
+    private final ProjectComparerService comparisonService;
+    private final int kgramSize;
+    private final int windowSize;
+    private final int maxMatches;
+    private final int commonFingerprintLimit;
+
+    private final Timer loadTimer;
+    private final Timer appendTimer;
+    private final Timer queryTimer;
+    private final Timer projectQueryTimer;
+    private final Counter postingsVisited;
+    private final Counter commonFingerprints;
+
+    private Path file;
+    private long validLength; // Fim do último registro completo
+    private final List<String> projectNames = new ArrayList<>();
+    private final Set<String> projectDigests = new HashSet<>();
+    private int[] projectFileCounts = new int[0];
+    private int fileCount;
+    private int[] fileProjects = new int[0];
+    private int[] fileFingerprintCounts = new int[0];
+    private final Map<String, int[]> filesByHash = new HashMap<>();
+    private long[] postings = new long[0];
+
+    public ReferenceCorpus(ComparatorProperties properties, ProjectComparerService comparisonService,
+                           MeterRegistry meterRegistry) {
+        this.comparisonService = comparisonService;
+        // As impressões do corpus só são comparáveis com as calculadas com os mesmos parâmetros
+        this.kgramSize = properties.getSimilarity().getKgramSize();
+        this.windowSize = properties.getSimilarity().getWindowSize();
+        this.maxMatches = properties.getReference().getMaxMatches();
+        this.commonFingerprintLimit = properties.getReference().getCommonFingerprintLimit();
+        this.loadTimer = Timer.builder("comparator.phase").tag("phase", "reference-load")
+                .description("Carga do corpus de referência e montagem do índice").register(meterRegistry);
+        this.appendTimer = Timer.builder("comparator.phase").tag("phase", "reference-append")
+                .description("Acréscimo do lote ao corpus de referência").register(meterRegistry);
+        this.queryTimer = Timer.builder("comparator.phase").tag("phase", "reference-query")
+                .description("Consulta do lote ao corpus de referência").register(meterRegistry);
+        this.projectQueryTimer = Timer.builder("comparator.reference.query")
+                .description("Consulta de um projeto ao corpus de referência").register(meterRegistry);
+        this.postingsVisited = Counter.builder("comparator.reference.postings")
+                .description("Ocorrências de impressões visitadas nas consultas").register(meterRegistry);
+        this.commonFingerprints = Counter.builder("comparator.reference.common")
+                .description("Impressões ignoradas por aparecerem em muitos arquivos do corpus").register(meterRegistry);
+    }
+
+    /**
+     * Carrega o corpus de {@code file} e monta o índice. Um arquivo ausente resulta em um corpus vazio,
+     * criado no primeiro {@link #append}; um arquivo de outro formato ou de outros parâmetros de winnowing
+     * não é usado nem alterado.
+     */
+    public void load(Path file) {
+        clear();
+        long start = System.nanoTime();
+        try {
+            if (!Files.isRegularFile(file) || Files.size(file) == 0) {
+                logger.info("Corpus de referência não encontrado em {}; será criado ao acrescentar o lote", file.toAbsolutePath());
+                this.file = file;
+                return;
+            }
+            List<StoredProject> records = new ArrayList<>();
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    logger.error("Corpus de referência {} em formato desconhecido; ignorando", file);
+                    return;
+                }
+                int storedKgramSize = in.readInt();
+                int storedWindowSize = in.readInt();
+                if (storedKgramSize != kgramSize || storedWindowSize != windowSize) {
+                    logger.error("Corpus de referência {} calculado com k={} e janela={} (atual: k={}, janela={}); ignorando",
+                            file, storedKgramSize, storedWindowSize, kgramSize, windowSize);
+                    return;
+                }
+                long offset = HEADER_BYTES;
+                while (true) {
+                    int length;
+                    try {
+                        length = in.readInt();
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    byte[] record = length > 0 ? new byte[length] : null;
+                    try {
+                        if (record == null) {
+                            throw new EOFException();
+                        }
+                        in.readFully(record);
+                    } catch (EOFException e) {
+                        logger.warn("Registro incompleto no fim do corpus de referência {} (byte {}); descartado", file, offset);
+                        break;
+                    }
+                    records.add(readRecord(record));
+                    offset += 4 + length;
+                }
+                this.validLength = offset;
+            }
+            index(records);
+            this.file = file;
+            logger.info("Corpus de referência carregado de {}: {} projetos, {} arquivos, {} impressões em {} ms",
+                    file.toAbsolutePath(), projectNames.size(), fileCount, postings.length, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | IllegalStateException e) {
+            logger.error("Não foi possível ler o corpus de referência {}: {}", file, e.getMessage());
+            clear();
+        } finally {
+            loadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void clear() {
+        file = null;
+        validLength = 0;
+        projectNames.clear();
+        projectDigests.clear();
+        projectFileCounts = new int[0];
+        fileCount = 0;
+        fileProjects = new int[0];
+        fileFingerprintCounts = new int[0];
+        filesByHash.clear();
+        postings = new long[0];
+    }
+
+    /**
+     * Acrescenta ao corpus (arquivo e índice) os projetos de {@code projects} que ainda não estão nele, com o
+     * nome {@code batch/projeto}. Um projeto já presente (mesmos caminhos e hashes) é ignorado.
+     *
+     * @return quantidade de projetos acrescentados
+     */
+    public int append(List<Project> projects, String batch) {
+        if (file == null) {
+            logger.warn("Corpus de referência não carregado; lote {} não acrescentado", batch);
+            return 0;
+        }
+        long start = System.nanoTime();
+        try {
+            List<StoredProject> added = new ArrayList<>();
+            Set<String> batchDigests = new HashSet<>();
+            for (Project project : projects) {
+                String digest = contentDigest(project);
+                if (projectDigests.contains(digest) || !batchDigests.add(digest)) {
+                    logger.debug("Projeto {} já está no corpus de referência", project.getName());
+                    continue;
+                }
+                List<StoredFile> files = new ArrayList<>();
+                for (FileInfo fileInfo : new TreeMap<>(project.getFiles()).values()) {
+                    if (fileInfo.getSize() > 0) {
+                        files.add(new StoredFile(fileInfo.getRelativePath(), fileInfo.getContentHash(),
+                                                 comparisonService.getFingerprints(fileInfo)));
+                    }
+                }
+                added.add(new StoredProject(batch + "/" + project.getName(), digest, files));
+            }
+            if (added.isEmpty()) {
+                return 0;
+            }
+            checkCapacity(added); // Antes de gravar: o arquivo não pode ganhar projetos que o índice não comporta
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                channel.truncate(validLength); // Descarta um registro incompleto de uma execução interrompida
+                channel.position(validLength);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+                if (validLength == 0) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    out.writeInt(kgramSize);
+                    out.writeInt(windowSize);
+                }
+                for (StoredProject project : added) {
+                    byte[] record = writeRecord(project);
+                    out.writeInt(record.length);
+                    out.write(record);
+                }
+                out.flush();
+                channel.force(false);
+                validLength = channel.position();
+            }
+            index(added);
+            logger.info("{} projetos do lote {} acrescentados ao corpus de referência ({} projetos, {} ms)",
+                    added.size(), batch, projectNames.size(), (System.nanoTime() - start) / 1_000_000);
+            return added.size();
+        } catch (IOException | IllegalStateException e) {
+            logger.error("Falha ao acrescentar o lote {} ao corpus de referência {}: {}", batch, file, e.getMessage());
+            return 0;
+        } finally {
+            appendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static StoredProject readRecord(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        String name = in.readUTF();
+        String digest = in.readUTF();
+        int count = in.readInt();
+        List<StoredFile> files = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String relativePath = in.readUTF();
+            String contentHash = null;
+            int hashLength = in.readUnsignedByte();
+            if (hashLength > 0) {
+                byte[] hash = new byte[hashLength];
+                in.readFully(hash);
+                contentHash = HEX.formatHex(hash);
+            }
+            long[] fingerprints = new long[in.readInt()];
+            for (int f = 0; f < fingerprints.length; f++) {
+                fingerprints[f] = in.readLong();
+            }
+            files.add(new StoredFile(relativePath, contentHash, fingerprints));
+        }
+        return new StoredProject(name, digest, files);
+    }
+
+    private static byte[] writeRecord(StoredProject project) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(project.name());
+        out.writeUTF(project.digest());
+        out.writeInt(project.files().size());
+        for (StoredFile file : project.files()) {
+            out.writeUTF(file.relativePath());
+            if (file.contentHash() != null) {
+                byte[] hash = HEX.parseHex(file.contentHash());
+                out.writeByte(hash.length);
+                out.write(hash);
+            } else {
+                out.writeByte(0);
+            }
+            out.writeInt(file.fingerprints().length);
+            for (long fingerprint : file.fingerprints()) {
+                out.writeLong(fingerprint);
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /** @throws IllegalStateException se os arquivos de {@code records} não cabem mais nos ids do índice */
+    private void checkCapacity(List<StoredProject> records) {
+        long newFiles = 0;
+        for (StoredProject project : records) {
+            newFiles += project.files().size();
+        }
+        if (fileCount + newFiles > FILE_MASK + 1) {
+            throw new IllegalStateException("Corpus de referência com mais de " + (FILE_MASK + 1) + " arquivos");
+        }
+    }
+
+    private void index(List<StoredProject> records) {
+        checkCapacity(records);
+        int newFiles = 0;
+        int newPostings = 0;
+        for (StoredProject project : records) {
+            newFiles += project.files().size();
+            for (StoredFile file : project.files()) {
+                newPostings += file.fingerprints().length;
+            }
+        }
+        projectFileCounts = Arrays.copyOf(projectFileCounts, projectNames.size() + records.size());
+        fileProjects = Arrays.copyOf(fileProjects, fileCount + newFiles);
+        fileFingerprintCounts = Arrays.copyOf(fileFingerprintCounts, fileCount + newFiles);
+        long[] merged = Arrays.copyOf(postings, postings.length + newPostings);
+        int position = postings.length;
+        for (StoredProject project : records) {
+            int projectId = projectNames.size();
+            projectNames.add(project.name());
+            projectDigests.add(project.digest());
+            projectFileCounts[projectId] = project.files().size();
+            for (StoredFile file : project.files()) {
+                int fileId = fileCount++;
+                fileProjects[fileId] = projectId;
+                fileFingerprintCounts[fileId] = file.fingerprints().length;
+                if (file.contentHash() != null) {
+                    filesByHash.merge(file.contentHash(), new int[] { fileId }, ReferenceCorpus::concat);
+                }
+                for (long fingerprint : file.fingerprints()) {
+                    merged[position++] = (fingerprint & ~FILE_MASK) | fileId;
+                }
+            }
+        }
+        Arrays.sort(merged);
+        postings = merged;
+    }
+
+    private static int[] concat(int[] a, int[] b) {
+        int[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    /**
+     * Para cada projeto de {@code projects}, os projetos do corpus com similaridade a partir de {@code threshold},
+     * do mais para o menos parecido (no máximo {@code comparator.reference.max-matches} por projeto), na ordem
+     * de {@code projects}.
+     */
+    public List<Match> query(List<Project> projects, double threshold) {
+        long start = System.nanoTime();
+        try {
+            return projects.parallelStream()
+                           .map(project -> queryProject(project, threshold))
+                           .flatMap(List::stream)
+                           .toList();
+        } finally {
+            queryTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private List<Match> queryProject(Project project, double threshold) {
+        if (projectNames.isEmpty()) {
+            return List.of();
+        }
+        long start = System.nanoTime();
+        try {
+            Map<Integer, Score> scores = new HashMap<>();
+            Map<Integer, Integer> sharedByFile = new HashMap<>();
+            Map<Integer, Double> bestByProject = new HashMap<>();
+            Set<Integer> identicalProjects = new HashSet<>();
+            int files = 0;
+            long visited = 0;
+            long common = 0;
+            for (FileInfo fileInfo : project.getFiles().values()) {
+                if (fileInfo.getSize() == 0) {
+                    continue;
+                }
+                files++;
+                sharedByFile.clear();
+                bestByProject.clear();
+                identicalProjects.clear();
+
+                long[] fingerprints = comparisonService.getFingerprints(fileInfo);
+                for (long fingerprint : fingerprints) {
+                    long key = fingerprint & ~FILE_MASK;
+                    int from = lowerBound(postings, key);
+                    int to = upperBound(postings, key | FILE_MASK);
+                    if (to - from > commonFingerprintLimit) {
+                        common++;
+                        continue;
+                    }
+                    visited += to - from;
+                    for (int i = from; i < to; i++) {
+                        sharedByFile.merge((int) (postings[i] & FILE_MASK), 1, Integer::sum);
+                    }
+                }
+                for (Map.Entry<Integer, Integer> entry : sharedByFile.entrySet()) {
+                    int fileId = entry.getKey();
+                    int shared = entry.getValue();
+                    double jaccard = (double) shared / (fingerprints.length + fileFingerprintCounts[fileId] - shared);
+                    bestByProject.merge(fileProjects[fileId], jaccard, Math::max);
+                }
+                int[] identical = fileInfo.getContentHash() != null ? filesByHash.get(fileInfo.getContentHash()) : null;
+                if (identical != null && identical.length <= commonFingerprintLimit) {
+                    for (int fileId : identical) {
+                        bestByProject.put(fileProjects[fileId], 1.0);
+                        identicalProjects.add(fileProjects[fileId]);
+                    }
+                }
+
+                for (Map.Entry<Integer, Double> entry : bestByProject.entrySet()) {
+                    Score score = scores.computeIfAbsent(entry.getKey(), id -> new Score());
+                    score.sum += entry.getValue();
+                    if (identicalProjects.contains(entry.getKey())) {
+                        score.identicalFiles++;
+                    } else {
+                        score.similarFiles++;
+                    }
+                }
+            }
+            postingsVisited.increment(visited);
+            commonFingerprints.increment(common);
+
+            List<Match> matches = new ArrayList<>();
+            for (Map.Entry<Integer, Score> entry : scores.entrySet()) {
+                int referenceFiles = projectFileCounts[entry.getKey()];
+                Score score = entry.getValue();
+                // Cada arquivo pareado ocupa uma posição; vários arquivos do lote podem parear com o mesmo do corpus
+                int matched = score.identicalFiles + score.similarFiles;
+                int fileSlots = Math.max(files + referenceFiles - matched, Math.max(files, referenceFiles));
+                double similarity = 100.0 * score.sum / fileSlots;
+                if (similarity >= threshold) {
+                    matches.add(new Match(project.getName(), projectNames.get(entry.getKey()), similarity,
+                                          score.identicalFiles, score.similarFiles));
+                }
+            }
+            matches.sort(Comparator.comparingDouble(Match::similarity).reversed().thenComparing(Match::reference));
+            return matches.size() > maxMatches ? List.copyOf(matches.subList(0, maxMatches)) : matches;
+        } finally {
+            projectQueryTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Primeira posição com valor >= key
+    private static int lowerBound(long[] sorted, long key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Primeira posição com valor > key
+    private static int upperBound(long[] sorted, long key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /** Digest SHA-256 dos caminhos relativos e hashes dos arquivos não vazios; datas não entram. */
+    static String contentDigest(Project project) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+        for (FileInfo file : new TreeMap<>(project.getFiles()).values()) {
+            if (file.getSize() == 0) {
+                continue;
+            }
+            md.update(file.getRelativePath().getBytes(StandardCharsets.UTF_8));
+            md.update((byte) 0);
+            String contentHash = file.getContentHash() != null ? file.getContentHash() : "size:" + file.getSize();
+            md.update(contentHash.getBytes(StandardCharsets.UTF_8));
+            md.update((byte) '\n');
+        }
+        return HEX.formatHex(md.digest());
+    }
+
+    /**
+     * Grava as correspondências em CSV (separado por ';', similaridade com ponto decimal). Os nomes vêm de
+     * pastas e arquivos ZIP e podem conter ';', aspas ou quebras de linha: esses campos vão entre aspas,
+     * com as aspas duplicadas (RFC 4180).
+     */
+    public static void writeMatches(Path file, List<Match> matches) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("projeto;referencia;similaridade;arquivos_identicos;arquivos_semelhantes\n");
+            for (Match match : matches) {
+                writer.write(String.format(Locale.US, "%s;%s;%.2f;%d;%d\n", csvField(match.project()), csvField(match.reference()),
+                                           match.similarity(), match.identicalFiles(), match.similarFiles()));
+            }
+        }
+        logger.info("Correspondências com o corpus de referência gravadas em: {}", file.toAbsolutePath());
+    }
+
+    private static String csvField(String value) {
+        if (value.indexOf(';') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    public int projectCount() {
+        return projectNames.size();
+    }
+
+    public int fileCount() {
+        return fileCount;
+    }
+
+    public long postingCount() {
+        return postings.length;
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.projectcomparator.service;
+
+import com.example.projectcomparator.config.ComparatorProperties;
+import com.example.projectcomparator.config.MetricsConfiguration;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Measurement;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Grava o resumo de uma execução em JSON: os dados informados pelo chamador (em {@code run}) e todas as
+ * métricas {@code comparator.*} do registro. Tempos são gravados em milissegundos, com contagem, total,
+ * média, máximo e os percentis configurados em {@code comparator.metrics.percentiles}.
+ */
+@Service
+public class RunSummaryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RunSummaryService.class);
+
+    private final MeterRegistry meterRegistry;
+    private final ComparatorProperties.Metrics config;
+
+    public RunSummaryService(MeterRegistry meterRegistry, ComparatorProperties properties) {
+        this.meterRegistry = meterRegistry;
+        this.config = properties.getMetrics();
+    }
+
+    public boolean isEnabled() {
+        return config.isSummaryEnabled();
+    }
+
+    /**
+     * @param run valores da execução (textos ou números), gravados na ordem do mapa
+     */
+    public void writeSummary(Path file, Map<String, ?> run) throws IOException {
+        List<Meter> meters = meterRegistry.getMeters().stream()
+                .filter(meter -> meter.getId().getName().startsWith(MetricsConfiguration.METRIC_PREFIX))
+                .sorted(Comparator.comparing((Meter meter) -> meter.getId().getName())
+                                  .thenComparing(meter -> meter.getId().getTags().toString()))
+                .toList();
+
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("{\n  \"run\": {");
+            boolean first = true;
+            for (Map.Entry<String, ?> entry : run.entrySet()) {
+                writer.write(first ? "\n    " : ",\n    ");
+                first = false;
+                JsonStrings.write(writer, entry.getKey());
+                writer.write(": ");
+                writeValue(writer, entry.getValue());
+            }
+            writer.write("\n  },\n  \"meters\": [");
+            for (int i = 0; i < meters.size(); i++) {
+                writer.write(i == 0 ? "\n    " : ",\n    ");
+                writeMeter(writer, meters.get(i));
+            }
+            writer.write("\n  ]\n}\n");
+        }
+        logger.info("Resumo da execução gravado em: {}", file.toAbsolutePath());
+    }
+
+    private static void writeMeter(Writer writer, Meter meter) throws IOException {
+        writer.write("{\"name\": ");
+        JsonStrings.write(writer, meter.getId().getName());
+        if (!meter.getId().getTags().isEmpty()) {
+            writer.write(", \"tags\": {");
+            List<Tag> tags = meter.getId().getTags();
+            for (int i = 0; i < tags.size(); i++) {
+                if (i > 0) writer.write(", ");
+                JsonStrings.write(writer, tags.get(i).getKey());
+                writer.write(": ");
+                JsonStrings.write(writer, tags.get(i).getValue());
+            }
+            writer.write('}');
+        }
+        if (meter.getId().getBaseUnit() != null) {
+            writer.write(", \"unit\": ");
+            JsonStrings.write(writer, meter.getId().getBaseUnit());
+        }
+        switch (meter) {
+            case Timer timer -> writeTimer(writer, timer.takeSnapshot());
+            case DistributionSummary summary -> writeDistribution(writer, summary.takeSnapshot());
+            case Counter counter -> writeField(writer, "count", counter.count());
+            case FunctionCounter counter -> writeField(writer, "count", counter.count());
+            case Gauge gauge -> writeField(writer, "value", gauge.value());
+            default -> {
+                for (Measurement measurement : meter.measure()) {
+                    writeField(writer, measurement.getStatistic().getTagValueRepresentation(), measurement.getValue());
+                }
+            }
+        }
+        writer.write('}');
+    }
+
+    private static void writeTimer(Writer writer, HistogramSnapshot snapshot) throws IOException {
+        writer.write(", \"type\": \"timer\"");
+        writeField(writer, "count", snapshot.count());
+        writeField(writer, "totalMs", snapshot.total(TimeUnit.MILLISECONDS));
+        writeField(writer, "meanMs", snapshot.mean(TimeUnit.MILLISECONDS));
+        writeField(writer, "maxMs", snapshot.max(TimeUnit.MILLISECONDS));
+        writer.write(", \"percentilesMs\": {");
+        ValueAtPercentile[] percentiles = snapshot.percentileValues();
+        for (int i = 0; i < percentiles.length; i++) {
+            writePercentile(writer, i, percentiles[i].percentile(), percentiles[i].value(TimeUnit.MILLISECONDS));
+        }
+        writer.write('}');
+    }
+
+    private static void writeDistribution(Writer writer, HistogramSnapshot snapshot) throws IOException {
+        writer.write(", \"type\": \"distribution\"");
+        writeField(writer, "count", snapshot.count());
+        writeField(writer, "total", snapshot.total());
+        writeField(writer, "mean", snapshot.mean());
+        writeField(writer, "max", snapshot.max());
+        writer.write(", \"percentiles\": {");
+        ValueAtPercentile[] percentiles = snapshot.percentileValues();
+        for (int i = 0; i < percentiles.length; i++) {
+            writePercentile(writer, i, percentiles[i].percentile(), percentiles[i].value());
+        }
+        writer.write('}');
+    }
+
+    // Chave no formato "p50", "p99.9"
+    private static void writePercentile(Writer writer, int index, double percentile, double value) throws IOException {
+        if (index > 0) writer.write(", ");
+        writer.write("\"p");
+        writer.write(new BigDecimal(Double.toString(percentile * 100)).stripTrailingZeros().toPlainString());
+        writer.write("\": ");
+        writeValue(writer, value);
+    }
+
+    private static void writeField(Writer writer, String name, double value) throws IOException {
+        writer.write(", ");
+        JsonStrings.write(writer, name);
+        writer.write(": ");
+        writeValue(writer, value);
+    }
+
+    private static void writeValue(Writer writer, Object value) throws IOException {
+        if (value instanceof Double || value instanceof Float) {
+            double number = ((Number) value).doubleValue();
+            if (Double.isNaN(number) || Double.isInfinite(number)) {
+                writer.write("null"); // JSON não representa NaN/infinito
+            } else if (number == Math.rint(number) && Math.abs(number) < 1e15) {
+                writer.write(Long.toString((long) number));
+            } else {
+                writer.write(Double.toString(number));
+            }
+        } else if (value instanceof Number || value instanceof Boolean) {
+            writer.write(value.toString());
+        } else if (value == null) {
+            writer.write("null");
+        } else {
+            JsonStrings.write(writer, value.toString());
+        }
+    }
+}
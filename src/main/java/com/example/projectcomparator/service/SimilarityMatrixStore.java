@@ -0,0 +1,167 @@
+package com.example.projectcomparator.service;
+
+import com.example.projectcomparator.config.ComparatorProperties;
+import com.example.projectcomparator.model.FileInfo;
+import com.example.projectcomparator.model.Project;
+import com.example.projectcomparator.model.SimilarityMatrix;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Persiste a matriz de similaridade de uma execução junto com um digest do conteúdo de cada projeto.
+ * Na execução seguinte, as células cujos dois projetos têm o mesmo digest (e foram calculadas com
+ * os mesmos parâmetros de comparação) são reaproveitadas; só as linhas/colunas de projetos novos ou
+ * alterados são recalculadas.
+ */
+@Service
+public class SimilarityMatrixStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(SimilarityMatrixStore.class);
+
+    private static final int MAGIC = 0x50434d58; // "PCMX"
+    private static final int VERSION = 2; // 2: células em float (SimilarityMatrix)
+
+    private final ComparatorProperties properties;
+
+    public SimilarityMatrixStore(ComparatorProperties properties) {
+        this.properties = properties;
+    }
+
+    /** Matriz de uma execução anterior, consultada par a par pelo {@link ComparisonEngine}. */
+    public static final class PreviousScores {
+        private final SimilarityMatrix matrix;
+        private final String[] digests; // na ordem dos projetos da matriz
+
+        private PreviousScores(SimilarityMatrix matrix, String[] digests) {
+            this.matrix = matrix;
+            this.digests = digests;
+        }
+
+        /**
+         * Score anterior do par, ou null se algum dos projetos é novo ou mudou. Pares que só tinham o limite
+         * superior também devolvem null: o limite de similaridade pode ter mudado e recalculá-lo é barato.
+         * O mesmo vale para pares que só tinham a estimativa do LSH, que não é um score.
+         */
+        public Double find(String nameA, String digestA, String nameB, String digestB) {
+            int a = matrix.indexOf(nameA);
+            int b = matrix.indexOf(nameB);
+            if (a < 0 || b < 0 || a == b || matrix.isUpperBound(a, b) || matrix.isEstimate(a, b)
+                || !digests[a].equals(digestA) || !digests[b].equals(digestB)) {
+                return null;
+            }
+            return matrix.get(a, b);
+        }
+    }
+
+    /**
+     * Assinatura dos parâmetros que influenciam os scores; uma matriz gravada com parâmetros
+     * diferentes não é reaproveitada.
+     */
+    public String settingsSignature() {
+        ComparatorProperties.Similarity similarity = properties.getSimilarity();
+        ComparatorProperties.Lsh lsh = properties.getLsh();
+        return String.join(";",
+                "strategy=" + similarity.getStrategy(),
+                "k=" + similarity.getKgramSize(),
+                "w=" + similarity.getWindowSize(),
+                "cutoff=" + similarity.getFileCutoff(),
+                "crossPath=" + similarity.isCrossPathMatching(),
+                "chunks=" + similarity.getChunkThreshold().toBytes() + "/" + similarity.getChunkSize(),
+                "encoding=utf-8/windows-1252",
+                "lsh=" + (lsh.isEnabled() ? lsh.getBands() + "x" + lsh.getRows() + "/" + lsh.getShingleSize() : "off"));
+    }
+
+    /**
+     * Digest SHA-256 de tudo que entra no cálculo de similaridade do projeto: caminhos relativos,
+     * hashes de conteúdo e datas de criação/modificação de cada arquivo.
+     */
+    public static String digest(Project project) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+        for (FileInfo file : new TreeMap<>(project.getFiles()).values()) {
+            md.update(file.getRelativePath().getBytes(StandardCharsets.UTF_8));
+            md.update((byte) 0);
+            String contentHash = file.getContentHash() != null ? file.getContentHash() : "size:" + file.getSize();
+            md.update(contentHash.getBytes(StandardCharsets.UTF_8));
+            md.update((byte) 0);
+            md.update(Long.toString(millis(file.getCreationTime())).getBytes(StandardCharsets.UTF_8));
+            md.update((byte) 0);
+            md.update(Long.toString(millis(file.getLastModifiedTime())).getBytes(StandardCharsets.UTF_8));
+            md.update((byte) '\n');
+        }
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    private static long millis(FileTime time) {
+        return time != null ? time.toMillis() : 0L;
+    }
+
+    /** Carrega a matriz gravada; devolve null se não existir ou se foi gerada com outros parâmetros. */
+    public PreviousScores load(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                logger.warn("Matriz de similaridade {} em formato desconhecido; ignorando", file);
+                return null;
+            }
+            String settings = in.readUTF();
+            if (!settings.equals(settingsSignature())) {
+                logger.info("Matriz anterior em {} foi calculada com outros parâmetros ({}); recalculando tudo", file, settings);
+                return null;
+            }
+            SimilarityMatrix matrix = SimilarityMatrix.readFrom(in);
+            String[] digests = new String[matrix.size()];
+            for (int i = 0; i < digests.length; i++) {
+                digests[i] = in.readUTF();
+            }
+            logger.info("Matriz de similaridade anterior carregada de {} ({} projetos)", file.toAbsolutePath(), matrix.size());
+            return new PreviousScores(matrix, digests);
+        } catch (IOException e) {
+            logger.warn("Não foi possível ler a matriz de similaridade {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    public void save(Path file, SimilarityMatrix matrix, Map<String, String> digests) {
+        Path absolute = file.toAbsolutePath();
+        Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(settingsSignature());
+                matrix.writeTo(out);
+                for (String name : matrix.getProjectNames()) {
+                    out.writeUTF(digests.get(name));
+                }
+            }
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Matriz de similaridade gravada em {}", absolute);
+        } catch (IOException e) {
+            logger.error("Falha ao gravar matriz de similaridade {}: {}", absolute, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.projectcomparator.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Codificação de um arquivo de texto, detectada pelos próprios bytes (ver {@link #detect(ByteBuffer)}).
+ * Os alunos entregam fontes em UTF-8, mas também em Latin-1/Windows-1252 (editores antigos no Windows);
+ * tudo o que não for UTF-8 válido é lido como Windows-1252, que aceita qualquer sequência de bytes.
+ */
+public enum TextEncoding {
+
+    /** Só bytes abaixo de 0x80: cada byte já é o caractere, sem decoder. */
+    ASCII(StandardCharsets.US_ASCII),
+    UTF_8(StandardCharsets.UTF_8),
+    /** Fallback: os poucos bytes sem caractere em Windows-1252 (0x81, 0x8D, ...) viram U+FFFD. */
+    WINDOWS_1252(Charset.forName("windows-1252"));
+
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private final Charset charset;
+
+    TextEncoding(Charset charset) {
+        this.charset = charset;
+    }
+
+    public Charset charset() {
+        return charset;
+    }
+
+    /** Decoder que substitui bytes inválidos em vez de lançar exceção. */
+    public CharsetDecoder newDecoder() {
+        return charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Detecta a codificação dos bytes entre a posição e o limite de {@code bytes}, sem alterá-los.
+     * Os trechos ASCII são verificados de 8 em 8 bytes; a partir do primeiro byte alto, a validação de UTF-8
+     * é estrita (sem sequências longas demais, surrogates ou pontos acima de U+10FFFF), de modo que um
+     * resultado {@link #UTF_8} nunca faz o decoder encontrar bytes inválidos.
+     */
+    public static TextEncoding detect(ByteBuffer bytes) {
+        return new Detector().update(bytes).result();
+    }
+
+    /**
+     * Detecção sobre bytes que chegam em blocos (ex.: entrada de ZIP lida em streaming): o resultado é o mesmo
+     * de {@link #detect(ByteBuffer)} sobre a concatenação dos blocos, inclusive com sequências UTF-8 cortadas
+     * entre um bloco e o seguinte.
+     */
+    public static final class Detector {
+
+        private boolean nonAscii;
+        private boolean invalid;
+        private int continuation; // Bytes de continuação ainda esperados
+        private int min;          // Faixa permitida para o próximo byte de continuação
+        private int max;
+
+        /** Examina os bytes entre a posição e o limite de {@code bytes}, sem alterá-los. */
+        public Detector update(ByteBuffer bytes) {
+            int i = bytes.position();
+            int end = bytes.limit();
+            while (i < end && !invalid) {
+                if (continuation > 0) {
+                    int b = bytes.get(i++) & 0xFF;
+                    if (b < min || b > max) {
+                        invalid = true;
+                    }
+                    min = 0x80;
+                    max = 0xBF;
+                    continuation--;
+                    continue;
+                }
+                while (i + Long.BYTES <= end && (bytes.getLong(i) & HIGH_BITS) == 0) {
+                    i += Long.BYTES;
+                }
+                if (i == end) {
+                    break;
+                }
+                int b = bytes.get(i++) & 0xFF;
+                if (b < 0x80) {
+                    continue;
+                }
+                nonAscii = true;
+                min = 0x80;
+                max = 0xBF;
+                if (b >= 0xC2 && b <= 0xDF) {
+                    continuation = 1;
+                } else if (b >= 0xE0 && b <= 0xEF) {
+                    continuation = 2;
+                    if (b == 0xE0) {
+                        min = 0xA0; // Sequência longa demais
+                    } else if (b == 0xED) {
+                        max = 0x9F; // Surrogates
+                    }
+                } else if (b >= 0xF0 && b <= 0xF4) {
+                    continuation = 3;
+                    if (b == 0xF0) {
+                        min = 0x90;
+                    } else if (b == 0xF4) {
+                        max = 0x8F; // Acima de U+10FFFF
+                    }
+                } else {
+                    invalid = true; // Byte de continuação solto, C0/C1 ou F5..FF
+                }
+            }
+            return this;
+        }
+
+        /** Codificação dos bytes vistos até aqui, tratando-os como o arquivo inteiro. */
+        public TextEncoding result() {
+            if (!nonAscii) {
+                return ASCII;
+            }
+            return invalid || continuation > 0 ? WINDOWS_1252 : UTF_8; // continuation > 0: sequência cortada no fim
+        }
+    }
+}
@@ -0,0 +1,419 @@
+package com.example.projectcomparator.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+
+/**
+ * Normalizador de texto em uma única passada, sem expressões regulares nem cópias intermediárias.
+ * A saída é idêntica à do pipeline original baseado em {@code replaceAll}/{@code split}:
+ * <ul>
+ * <li>quebras de linha {@code \r\n} e {@code \r} viram {@code \n};</li>
+ * <li>cada linha é aparada como em {@link String#trim()} e sequências internas de
+ * {@code [ \t\x0B\f]} viram um único espaço (equivalente a {@code replaceAll("\\s+", " ")});</li>
+ * <li>linhas em branco consecutivas viram uma só; linhas vazias no fim do texto são descartadas
+ * (como em {@link String#split(String)});</li>
+ * <li>a última quebra de linha é removida.</li>
+ * </ul>
+ * Instâncias não são thread-safe; use uma por thread e reaproveite o builder de saída.
+ * <p>
+ * Em {@link #normalizeChunks}, o texto normalizado é entregue em blocos em vez de acumulado inteiro no builder.
+ * As variantes sem decoder ({@link #normalizeInto(ByteBuffer)}) detectam a codificação pelos bytes
+ * ({@link TextEncoding}): texto ASCII é normalizado byte a byte, sem decodificação, e bytes que não são
+ * UTF-8 válido são lidos como Windows-1252 em vez de falharem. Bytes que não cabem em um único buffer
+ * (ex.: entradas grandes de um ZIP) são normalizados em partes com {@link #begin}, {@link #feed} e {@link #end}.
+ */
+public final class TextNormalizer {
+
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    /** Recebe um bloco do texto normalizado; o builder só é válido durante a chamada. */
+    @FunctionalInterface
+    public interface ChunkConsumer {
+        void accept(StringBuilder chunk);
+    }
+
+    private final StringBuilder out;
+    private final char[] readBuffer = new char[READ_BUFFER_SIZE];
+    private final CharBuffer decodedChars = CharBuffer.wrap(readBuffer);
+    // Bytes copiados para o decoder; guarda entre um bloco e outro uma sequência multibyte incompleta
+    private final ByteBuffer pendingBytes = ByteBuffer.wrap(new byte[READ_BUFFER_SIZE]);
+
+    // Estado da linha atual
+    private boolean lineHasChars;       // a linha bruta tem algum caractere (mesmo que só espaços)
+    private boolean seenContent;        // já apareceu caractere > ' ' (fim do trim à esquerda)
+    private int contentEnd;             // posição em 'out' logo após o último caractere > ' '
+    private boolean lastWasCollapsedSpace;
+    // Estado entre linhas
+    private boolean lastLineWasBlank;
+    private boolean pendingEmptyLines;  // linhas vazias que só contam se vier outra linha depois
+    private boolean pendingCarriageReturn;
+    // Modo em blocos (normalizeChunks)
+    private ChunkConsumer chunkConsumer;
+    private int chunkSize;
+    // Decoders das variantes com detecção, criados no primeiro uso
+    private CharsetDecoder utf8Decoder;
+    private CharsetDecoder fallbackDecoder;
+    // Decoder da normalização em partes (begin/feed/end); null para bytes ASCII
+    private CharsetDecoder blockDecoder;
+
+    public TextNormalizer(StringBuilder out) {
+        this.out = out;
+    }
+
+    /** Atalho que normaliza todo o texto em uma nova String. */
+    public static String normalize(CharSequence content) {
+        if (content == null) return "";
+        StringBuilder builder = new StringBuilder(content.length());
+        new TextNormalizer(builder).normalizeInto(content);
+        return builder.toString();
+    }
+
+    /**
+     * Normaliza {@code content} sobrescrevendo o builder de saída.
+     */
+    public void normalizeInto(CharSequence content) {
+        reset();
+        for (int i = 0, length = content.length(); i < length; i++) {
+            accept(content.charAt(i));
+        }
+        finish();
+    }
+
+    /**
+     * Variante em streaming: normaliza enquanto lê, sem manter o texto original inteiro em memória.
+     */
+    public void normalizeInto(Reader reader) throws IOException {
+        reset();
+        int read;
+        while ((read = reader.read(readBuffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                accept(readBuffer[i]);
+            }
+        }
+        finish();
+    }
+
+    /**
+     * Variante em streaming sobre bytes (ex.: arquivo mapeado): decodifica em blocos com {@code decoder}
+     * e normaliza cada bloco, sem materializar o texto decodificado inteiro. Buffers diretos são copiados
+     * em blocos para um array do heap, onde o decoder usa o caminho rápido para ASCII.
+     *
+     * @throws CharacterCodingException se o decoder reportar bytes inválidos
+     */
+    public void normalizeInto(ByteBuffer bytes, CharsetDecoder decoder) throws CharacterCodingException {
+        reset();
+        decoder.reset();
+        if (bytes.hasArray()) {
+            decode(bytes, decoder, true);
+            flushDecoder(decoder);
+            finish();
+        } else {
+            blockDecoder = decoder;
+            pendingBytes.clear();
+            try {
+                feedDecoder(bytes);
+                endDecoding();
+            } finally {
+                blockDecoder = null;
+            }
+        }
+    }
+
+    /**
+     * Inicia a normalização de bytes que chegam em blocos (ex.: entrada de ZIP lida em streaming), em uma
+     * codificação já detectada sobre todos os bytes (ver {@link TextEncoding.Detector}). Os blocos são
+     * entregues em ordem a {@link #feed(ByteBuffer)} e {@link #end()} encerra o texto.
+     */
+    public void begin(TextEncoding encoding) {
+        this.chunkConsumer = null;
+        startBlocks(encoding);
+    }
+
+    /** Como {@link #begin(TextEncoding)}, entregando o texto normalizado em blocos (ver {@link #normalizeChunks}). */
+    public void begin(TextEncoding encoding, int chunkSize, ChunkConsumer consumer) {
+        startChunks(chunkSize, consumer);
+        startBlocks(encoding);
+    }
+
+    private void startBlocks(TextEncoding encoding) {
+        reset();
+        blockDecoder = encoding == TextEncoding.ASCII ? null : decoderFor(encoding);
+        if (blockDecoder != null) {
+            blockDecoder.reset();
+        }
+        pendingBytes.clear();
+    }
+
+    /** Normaliza o próximo bloco; uma sequência multibyte cortada no fim do bloco é completada pelo seguinte. */
+    public void feed(ByteBuffer bytes) {
+        if (blockDecoder == null) {
+            for (int i = bytes.position(), end = bytes.limit(); i < end; i++) {
+                accept((char) bytes.get(i));
+            }
+            bytes.position(bytes.limit());
+            return;
+        }
+        try {
+            feedDecoder(bytes);
+        } catch (CharacterCodingException e) {
+            throw new IllegalStateException(e); // Os decoders de decoderFor substituem bytes inválidos
+        }
+    }
+
+    /** Encerra o texto iniciado por {@code begin}; no modo em blocos, entrega o último bloco. */
+    public void end() {
+        try {
+            if (blockDecoder != null) {
+                endDecoding();
+            } else {
+                finish();
+            }
+            if (chunkConsumer != null) {
+                flushChunk();
+            }
+        } catch (CharacterCodingException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            this.chunkConsumer = null;
+            this.blockDecoder = null;
+        }
+    }
+
+    // Copia os bytes em partes para um array do heap, onde o decoder usa o caminho rápido para ASCII
+    private void feedDecoder(ByteBuffer bytes) throws CharacterCodingException {
+        while (bytes.hasRemaining()) {
+            int length = Math.min(pendingBytes.remaining(), bytes.remaining());
+            pendingBytes.put(pendingBytes.position(), bytes, bytes.position(), length);
+            pendingBytes.position(pendingBytes.position() + length);
+            bytes.position(bytes.position() + length);
+            pendingBytes.flip();
+            decode(pendingBytes, blockDecoder, false);
+            pendingBytes.compact(); // Mantém uma sequência multibyte incompleta para a próxima parte
+        }
+    }
+
+    private void endDecoding() throws CharacterCodingException {
+        pendingBytes.flip();
+        decode(pendingBytes, blockDecoder, true);
+        pendingBytes.clear();
+        flushDecoder(blockDecoder);
+        finish();
+    }
+
+    private void flushDecoder(CharsetDecoder decoder) {
+        CoderResult result;
+        do {
+            result = decoder.flush(decodedChars);
+            drain();
+        } while (result.isOverflow());
+    }
+
+    /**
+     * Normaliza bytes de codificação desconhecida: detecta a codificação ({@link TextEncoding#detect}) e,
+     * se for ASCII, normaliza os bytes diretamente, sem decoder nem buffer intermediário; senão decodifica
+     * como UTF-8 ou, se os bytes não forem UTF-8 válido, como Windows-1252. Nunca falha por causa da
+     * codificação.
+     *
+     * @return a codificação usada
+     */
+    public TextEncoding normalizeInto(ByteBuffer bytes) {
+        TextEncoding encoding = TextEncoding.detect(bytes);
+        if (encoding == TextEncoding.ASCII) {
+            reset();
+            for (int i = bytes.position(), end = bytes.limit(); i < end; i++) {
+                accept((char) bytes.get(i));
+            }
+            bytes.position(bytes.limit());
+            finish();
+            return encoding;
+        }
+        try {
+            normalizeInto(bytes, decoderFor(encoding));
+        } catch (CharacterCodingException e) {
+            // Os decoders de decoderFor substituem bytes inválidos em vez de reportá-los
+            throw new IllegalStateException(e);
+        }
+        return encoding;
+    }
+
+    private CharsetDecoder decoderFor(TextEncoding encoding) {
+        if (encoding == TextEncoding.UTF_8) {
+            if (utf8Decoder == null) {
+                utf8Decoder = encoding.newDecoder();
+            }
+            return utf8Decoder;
+        }
+        if (fallbackDecoder == null) {
+            fallbackDecoder = encoding.newDecoder();
+        }
+        return fallbackDecoder;
+    }
+
+    /**
+     * Como {@link #normalizeInto(ByteBuffer, CharsetDecoder)}, mas entrega o texto normalizado a {@code consumer}
+     * em blocos: o builder é esvaziado no fim da primeira linha que passa de {@code chunkSize} caracteres ou,
+     * em uma linha muito longa (ex.: .js minificado), ao chegar a cerca de {@code 2 * chunkSize}. A concatenação
+     * dos blocos é igual à saída de {@code normalizeInto}; só um bloco fica em memória.
+     */
+    public void normalizeChunks(ByteBuffer bytes, CharsetDecoder decoder, int chunkSize, ChunkConsumer consumer)
+            throws CharacterCodingException {
+        startChunks(chunkSize, consumer);
+        try {
+            normalizeInto(bytes, decoder);
+            flushChunk();
+        } finally {
+            this.chunkConsumer = null;
+        }
+    }
+
+    /** Como {@link #normalizeChunks(ByteBuffer, CharsetDecoder, int, ChunkConsumer)}, com a detecção de {@link #normalizeInto(ByteBuffer)}. */
+    public TextEncoding normalizeChunks(ByteBuffer bytes, int chunkSize, ChunkConsumer consumer) {
+        startChunks(chunkSize, consumer);
+        try {
+            TextEncoding encoding = normalizeInto(bytes);
+            flushChunk();
+            return encoding;
+        } finally {
+            this.chunkConsumer = null;
+        }
+    }
+
+    private void startChunks(int chunkSize, ChunkConsumer consumer) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize deve ser positivo");
+        }
+        this.chunkConsumer = consumer;
+        this.chunkSize = chunkSize;
+    }
+
+    private void flushChunk() {
+        if (out.length() > 0) {
+            chunkConsumer.accept(out);
+        }
+    }
+
+    private void decode(ByteBuffer bytes, CharsetDecoder decoder, boolean endOfInput) throws CharacterCodingException {
+        CoderResult result;
+        do {
+            result = decoder.decode(bytes, decodedChars, endOfInput);
+            if (result.isError()) {
+                result.throwException();
+            }
+            drain();
+        } while (result.isOverflow());
+    }
+
+    private void drain() {
+        for (int i = 0, length = decodedChars.position(); i < length; i++) { // 'decodedChars' envolve o readBuffer
+            accept(readBuffer[i]);
+        }
+        decodedChars.clear();
+    }
+
+    private void reset() {
+        out.setLength(0);
+        lineHasChars = false;
+        seenContent = false;
+        contentEnd = 0;
+        lastWasCollapsedSpace = false;
+        lastLineWasBlank = false;
+        pendingEmptyLines = false;
+        pendingCarriageReturn = false;
+    }
+
+    private void accept(char c) {
+        if (pendingCarriageReturn) {
+            pendingCarriageReturn = false;
+            if (c == '\n') {
+                return; // Segunda metade de um \r\n
+            }
+        }
+        if (c == '\r') {
+            endLine();
+            pendingCarriageReturn = true;
+            return;
+        }
+        if (c == '\n') {
+            endLine();
+            return;
+        }
+
+        if (!lineHasChars) {
+            lineHasChars = true;
+            if (pendingEmptyLines) { // Linhas vazias anteriores não estavam no fim do texto
+                appendBlankLine();
+                pendingEmptyLines = false;
+            }
+            seenContent = false;
+            contentEnd = out.length();
+            lastWasCollapsedSpace = false;
+        }
+
+        if (c > ' ') {
+            out.append(c);
+            seenContent = true;
+            contentEnd = out.length();
+            lastWasCollapsedSpace = false;
+            if (chunkConsumer != null && contentEnd >= 2 * chunkSize) {
+                // Corte no meio da linha, só depois de um caractere visível: não há espaço pendente de trim
+                chunkConsumer.accept(out);
+                out.setLength(0);
+                contentEnd = 0;
+            }
+        } else if (!seenContent) {
+            // trim() à esquerda: descarta tudo que for <= ' ' antes do primeiro caractere visível
+        } else if (c == ' ' || c == '\t' || c == '\u000B' || c == '\f') {
+            if (!lastWasCollapsedSpace) {
+                out.append(' ');
+                lastWasCollapsedSpace = true;
+            }
+        } else {
+            out.append(c); // Caracteres de controle no meio da linha são preservados
+            lastWasCollapsedSpace = false;
+        }
+    }
+
+    private void endLine() {
+        if (!lineHasChars) {
+            pendingEmptyLines = true;
+            return;
+        }
+        out.setLength(contentEnd); // trim() à direita
+        if (seenContent) {
+            out.append('\n');
+            lastLineWasBlank = false;
+            if (chunkConsumer != null && out.length() > chunkSize) {
+                // A quebra fica no bloco seguinte, onde finish() ainda pode removê-la se for a última
+                out.setLength(out.length() - 1);
+                chunkConsumer.accept(out);
+                out.setLength(0);
+                out.append('\n');
+            }
+        } else {
+            appendBlankLine();
+        }
+        lineHasChars = false;
+    }
+
+    private void appendBlankLine() {
+        if (!lastLineWasBlank) {
+            out.append('\n'); // Adiciona uma única linha em branco
+            lastLineWasBlank = true;
+        }
+    }
+
+    private void finish() {
+        if (lineHasChars) {
+            endLine();
+        }
+        // Linhas vazias pendentes estão no fim do texto e são descartadas
+        if (out.length() > 0 && out.charAt(out.length() - 1) == '\n') {
+            out.setLength(out.length() - 1);
+        }
+    }
+}
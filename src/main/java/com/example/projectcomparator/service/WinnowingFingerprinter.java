@@ -0,0 +1,216 @@
+package com.example.projectcomparator.service;
+
+import java.util.Arrays;
+
+/**
+ * Impressões digitais por winnowing (Schleimer, Wilkerson e Aiken, usado pelo MOSS).
+ * Calcula o hash de cada k-grama de caracteres e, em cada janela de {@code window} hashes
+ * consecutivos, guarda o menor. Trechos copiados com pelo menos {@code k + window - 1}
+ * caracteres sempre produzem ao menos uma impressão em comum.
+ *
+ * <p>As impressões são devolvidas como {@code long[]} ordenado e sem repetições, o que permite
+ * comparar dois arquivos com uma interseção linear.</p>
+ */
+public class WinnowingFingerprinter {
+
+    private static final long[] EMPTY = new long[0];
+    private static final long BASE = 0x100000001B3L;
+
+    private final int k;
+    private final int window;
+    private final long basePowK; // BASE^(k-1), para remover o caractere que sai da janela
+
+    public WinnowingFingerprinter(int k, int window) {
+        if (k < 1 || window < 1) {
+            throw new IllegalArgumentException("k e window devem ser positivos");
+        }
+        this.k = k;
+        this.window = window;
+        long power = 1;
+        for (int i = 1; i < k; i++) {
+            power *= BASE;
+        }
+        this.basePowK = power;
+    }
+
+    public long[] fingerprint(CharSequence content) {
+        int length = content.length();
+        if (length == 0) {
+            return EMPTY;
+        }
+        if (length < k) {
+            return new long[] { CandidatePairSelector.mix64(content.toString().hashCode()) };
+        }
+
+        int gramCount = length - k + 1;
+        long[] selected = new long[gramCount];
+        int selectedCount = 0;
+
+        // Fila monotônica (posições com hashes crescentes) para o mínimo de cada janela em O(n)
+        long[] hashes = new long[Math.min(window, gramCount) + 1];
+        int[] queuePos = new int[gramCount];
+        int head = 0;
+        int tail = 0;
+        int lastSelectedPos = -1;
+
+        long rolling = 0;
+        for (int i = 0; i < length; i++) {
+            if (i >= k) {
+                rolling -= content.charAt(i - k) * basePowK;
+            }
+            rolling = rolling * BASE + content.charAt(i);
+            if (i < k - 1) {
+                continue;
+            }
+            int pos = i - k + 1;
+            long hash = CandidatePairSelector.mix64(rolling);
+            hashes[pos % hashes.length] = hash;
+
+            // Mantém o mínimo mais à direita: remove do fim todos os hashes >= ao novo
+            while (tail > head && hashes[queuePos[tail - 1] % hashes.length] >= hash) {
+                tail--;
+            }
+            queuePos[tail++] = pos;
+            while (queuePos[head] <= pos - window) {
+                head++;
+            }
+
+            if (pos >= window - 1 || pos == gramCount - 1) {
+                int minPos = queuePos[head];
+                if (minPos != lastSelectedPos) {
+                    selected[selectedCount++] = hashes[minPos % hashes.length];
+                    lastSelectedPos = minPos;
+                }
+            }
+        }
+
+        return sortedUnique(selected, selectedCount);
+    }
+
+    private static long[] sortedUnique(long[] selected, int selectedCount) {
+        long[] fingerprints = Arrays.copyOf(selected, selectedCount);
+        Arrays.sort(fingerprints);
+        int unique = 0;
+        for (int i = 0; i < fingerprints.length; i++) {
+            if (i == 0 || fingerprints[i] != fingerprints[i - 1]) {
+                fingerprints[unique++] = fingerprints[i];
+            }
+        }
+        return unique == fingerprints.length ? fingerprints : Arrays.copyOf(fingerprints, unique);
+    }
+
+    /** Novo cálculo incremental, para um texto entregue em partes (ver {@link Incremental}). */
+    public Incremental incremental() {
+        return new Incremental();
+    }
+
+    /**
+     * Calcula as mesmas impressões de {@link #fingerprint(CharSequence)} sobre a concatenação das partes
+     * recebidas, guardando só os últimos {@code k} caracteres e a janela atual de hashes: a memória não
+     * depende do tamanho do texto, só do número de impressões. Uso único: {@link #finish()} encerra o cálculo.
+     */
+    public final class Incremental implements TextNormalizer.ChunkConsumer {
+
+        private final char[] gram = new char[k];           // Últimos k caracteres, em anel
+        private final long[] hashes = new long[window + 1]; // Hashes das posições ainda na fila, em anel
+        private final int[] queuePos = new int[window + 1];
+        private long[] selected = new long[64];
+        private int selectedCount;
+        private int head;                                   // head e tail contam as posições que já passaram pela fila
+        private int tail;
+        private int lastSelectedPos = -1;
+        private int length;
+        private long rolling;
+        private int shortHash;                              // String.hashCode, para textos menores que k
+
+        private Incremental() {
+        }
+
+        public void append(CharSequence text) {
+            for (int i = 0, end = text.length(); i < end; i++) {
+                add(text.charAt(i));
+            }
+        }
+
+        @Override
+        public void accept(StringBuilder chunk) {
+            append(chunk);
+        }
+
+        private void add(char c) {
+            int i = length++;
+            if (i < k) {
+                shortHash = 31 * shortHash + c;
+            } else {
+                rolling -= gram[i % k] * basePowK;
+            }
+            gram[i % k] = c;
+            rolling = rolling * BASE + c;
+            if (i < k - 1) {
+                return;
+            }
+            int pos = i - k + 1;
+            long hash = CandidatePairSelector.mix64(rolling);
+            hashes[pos % hashes.length] = hash;
+
+            while (tail > head && hashes[queuePos[(tail - 1) % queuePos.length] % hashes.length] >= hash) {
+                tail--;
+            }
+            queuePos[tail++ % queuePos.length] = pos;
+            while (queuePos[head % queuePos.length] <= pos - window) {
+                head++;
+            }
+            if (pos >= window - 1) {
+                select();
+            }
+        }
+
+        private void select() {
+            int minPos = queuePos[head % queuePos.length];
+            if (minPos != lastSelectedPos) {
+                if (selectedCount == selected.length) {
+                    selected = Arrays.copyOf(selected, selectedCount * 2);
+                }
+                selected[selectedCount++] = hashes[minPos % hashes.length];
+                lastSelectedPos = minPos;
+            }
+        }
+
+        public long[] finish() {
+            if (length == 0) {
+                return EMPTY;
+            }
+            if (length < k) {
+                return new long[] { CandidatePairSelector.mix64(shortHash) };
+            }
+            if (length - k + 1 < window) {
+                select(); // Menos k-gramas que uma janela: o mínimo de todos, como na última posição de fingerprint()
+            }
+            return sortedUnique(selected, selectedCount);
+        }
+    }
+
+    /**
+     * Índice de Jaccard entre dois conjuntos de impressões ordenados, calculado por intercalação.
+     */
+    public static double similarity(long[] a, long[] b) {
+        if (a.length == 0 && b.length == 0) {
+            return 1.0;
+        }
+        int i = 0;
+        int j = 0;
+        int common = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) common / (a.length + b.length - common);
+    }
+}
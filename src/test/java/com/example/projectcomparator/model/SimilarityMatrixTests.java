@@ -0,0 +1,177 @@
+package com.example.projectcomparator.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class SimilarityMatrixTests {
+
+	private static SimilarityMatrix randomMatrix(int size, long seed) {
+		List<String> names = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			names.add("proj" + i);
+		}
+		SimilarityMatrix matrix = new SimilarityMatrix(names);
+		Random random = new Random(seed);
+		for (int i = 0; i < size; i++) {
+			for (int j = i + 1; j < size; j++) {
+				matrix.set(i, j, random.nextInt(20) * 5.0); // Valores repetidos para exercitar empates
+			}
+		}
+		return matrix;
+	}
+
+	@Test
+	void storesEachPairOnceAndSymmetrically() {
+		SimilarityMatrix matrix = new SimilarityMatrix(List.of("a", "b", "c"));
+		matrix.set("c", "a", 12.5);
+		matrix.set(1, 2, 80.0);
+
+		assertThat(matrix.get("a", "c")).isEqualTo(12.5);
+		assertThat(matrix.get(2, 0)).isEqualTo(12.5);
+		assertThat(matrix.get("c", "b")).isEqualTo(80.0);
+		assertThat(matrix.get(1, 1)).isEqualTo(100.0);
+		assertThat(matrix.get("a", "b")).isZero();
+		assertThat(matrix.indexOf("b")).isEqualTo(1);
+		assertThat(matrix.indexOf("x")).isEqualTo(-1);
+		assertThatThrownBy(() -> matrix.set(0, 0, 50.0)).isInstanceOf(IllegalArgumentException.class);
+
+		List<String> visited = new ArrayList<>();
+		matrix.forEachInRow(2, (column, similarity) -> visited.add(column + "=" + similarity));
+		assertThat(visited).containsExactly("0=12.5", "1=80.0");
+	}
+
+	@Test
+	void topKMatchesFullSort() {
+		SimilarityMatrix matrix = randomMatrix(40, 7);
+		for (int row = 0; row < matrix.size(); row++) {
+			int current = row;
+			List<Integer> expected = IntStream.range(0, matrix.size()).filter(col -> col != current).boxed()
+					.sorted(Comparator.comparingDouble((Integer col) -> -matrix.get(current, col)).thenComparingInt(col -> col))
+					.toList();
+			for (int k : new int[] { 1, 5, 39, 100 }) {
+				assertThat(matrix.topK(row, k)).containsExactly(expected.subList(0, Math.min(k, expected.size())).stream().mapToInt(Integer::intValue).toArray());
+			}
+		}
+		assertThat(new SimilarityMatrix(List.of("sozinho")).topK(0, 3)).isEmpty();
+	}
+
+	@Test
+	void topKRanksOnlyRealScores() {
+		SimilarityMatrix matrix = new SimilarityMatrix(List.of("a", "b", "c", "d", "e"));
+		matrix.set(0, 1, 30.0);
+		matrix.set(0, 2, 10.0);
+		matrix.setUpperBound(0, 3, 90.0); // Limite e estimativa maiores que qualquer score da linha
+		matrix.setEstimate(0, 4, 95.0);
+
+		assertThat(matrix.topK(0, 2)).containsExactly(1, 2);
+		assertThat(matrix.topK(0, 4)).containsExactly(1, 2);
+		assertThat(matrix.topK(3, 4)).containsExactly(1, 2, 4); // O par "d" x "a" só tem o limite
+	}
+
+	@Test
+	void roundTripsThroughBinaryFormat() throws IOException {
+		SimilarityMatrix matrix = randomMatrix(25, 11);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			matrix.writeTo(out);
+		}
+		// int + nomes + 4 bytes por par
+		assertThat(bytes.size()).isEqualTo(4 + IntStream.range(0, 25).map(i -> 2 + ("proj" + i).length()).sum() + 25 * 24 / 2 * 4);
+
+		SimilarityMatrix read = SimilarityMatrix.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+		assertThat(read).isEqualTo(matrix);
+		assertThat(read.getProjectNames()).isEqualTo(matrix.getProjectNames());
+	}
+
+	@Test
+	void upperBoundCellsKeepTheBoundAndSurviveRoundTrip() throws IOException {
+		SimilarityMatrix matrix = new SimilarityMatrix(List.of("a", "b", "c"));
+		matrix.set(0, 1, 0.0);
+		matrix.setUpperBound(0, 2, 0.0);
+		matrix.setUpperBound(2, 1, 12.5);
+
+		assertThat(matrix.isUpperBound(0, 1)).isFalse();
+		assertThat(matrix.isUpperBound(2, 0)).isTrue();
+		assertThat(matrix.upperBound(0, 2)).isZero();
+		assertThat(matrix.upperBound(1, 2)).isEqualTo(12.5);
+		assertThat(matrix.upperBound(0, 1)).isNaN();
+		// O limite não é um score: get() não o devolve, nem forEachInRow
+		assertThat(matrix.get(0, 2)).isNaN();
+		assertThat(matrix.get(1, 2)).isNaN();
+		assertThat(matrix.get(0, 1)).isZero();
+		List<Integer> columns = new ArrayList<>();
+		matrix.forEachInRow(0, (column, similarity) -> columns.add(column));
+		assertThat(columns).containsExactly(1);
+		assertThat(matrix.upperBoundCount()).isEqualTo(2);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			matrix.writeTo(out);
+		}
+		SimilarityMatrix read = SimilarityMatrix.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+		assertThat(read).isEqualTo(matrix);
+		assertThat(read.isUpperBound(0, 2)).isTrue();
+		assertThat(read.isUpperBound(0, 1)).isFalse();
+		assertThat(read.upperBound(1, 2)).isEqualTo(12.5);
+	}
+
+	@Test
+	void estimateCellsAreFlaggedApartFromScoresAndBounds() throws IOException {
+		SimilarityMatrix matrix = new SimilarityMatrix(List.of("a", "b", "c", "d"));
+		matrix.set(0, 1, 100.0);
+		matrix.setUpperBound(0, 2, 12.5);
+		matrix.setEstimate(3, 0, 0.0);
+		matrix.setEstimate(1, 2, 37.5);
+
+		assertThat(matrix.isEstimate(0, 3)).isTrue();
+		assertThat(matrix.isEstimate(0, 1)).isFalse();
+		assertThat(matrix.isEstimate(0, 2)).isFalse();
+		assertThat(matrix.isUpperBound(1, 2)).isFalse();
+		assertThat(matrix.estimate(0, 3)).isZero();
+		assertThat(matrix.estimate(2, 1)).isEqualTo(37.5);
+		assertThat(matrix.estimate(0, 1)).isNaN();
+		assertThat(matrix.estimate(0, 2)).isNaN();
+		assertThat(matrix.get(0, 3)).isNaN();
+		assertThat(matrix.get(2, 1)).isNaN();
+		assertThat(matrix.get(0, 1)).isEqualTo(100.0);
+		assertThat(matrix.estimateCount()).isEqualTo(2);
+		assertThat(matrix.upperBoundCount()).isEqualTo(1);
+		List<Double> row = new ArrayList<>();
+		matrix.forEachInRow(1, (column, similarity) -> row.add(similarity));
+		assertThat(row).containsExactly(100.0, 0.0); // A estimativa da coluna 2 fica de fora
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			matrix.writeTo(out);
+		}
+		SimilarityMatrix read = SimilarityMatrix.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+		assertThat(read.isEstimate(1, 2)).isTrue();
+		assertThat(read.estimate(1, 2)).isEqualTo(37.5);
+	}
+
+	@Test
+	void cellIndexStaysInRangeForTheLargestSupportedMatrix() {
+		int size = 65_000; // pairCount ainda cabe em um int, mas row * (2 * size - row - 1) não
+		int pairs = SimilarityMatrix.pairCount(size);
+
+		assertThat(SimilarityMatrix.cellIndex(0, 1, size)).isZero();
+		assertThat(SimilarityMatrix.cellIndex(size - 1, size - 2, size)).isEqualTo(pairs - 1);
+		for (int row : new int[] { 32_768, 40_000, 64_000 }) {
+			long expected = (long) row * size - (long) row * (row + 1) / 2; // Pares das linhas anteriores
+			assertThat(SimilarityMatrix.cellIndex(row, row + 1, size)).isEqualTo(expected).isBetween(0, pairs - 1);
+		}
+	}
+}
@@ -0,0 +1,204 @@
+package com.example.projectcomparator.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.example.projectcomparator.config.ComparatorProperties;
+import com.example.projectcomparator.model.FileInfo;
+import com.example.projectcomparator.model.Project;
+
+class CandidatePairSelectorTests {
+
+	private static final FileTime TIME = FileTime.fromMillis(1_700_000_000_000L);
+
+	@TempDir
+	Path tempDir;
+
+	// Linhas de código "aleatórias", mas determinísticas, para que sementes diferentes quase não compartilhem shingles
+	private static List<String> lines(long seed, int count) {
+		Random random = new Random(seed);
+		List<String> lines = new ArrayList<>();
+		for (int line = 0; line < count; line++) {
+			StringBuilder text = new StringBuilder("int v").append(random.nextInt(1_000_000)).append(" = ");
+			for (int c = 0; c < 16; c++) {
+				text.append((char) ('a' + random.nextInt(26)));
+			}
+			lines.add(text.append(";").toString());
+		}
+		return lines;
+	}
+
+	private Project project(String name, List<String> lines) throws IOException {
+		Path root = Files.createDirectories(tempDir.resolve(name));
+		Map<String, FileInfo> files = new LinkedHashMap<>();
+		int perFile = Math.max(1, lines.size() / 4);
+		for (int f = 0; f * perFile < lines.size(); f++) {
+			String relativePath = "src/File" + f + ".java";
+			Path file = Files.createDirectories(root.resolve("src")).resolve("File" + f + ".java");
+			Files.writeString(file, String.join("\n", lines.subList(f * perFile, Math.min(lines.size(), (f + 1) * perFile))));
+			files.put(relativePath, new FileInfo(relativePath, file, Files.size(file), null, TIME, TIME));
+		}
+		return new Project(name, root, files);
+	}
+
+	// Troca as últimas 'changed' linhas por linhas de outra semente
+	private static List<String> edited(List<String> lines, int changed, long seed) {
+		List<String> edited = new ArrayList<>(lines.subList(0, lines.size() - changed));
+		edited.addAll(lines(seed, changed));
+		return edited;
+	}
+
+	/** Conjunto de shingles de referência: k-gramas do texto normalizado de cada arquivo e os caminhos. */
+	private static Set<String> shingles(Project project, int k) throws IOException {
+		Set<String> shingles = new HashSet<>();
+		for (FileInfo file : project.getFiles().values()) {
+			shingles.add("caminho:" + file.getRelativePath());
+			String text = TextNormalizer.normalize(Files.readString(file.getAbsolutePath()));
+			if (text.length() <= k) {
+				shingles.add(text);
+			}
+			for (int i = 0; i + k <= text.length() && text.length() > k; i++) {
+				shingles.add(text.substring(i, i + k));
+			}
+		}
+		return shingles;
+	}
+
+	private static double jaccard(Set<String> a, Set<String> b) {
+		Set<String> common = new HashSet<>(a);
+		common.retainAll(b);
+		return (double) common.size() / (a.size() + b.size() - common.size());
+	}
+
+	private static ProjectComparerService service(ComparatorProperties properties) {
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		return new ProjectComparerService(properties, new FingerprintIndex(properties), new FileAccess(properties, meterRegistry), meterRegistry);
+	}
+
+	@Test
+	void signaturesAreStreamedWithoutFillingTheContentCache() throws IOException {
+		List<Project> projects = List.of(project("a", lines(1, 200)), project("b", lines(1, 180)), project("c", lines(2, 200)),
+				project("curto", List.of("x=1")));
+
+		ComparatorProperties properties = new ComparatorProperties();
+		properties.getLsh().setEnabled(true);
+		ProjectComparerService service = service(properties);
+		CandidatePairSelector.CandidatePairs whole = new CandidatePairSelector(service, properties).selectCandidates(projects);
+
+		assertThat(service.getContentCacheStatistics().entries()).isZero();
+		assertThat(service.getContentCacheStatistics().misses()).isZero();
+
+		// Blocos minúsculos: os k-gramas que atravessam a fronteira entre blocos continuam os mesmos
+		ComparatorProperties tinyChunks = new ComparatorProperties();
+		tinyChunks.getLsh().setEnabled(true);
+		tinyChunks.getSimilarity().setChunkSize(5);
+		CandidatePairSelector.CandidatePairs chunked = new CandidatePairSelector(service(tinyChunks), tinyChunks).selectCandidates(projects);
+		// As assinaturas seguem o executor do motor; o resultado não depende dele
+		ComparatorProperties virtual = new ComparatorProperties();
+		virtual.getLsh().setEnabled(true);
+		virtual.getEngine().setExecutor(ComparatorProperties.Engine.ExecutorType.VIRTUAL_THREADS);
+		virtual.getEngine().setParallelism(2);
+		CandidatePairSelector.CandidatePairs onVirtualThreads = new CandidatePairSelector(service(virtual), virtual).selectCandidates(projects);
+		for (int i = 0; i < projects.size(); i++) {
+			for (int j = i + 1; j < projects.size(); j++) {
+				assertThat(chunked.estimatedSimilarity(i, j)).isEqualTo(whole.estimatedSimilarity(i, j));
+				assertThat(chunked.isCandidate(i, j)).isEqualTo(whole.isCandidate(i, j));
+				assertThat(onVirtualThreads.estimatedSimilarity(i, j)).isEqualTo(whole.estimatedSimilarity(i, j));
+				assertThat(onVirtualThreads.isCandidate(i, j)).isEqualTo(whole.isCandidate(i, j));
+			}
+		}
+	}
+
+	@Test
+	void identicalAndNearIdenticalProjectsAreAlwaysCandidates() throws IOException {
+		List<String> base = lines(1, 200);
+		List<Project> projects = new ArrayList<>();
+		projects.add(project("original", base));
+		projects.add(project("copia", base));
+		projects.add(project("quase", edited(base, 10, 50))); // 5% das linhas trocadas
+		for (int p = 0; p < 10; p++) {
+			projects.add(project("outro" + p, lines(100 + p, 200)));
+		}
+
+		ComparatorProperties properties = new ComparatorProperties();
+		properties.getLsh().setEnabled(true);
+		CandidatePairSelector.CandidatePairs pairs = new CandidatePairSelector(service(properties), properties).selectCandidates(projects);
+
+		assertThat(pairs.isCandidate(0, 1)).isTrue();
+		assertThat(pairs.estimatedSimilarity(0, 1)).isEqualTo(100.0);
+		assertThat(pairs.isCandidate(0, 2)).isTrue();
+		assertThat(pairs.isCandidate(2, 1)).isTrue();
+	}
+
+	@Test
+	void disjointProjectsAreNotCandidates() throws IOException {
+		List<Project> projects = new ArrayList<>();
+		for (int p = 0; p < 12; p++) {
+			projects.add(project("proj" + p, lines(200 + p, 200)));
+		}
+
+		ComparatorProperties properties = new ComparatorProperties();
+		properties.getLsh().setEnabled(true);
+		CandidatePairSelector.CandidatePairs pairs = new CandidatePairSelector(service(properties), properties).selectCandidates(projects);
+
+		// Só os caminhos e k-gramas genéricos (";\nint v1", ...) são comuns: Jaccard baixo, longe das bandas
+		assertThat(pairs.pairCount()).isEqualTo(66);
+		assertThat(pairs.candidateCount()).isZero();
+		for (int i = 0; i < projects.size(); i++) {
+			for (int j = i + 1; j < projects.size(); j++) {
+				assertThat(pairs.estimatedSimilarity(i, j)).isLessThan(15.0);
+			}
+		}
+	}
+
+	@Test
+	void estimatedSimilarityTracksTheJaccardOfTheShingles() throws IOException {
+		List<String> base = lines(1, 200);
+		List<Project> projects = new ArrayList<>();
+		projects.add(project("base", base));
+		for (int changed : new int[] { 20, 60, 100, 140, 180 }) {
+			projects.add(project("troca" + changed, edited(base, changed, changed)));
+		}
+
+		ComparatorProperties properties = new ComparatorProperties();
+		properties.getLsh().setEnabled(true);
+		ComparatorProperties.Lsh lsh = properties.getLsh();
+		int numHashes = lsh.getBands() * lsh.getRows();
+		CandidatePairSelector.CandidatePairs pairs = new CandidatePairSelector(service(properties), properties).selectCandidates(projects);
+
+		// Erro padrão do MinHash: sqrt(s(1 - s) / numHashes) <= 0.5 / sqrt(numHashes); tolerância de 3 desvios
+		double tolerance = 100.0 * 3 * 0.5 / Math.sqrt(numHashes);
+		List<Set<String>> shingles = new ArrayList<>();
+		for (Project project : projects) {
+			shingles.add(shingles(project, lsh.getShingleSize()));
+		}
+		double totalError = 0;
+		for (int i = 0; i < projects.size(); i++) {
+			for (int j = i + 1; j < projects.size(); j++) {
+				double expected = 100.0 * jaccard(shingles.get(i), shingles.get(j));
+				assertThat(pairs.estimatedSimilarity(i, j)).as("%s x %s", projects.get(i).getName(), projects.get(j).getName())
+						.isCloseTo(expected, within(tolerance));
+				totalError += Math.abs(pairs.estimatedSimilarity(i, j) - expected);
+			}
+		}
+		// Na média o erro fica bem abaixo da tolerância de cada par
+		assertThat(totalError / pairs.pairCount()).isLessThan(tolerance / 2);
+	}
+}
@@ -0,0 +1,159 @@
+package com.example.projectcomparator.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.example.projectcomparator.config.ComparatorProperties;
+import com.example.projectcomparator.model.FileInfo;
+import com.example.projectcomparator.model.Project;
+
+class ChunkedFingerprintsTests {
+
+	private static final FileTime TIME = FileTime.fromMillis(1_700_000_000_000L);
+
+	@TempDir
+	Path tempDir;
+
+	private static List<String> sections(long seed, int count) {
+		Random random = new Random(seed);
+		List<String> sections = new ArrayList<>();
+		for (int s = 0; s < count; s++) {
+			StringBuilder section = new StringBuilder();
+			for (int line = 0; line < 60; line++) {
+				section.append("var v").append(random.nextInt(1_000_000)).append(" = \"");
+				for (int c = 0; c < 20; c++) {
+					section.append((char) ('a' + random.nextInt(26)));
+				}
+				section.append("\";\n");
+			}
+			sections.add(section.toString());
+		}
+		return sections;
+	}
+
+	private static ChunkedFingerprints chunked(String content, int chunkSize) throws IOException {
+		WinnowingFingerprinter fingerprinter = new WinnowingFingerprinter(12, 8);
+		List<long[]> chunks = new ArrayList<>();
+		new TextNormalizer(new StringBuilder()).normalizeChunks(ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)),
+				StandardCharsets.UTF_8.newDecoder(), chunkSize, chunk -> chunks.add(fingerprinter.fingerprint(chunk)));
+		return ChunkedFingerprints.of(chunks);
+	}
+
+	@Test
+	void reorderedSectionsStillAlign() throws IOException {
+		List<String> sections = sections(1, 8);
+		String original = String.join("", sections);
+		List<String> reordered = new ArrayList<>(sections.subList(4, 8));
+		reordered.addAll(sections.subList(0, 4));
+		String unrelated = String.join("", sections(2, 8));
+
+		ChunkedFingerprints a = chunked(original, 1024);
+		assertThat(a.chunkCount()).isGreaterThan(8);
+		assertThat(ChunkedFingerprints.similarity(a, chunked(original, 1024))).isEqualTo(1.0);
+		assertThat(ChunkedFingerprints.similarity(a, chunked(String.join("", reordered), 1024))).isGreaterThan(0.9);
+		assertThat(ChunkedFingerprints.similarity(a, chunked(unrelated, 1024))).isLessThan(0.05);
+
+		ChunkedFingerprints empty = ChunkedFingerprints.of(List.of());
+		assertThat(ChunkedFingerprints.similarity(empty, empty)).isEqualTo(1.0);
+		assertThat(ChunkedFingerprints.similarity(a, empty)).isEqualTo(0.0);
+	}
+
+	@Test
+	void largeFilesAreComparedByChunksWithoutCachingTheirText() throws IOException {
+		List<String> sections = sections(3, 12);
+		String original = String.join("", sections);
+		List<String> edited = new ArrayList<>(sections);
+		edited.set(5, sections(4, 1).get(0)); // Um trecho reescrito
+		Path a = Files.writeString(tempDir.resolve("a.js"), original);
+		Path b = Files.writeString(tempDir.resolve("b.js"), String.join("", edited));
+		Project p1 = new Project("p1", tempDir, Map.of("app.js", new FileInfo("app.js", a, Files.size(a), "a", TIME, TIME)));
+		Project p2 = new Project("p2", tempDir, Map.of("app.js", new FileInfo("app.js", b, Files.size(b), "b", TIME, TIME)));
+
+		ComparatorProperties properties = new ComparatorProperties();
+		properties.getSimilarity().setStrategy(ComparatorProperties.Similarity.Strategy.WINNOWING);
+		properties.getSimilarity().setChunkThreshold(DataSize.ofKilobytes(8));
+		properties.getSimilarity().setChunkSize(2048);
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		ProjectComparerService chunkedService = new ProjectComparerService(properties, new FingerprintIndex(properties),
+				new FileAccess(properties, meterRegistry), meterRegistry);
+		double chunked = chunkedService.compareProjects(p1, p2).getSimilarityPercentage();
+
+		assertThat(meterRegistry.get("comparator.files.chunked").counter().count()).isEqualTo(1.0);
+		assertThat(chunkedService.getContentCacheStatistics().usedBytes()).isZero();
+		assertThat(chunkedService.getFingerprintCacheStatistics().usedBytes()).isZero();
+		assertThat(meterRegistry.get("comparator.cache.size").tag("cache", "chunk").gauge().value()).isPositive();
+
+		// Com um trecho de 12 reescrito, o score fica perto do winnowing sobre o arquivo inteiro
+		ComparatorProperties wholeFile = new ComparatorProperties();
+		wholeFile.getSimilarity().setStrategy(ComparatorProperties.Similarity.Strategy.WINNOWING);
+		wholeFile.getSimilarity().setChunkThreshold(DataSize.ofBytes(0));
+		SimpleMeterRegistry wholeRegistry = new SimpleMeterRegistry();
+		double whole = new ProjectComparerService(wholeFile, new FingerprintIndex(wholeFile),
+				new FileAccess(wholeFile, wholeRegistry), wholeRegistry).compareProjects(p1, p2).getSimilarityPercentage();
+		assertThat(chunked).isLessThan(100.0).isCloseTo(whole, within(5.0));
+	}
+
+	@Test
+	void jaroWinklerAlwaysComparesTheWholeText() throws IOException {
+		List<String> sections = sections(6, 12);
+		List<String> edited = new ArrayList<>(sections);
+		edited.set(5, sections(7, 1).get(0));
+		Path a = Files.writeString(tempDir.resolve("a.js"), String.join("", sections));
+		Path b = Files.writeString(tempDir.resolve("b.js"), String.join("", edited));
+		Project p1 = new Project("p1", tempDir, Map.of("app.js", new FileInfo("app.js", a, Files.size(a), "a", TIME, TIME)));
+		Project p2 = new Project("p2", tempDir, Map.of("app.js", new FileInfo("app.js", b, Files.size(b), "b", TIME, TIME)));
+
+		// Padrão: JARO_WINKLER; o limite de blocos não muda o score
+		ComparatorProperties properties = new ComparatorProperties();
+		properties.getSimilarity().setChunkThreshold(DataSize.ofKilobytes(8));
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		double withThreshold = new ProjectComparerService(properties, new FingerprintIndex(properties),
+				new FileAccess(properties, meterRegistry), meterRegistry).compareProjects(p1, p2).getSimilarityPercentage();
+
+		ComparatorProperties noChunks = new ComparatorProperties();
+		noChunks.getSimilarity().setChunkThreshold(DataSize.ofBytes(0));
+		SimpleMeterRegistry noChunksRegistry = new SimpleMeterRegistry();
+		double withoutThreshold = new ProjectComparerService(noChunks, new FingerprintIndex(noChunks),
+				new FileAccess(noChunks, noChunksRegistry), noChunksRegistry).compareProjects(p1, p2).getSimilarityPercentage();
+
+		assertThat(meterRegistry.get("comparator.files.chunked").counter().count()).isZero();
+		assertThat(withThreshold).isEqualTo(withoutThreshold);
+	}
+
+	@Test
+	void wholeFileFingerprintsOfLargeFilesAreBuiltFromTheChunks() throws IOException {
+		String content = String.join("", sections(5, 12)) + "x".repeat(20_000); // Termina em uma linha bem maior que o bloco
+		Path file = Files.writeString(tempDir.resolve("dump.sql"), content);
+		FileInfo fileInfo = new FileInfo("dump.sql", file, Files.size(file), "h", TIME, TIME);
+
+		ComparatorProperties properties = new ComparatorProperties();
+		properties.getSimilarity().setChunkThreshold(DataSize.ofKilobytes(8));
+		properties.getSimilarity().setChunkSize(1024);
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		ProjectComparerService service = new ProjectComparerService(properties, new FingerprintIndex(properties),
+				new FileAccess(properties, meterRegistry), meterRegistry);
+
+		// Impressões usadas pelo corpus de referência: iguais às do texto inteiro, mas sem passar pelo cache de conteúdo
+		WinnowingFingerprinter fingerprinter = new WinnowingFingerprinter(properties.getSimilarity().getKgramSize(),
+				properties.getSimilarity().getWindowSize());
+		assertThat(service.getFingerprints(fileInfo)).containsExactly(fingerprinter.fingerprint(TextNormalizer.normalize(content)));
+		assertThat(service.getContentCacheStatistics().misses()).isZero();
+	}
+}
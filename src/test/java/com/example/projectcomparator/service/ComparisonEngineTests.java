@@ -0,0 +1,205 @@
+package com.example.projectcomparator.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.example.projectcomparator.config.ComparatorProperties;
+import com.example.projectcomparator.model.FileInfo;
+import com.example.projectcomparator.model.NearestNeighbours;
+import com.example.projectcomparator.model.Project;
+import com.example.projectcomparator.model.SimilarityMatrix;
+
+class ComparisonEngineTests {
+
+	@TempDir
+	Path tempDir;
+
+	private List<Project> createProjects(int count) throws IOException {
+		List<Project> projects = new ArrayList<>();
+		FileTime time = FileTime.fromMillis(1_700_000_000_000L);
+		for (int p = 0; p < count; p++) {
+			Path root = Files.createDirectories(tempDir.resolve("proj" + p));
+			Map<String, FileInfo> files = new LinkedHashMap<>();
+			for (int f = 0; f < 4; f++) {
+				String relativePath = "src/File" + f + ".java";
+				Path file = root.resolve(relativePath);
+				Files.createDirectories(file.getParent());
+				String body = (p % 3 == 0 && f < 2) ? "class Shared" + f + " { int x; }" : "class P" + p + "F" + f + " { int y" + p + "; }";
+				Files.writeString(file, body);
+				files.put(relativePath, new FileInfo(relativePath, file, Files.size(file), null, time, FileTime.fromMillis(time.toMillis() + (p % 2) * 1000L)));
+			}
+			projects.add(new Project("proj" + p, root, files));
+		}
+		return projects;
+	}
+
+	/**
+	 * Pares de projetos gêmeos; cada par tem arquivos extras em caminhos próprios, o que baixa o limite
+	 * superior contra os outros pares.
+	 */
+	private List<Project> createTwinProjects() throws IOException {
+		List<Project> projects = new ArrayList<>();
+		FileTime time = FileTime.fromMillis(1_700_000_000_000L);
+		for (int p = 0; p < 12; p++) {
+			int twin = p / 2;
+			Path root = Files.createDirectories(tempDir.resolve("proj" + p));
+			Map<String, FileInfo> files = new LinkedHashMap<>();
+			for (int f = 0; f < 4 + twin % 3 * 2; f++) {
+				String relativePath = f < 4 ? "src/File" + f + ".java" : "t" + twin + "/Extra" + f + ".java";
+				Path file = root.resolve(relativePath);
+				Files.createDirectories(file.getParent());
+				Files.writeString(file, "class T" + twin + "F" + f + " { int v = " + (twin * 37 + f) + "; }");
+				files.put(relativePath, new FileInfo(relativePath, file, Files.size(file), null, time, time));
+			}
+			projects.add(new Project("proj" + p, root, files));
+		}
+		return projects;
+	}
+
+	private SimilarityMatrix sequentialMatrix(ProjectComparerService service, List<String> names, Map<String, Project> projectMap) {
+		SimilarityMatrix matrix = new SimilarityMatrix(names);
+		for (int i = 0; i < names.size(); i++) {
+			for (int j = i + 1; j < names.size(); j++) {
+				matrix.set(i, j, service.compareProjects(projectMap.get(names.get(i)), projectMap.get(names.get(j))).getSimilarityPercentage());
+			}
+		}
+		return matrix;
+	}
+
+	@Test
+	void parallelMatrixMatchesSequentialLoop() throws IOException {
+		List<Project> projects = createProjects(9);
+		List<String> names = projects.stream().map(Project::getName).sorted().collect(Collectors.toList());
+		Map<String, Project> projectMap = projects.stream().collect(Collectors.toMap(Project::getName, Function.identity()));
+
+		ComparatorProperties properties = new ComparatorProperties();
+		properties.getEngine().setBlockPairs(2);
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		FileAccess fileAccess = new FileAccess(properties, meterRegistry);
+		ProjectComparerService service = new ProjectComparerService(properties, new FingerprintIndex(properties), fileAccess, meterRegistry);
+		SimilarityMatrix expected = sequentialMatrix(service, names, projectMap);
+
+		for (ComparatorProperties.Engine.ExecutorType type : ComparatorProperties.Engine.ExecutorType.values()) {
+			properties.getEngine().setExecutor(type);
+			ComparisonEngine engine = new ComparisonEngine(service, new CandidatePairSelector(service, properties),
+					new ProgressReporter(properties, fileAccess), properties, meterRegistry);
+			assertThat(engine.computeSimilarityMatrix(names, projectMap)).isEqualTo(expected);
+		}
+	}
+
+	@Test
+	void nearestNeighboursMatchTopKOfFullMatrix() throws IOException {
+		List<Project> projects = createTwinProjects();
+		List<String> names = projects.stream().map(Project::getName).sorted().collect(Collectors.toList());
+		Map<String, Project> projectMap = projects.stream().collect(Collectors.toMap(Project::getName, Function.identity()));
+
+		for (boolean crossPath : new boolean[] { false, true }) {
+			ComparatorProperties properties = new ComparatorProperties();
+			properties.getSimilarity().setCrossPathMatching(crossPath);
+			SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+			FileAccess fileAccess = new FileAccess(properties, meterRegistry);
+			ProjectComparerService service = new ProjectComparerService(properties, new FingerprintIndex(properties), fileAccess, meterRegistry);
+			ComparisonEngine engine = new ComparisonEngine(service, new CandidatePairSelector(service, properties),
+					new ProgressReporter(properties, fileAccess), properties, meterRegistry);
+			SimilarityMatrix matrix = engine.computeSimilarityMatrix(names, projectMap);
+
+			for (int k : new int[] { 1, 3, 20 }) {
+				NearestNeighbours neighbours = engine.computeNearestNeighbours(names, projectMap, k);
+				for (int row = 0; row < names.size(); row++) {
+					assertThat(neighbours.neighbours(row)).as("linha %d, k = %d, crossPath = %s", row, k, crossPath)
+							.containsExactly(matrix.topK(row, k));
+					for (int rank = 0; rank < neighbours.neighbourCount(row); rank++) {
+						assertThat(neighbours.similarity(row, rank)).isEqualTo(matrix.get(row, neighbours.neighbour(row, rank)));
+					}
+				}
+			}
+			assertThat(meterRegistry.get("comparator.pairs.pruned").counter().count()).isPositive();
+		}
+	}
+
+	@Test
+	void thresholdPruningOnlySkipsPairsWhoseBoundIsBelowThreshold() throws IOException {
+		List<Project> projects = createTwinProjects();
+		List<String> names = projects.stream().map(Project::getName).sorted().collect(Collectors.toList());
+		Map<String, Project> projectMap = projects.stream().collect(Collectors.toMap(Project::getName, Function.identity()));
+		double threshold = 60.0;
+
+		for (boolean crossPath : new boolean[] { false, true }) {
+			ComparatorProperties properties = new ComparatorProperties();
+			properties.getSimilarity().setCrossPathMatching(crossPath);
+			SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+			FileAccess fileAccess = new FileAccess(properties, meterRegistry);
+			ProjectComparerService service = new ProjectComparerService(properties, new FingerprintIndex(properties), fileAccess, meterRegistry);
+			ComparisonEngine engine = new ComparisonEngine(service, new CandidatePairSelector(service, properties),
+					new ProgressReporter(properties, fileAccess), properties, meterRegistry);
+
+			SimilarityMatrix exact = engine.computeSimilarityMatrix(names, projectMap);
+			SimilarityMatrix pruned = engine.computeSimilarityMatrix(names, projectMap, null, null, threshold);
+
+			assertThat(pruned.upperBoundCount()).isPositive();
+			assertThat(meterRegistry.get("comparator.pairs.pruned").counter().count()).isEqualTo(pruned.upperBoundCount());
+			for (int i = 0; i < names.size(); i++) {
+				for (int j = i + 1; j < names.size(); j++) {
+					if (pruned.isUpperBound(i, j)) {
+						assertThat(pruned.get(i, j)).isNaN();
+						assertThat(pruned.upperBound(i, j)).isLessThan(threshold).isGreaterThanOrEqualTo(exact.get(i, j));
+					} else {
+						assertThat(pruned.get(i, j)).isEqualTo(exact.get(i, j));
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	void pairsOutsideTheLshCandidatesAreStoredAsEstimates() throws IOException {
+		List<Project> projects = createTwinProjects();
+		List<String> names = projects.stream().map(Project::getName).sorted().collect(Collectors.toList());
+		Map<String, Project> projectMap = projects.stream().collect(Collectors.toMap(Project::getName, Function.identity()));
+		Map<String, String> digests = projects.stream().collect(Collectors.toMap(Project::getName, SimilarityMatrixStore::digest));
+
+		ComparatorProperties properties = new ComparatorProperties();
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		FileAccess fileAccess = new FileAccess(properties, meterRegistry);
+		ProjectComparerService service = new ProjectComparerService(properties, new FingerprintIndex(properties), fileAccess, meterRegistry);
+		SimilarityMatrix exact = sequentialMatrix(service, names, projectMap);
+		properties.getLsh().setEnabled(true);
+		ComparisonEngine engine = new ComparisonEngine(service, new CandidatePairSelector(service, properties),
+				new ProgressReporter(properties, fileAccess), properties, meterRegistry);
+
+		SimilarityMatrix matrix = engine.computeSimilarityMatrix(names, projectMap);
+
+		assertThat(matrix.estimateCount()).isPositive();
+		assertThat(meterRegistry.get("comparator.pairs.estimated").counter().count()).isEqualTo(matrix.estimateCount());
+		SimilarityMatrixStore store = new SimilarityMatrixStore(properties);
+		Path matrixFile = tempDir.resolve("matriz.bin");
+		store.save(matrixFile, matrix, digests);
+		SimilarityMatrixStore.PreviousScores previous = store.load(matrixFile);
+		for (int i = 0; i < names.size(); i++) {
+			for (int j = i + 1; j < names.size(); j++) {
+				Double reused = previous.find(names.get(i), digests.get(names.get(i)), names.get(j), digests.get(names.get(j)));
+				if (matrix.isEstimate(i, j)) {
+					assertThat(reused).isNull(); // A estimativa não é um score e é recalculada
+				} else {
+					assertThat(matrix.get(i, j)).isEqualTo(exact.get(i, j));
+					assertThat(reused).isEqualTo(exact.get(i, j));
+				}
+			}
+		}
+	}
+}
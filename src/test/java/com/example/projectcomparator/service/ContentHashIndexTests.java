@@ -0,0 +1,113 @@
+package com.example.projectcomparator.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.example.projectcomparator.config.ComparatorProperties;
+import com.example.projectcomparator.model.ComparisonResult;
+import com.example.projectcomparator.model.FileInfo;
+import com.example.projectcomparator.model.Project;
+import com.example.projectcomparator.model.SimilarityMatrix;
+
+class ContentHashIndexTests {
+
+	private static final FileTime TIME = FileTime.fromMillis(1_700_000_000_000L);
+
+	@TempDir
+	Path tempDir;
+
+	private Project project(String name, Map<String, String> contents) throws IOException {
+		Path root = Files.createDirectories(tempDir.resolve(name));
+		Map<String, FileInfo> files = new LinkedHashMap<>();
+		for (Map.Entry<String, String> entry : contents.entrySet()) {
+			Path file = root.resolve(entry.getKey());
+			Files.createDirectories(file.getParent());
+			Files.writeString(file, entry.getValue());
+			// O índice só compara os hashes entre si; qualquer hash determinístico do conteúdo serve
+			String hash = Integer.toHexString(entry.getValue().hashCode());
+			files.put(entry.getKey(), new FileInfo(entry.getKey(), file, Files.size(file), hash, TIME, TIME));
+		}
+		return new Project(name, root, files);
+	}
+
+	@Test
+	void indexKeepsOnlyNonEmptyHashesSharedByTwoProjects() throws IOException {
+		Project a = project("a", Map.of("src/Main.java", "class Main {}", "src/Only.java", "class Only {}", "vazio.txt", ""));
+		Project b = project("b", Map.of("outro/Main.java", "class Main {}", "vazio.txt", ""));
+
+		ContentHashIndex index = ContentHashIndex.build(List.of(a, b));
+
+		assertThat(index.hashCount()).isEqualTo(1);
+		assertThat(index.postingCount()).isEqualTo(2);
+		String mainHash = a.getFiles().get("src/Main.java").getContentHash();
+		assertThat(index.find(mainHash, b)).extracting(FileInfo::getRelativePath).containsExactly("outro/Main.java");
+		assertThat(index.find(mainHash, a)).extracting(FileInfo::getRelativePath).containsExactly("src/Main.java");
+		assertThat(index.find(a.getFiles().get("src/Only.java").getContentHash(), b)).isEmpty();
+		assertThat(index.find(a.getFiles().get("vazio.txt").getContentHash(), b)).isEmpty();
+	}
+
+	@Test
+	void movedFileIsMatchedAcrossPaths() throws IOException {
+		Project a = project("a", Map.of("src/Main.java", "class Main { int x; }", "src/Util.java", "class Util { int y; }"));
+		Project b = project("b", Map.of("src/Main.java", "class Main { int x; }", "lib/Util2.java", "class Util { int y; }"));
+		ComparatorProperties properties = new ComparatorProperties();
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		ProjectComparerService service = new ProjectComparerService(properties, new FingerprintIndex(properties),
+				new FileAccess(properties, meterRegistry), meterRegistry);
+
+		ContentHashIndex index = ContentHashIndex.build(List.of(a, b));
+		ComparisonResult byPath = service.compareProjects(a, b);
+		ComparisonResult withIndex = service.compareProjects(a, b, index);
+
+		assertThat(byPath.getCrossPathMatches()).isEmpty();
+		assertThat(withIndex.getCrossPathMatches())
+				.containsExactly(new ComparisonResult.CrossPathMatch("src/Util.java", "lib/Util2.java"));
+		assertThat(withIndex.getSimilarityPercentage()).isEqualTo(100.0);
+		assertThat(byPath.getSimilarityPercentage()).isLessThan(withIndex.getSimilarityPercentage());
+		assertThat(withIndex.isExactCopy()).isFalse();
+		assertThat(meterRegistry.get("comparator.files.cross-path").counter().count()).isEqualTo(1.0);
+		// Sem o índice, o arquivo movido conta como dois caminhos exclusivos no limite superior
+		assertThat(ProjectComparerService.similarityUpperBound(a, b, null)).isCloseTo(100.0 / 3, within(1e-9));
+		assertThat(ProjectComparerService.similarityUpperBound(a, b, index)).isGreaterThanOrEqualTo(withIndex.getSimilarityPercentage());
+	}
+
+	@Test
+	void engineKeepsTheMovedFilesOfPairsAboveTheThreshold() throws IOException {
+		Project a = project("a", Map.of("src/Main.java", "class Main { int x; }", "src/Util.java", "class Util { int y; }"));
+		Project b = project("b", Map.of("src/Main.java", "class Main { int x; }", "lib/Util2.java", "class Util { int y; }"));
+		Project c = project("c", Map.of("outro/Util.java", "class Util { int y; }", "src/Other.java", "class Other { long z; }",
+				"src/More.java", "class More { char w; }"));
+		ComparatorProperties properties = new ComparatorProperties();
+		properties.getEngine().setPruneBelowThreshold(false); // O par (a, c) precisa ser comparado
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		FileAccess fileAccess = new FileAccess(properties, meterRegistry);
+		ProjectComparerService service = new ProjectComparerService(properties, new FingerprintIndex(properties), fileAccess, meterRegistry);
+		ComparisonEngine engine = new ComparisonEngine(service, new CandidatePairSelector(service, properties),
+				new ProgressReporter(properties, fileAccess), properties, meterRegistry);
+
+		SimilarityMatrix matrix = engine.computeSimilarityMatrix(List.of("a", "b", "c"), Map.of("a", a, "b", b, "c", c), null, null, 50.0);
+
+		ComparisonResult.CrossPathMatch moved = new ComparisonResult.CrossPathMatch("src/Util.java", "lib/Util2.java");
+		assertThat(matrix.getCrossPathMatches(0, 1)).containsExactly(moved);
+		// Lido a partir da outra ponta, o par vem orientado do projeto da linha para o da coluna
+		assertThat(matrix.getCrossPathMatches(1, 0)).containsExactly(new ComparisonResult.CrossPathMatch("lib/Util2.java", "src/Util.java"));
+		// Abaixo do limite, os arquivos movidos não são guardados
+		assertThat(matrix.get(0, 2)).isLessThan(50.0);
+		assertThat(matrix.getCrossPathMatches(0, 2)).isEmpty();
+		assertThat(ComparisonResult.crossPathInfo(matrix.getCrossPathMatches(0, 1)))
+				.isEqualTo("Arquivos idênticos em outro caminho:\nsrc/Util.java -> lib/Util2.java");
+	}
+}
@@ -0,0 +1,118 @@
+package com.example.projectcomparator.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.example.projectcomparator.config.ComparatorProperties;
+import com.example.projectcomparator.model.FileInfo;
+import com.example.projectcomparator.model.Project;
+import com.example.projectcomparator.model.SimilarityMatrix;
+
+class ExcelReportServiceTests {
+
+	@TempDir
+	Path tempDir;
+
+	private final List<String> names = new ArrayList<>();
+	private final Map<String, Project> projectMap = new HashMap<>();
+	private SimilarityMatrix matrix;
+
+	private void createProjects(int count) {
+		FileTime time = FileTime.fromMillis(1_700_000_000_000L);
+		for (int p = 0; p < count; p++) {
+			String name = "proj" + p;
+			Map<String, FileInfo> files = new LinkedHashMap<>();
+			for (int f = 0; f < p; f++) { // proj0 não tem arquivos
+				String relativePath = "src/File" + f + ".java";
+				files.put(relativePath, new FileInfo(relativePath, tempDir.resolve(name).resolve(relativePath), 10 + f, "ab" + f, time, time));
+			}
+			names.add(name);
+			projectMap.put(name, new Project(name, tempDir.resolve(name), files));
+		}
+		matrix = new SimilarityMatrix(names);
+		for (int i = 0; i < count; i++) {
+			for (int j = i + 1; j < count; j++) {
+				matrix.set(i, j, (i + j) * 7.5);
+			}
+		}
+	}
+
+	private XSSFWorkbook generate(ComparatorProperties.Report.ExcelMode mode, String fileName) throws IOException {
+		ComparatorProperties properties = new ComparatorProperties();
+		properties.getReport().setExcelMode(mode);
+		properties.getReport().setRowWindow(2); // Força o descarte de linhas durante a escrita
+		Path output = tempDir.resolve(fileName);
+		new ExcelReportService(properties, new SimpleMeterRegistry()).generateReport(matrix, projectMap, 20, output.toString());
+		try (InputStream in = Files.newInputStream(output)) {
+			return new XSSFWorkbook(in);
+		}
+	}
+
+	@Test
+	void streamingModeKeepsMatrixAndMovesListingsToManifest() throws IOException {
+		createProjects(5);
+
+		try (XSSFWorkbook inMemory = generate(ComparatorProperties.Report.ExcelMode.IN_MEMORY, "memoria.xlsx");
+			 XSSFWorkbook streamed = generate(ComparatorProperties.Report.ExcelMode.STREAMING, "streaming.xlsx")) {
+			Sheet expected = inMemory.getSheetAt(0);
+			Sheet actual = streamed.getSheetAt(0);
+			assertThat(actual.getPaneInformation().isFreezePane()).isTrue();
+			for (int r = 0; r <= names.size(); r++) {
+				Row expectedRow = expected.getRow(r);
+				Row actualRow = actual.getRow(r);
+				for (int c = 0; c <= names.size(); c++) {
+					Cell expectedCell = expectedRow.getCell(c);
+					Cell actualCell = actualRow.getCell(c);
+					assertThat(actualCell.getCellType()).isEqualTo(expectedCell.getCellType());
+					assertThat(actualCell.toString()).isEqualTo(expectedCell.toString());
+					assertThat(actualCell.getCellStyle().getDataFormatString()).isEqualTo(expectedCell.getCellStyle().getDataFormatString());
+					assertThat(actualCell.getCellStyle().getFillForegroundColorColor())
+							.isEqualTo(expectedCell.getCellStyle().getFillForegroundColorColor());
+				}
+			}
+			assertThat(inMemory.getNumberOfSheets()).isEqualTo(1);
+			assertThat(expected.getRow(1).getCell(0).getCellComment()).isNotNull();
+
+			Sheet manifest = streamed.getSheet("Arquivos");
+			assertThat(manifest).isNotNull();
+			assertThat(actual.getRow(1).getCell(0).getCellComment()).isNull();
+			// Cabeçalho + 1 linha para proj0 (sem arquivos) + 1 + 2 + 3 + 4 arquivos
+			assertThat(manifest.getLastRowNum()).isEqualTo(11);
+			for (int p = 0; p < names.size(); p++) {
+				String address = actual.getRow(p + 1).getCell(0).getHyperlink().getAddress();
+				int targetRow = Integer.parseInt(address.substring(address.indexOf("!A") + 2)) - 1;
+				assertThat(manifest.getRow(targetRow).getCell(0).getStringCellValue()).isEqualTo(names.get(p));
+			}
+			assertThat(manifest.getRow(2).getCell(1).getStringCellValue()).isEqualTo("src/File0.java");
+			assertThat(manifest.getRow(2).getCell(3).getStringCellValue()).isEqualTo("ab0");
+		}
+	}
+
+	@Test
+	void autoModeSwitchesOnProjectCount() {
+		ComparatorProperties properties = new ComparatorProperties();
+		properties.getReport().setStreamingThreshold(3);
+		ExcelReportService service = new ExcelReportService(properties, new SimpleMeterRegistry());
+		assertThat(service.useStreaming(2)).isFalse();
+		assertThat(service.useStreaming(3)).isTrue();
+	}
+}
@@ -0,0 +1,98 @@
+package com.example.projectcomparator.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.projectcomparator.model.FileInfo;
+
+class FileContentCacheTests {
+
+	// Cada valor de 8 bytes pesa 8 + 96 de overhead: cabem 3 no orçamento de 320 bytes
+	private static final long BUDGET = 320;
+	private static final long ENTRY_WEIGHT = 8 + 96;
+
+	private final List<String> loaded = new ArrayList<>();
+	private final FileContentCache<byte[]> cache = new FileContentCache<>(BUDGET, value -> value.length);
+
+	private static FileInfo file(String name, long lastModifiedMillis) {
+		return new FileInfo(name, Path.of("/entregas", name).toAbsolutePath(), 100, null,
+				FileTime.fromMillis(lastModifiedMillis), FileTime.fromMillis(lastModifiedMillis));
+	}
+
+	private static FileInfo file(String name) {
+		return file(name, 1_700_000_000_000L);
+	}
+
+	private Function<FileInfo, byte[]> loader(int size) {
+		return fileInfo -> {
+			loaded.add(fileInfo.getRelativePath());
+			return new byte[size];
+		};
+	}
+
+	@Test
+	void leastRecentlyUsedEntryIsEvictedOnceTheBudgetIsFull() {
+		cache.get(file("a"), loader(8));
+		cache.get(file("b"), loader(8));
+		cache.get(file("c"), loader(8));
+		cache.get(file("a"), loader(8)); // "a" passa a ser o mais recente; "b" é o próximo a sair
+		assertThat(cache.statistics().usedBytes()).isEqualTo(3 * ENTRY_WEIGHT);
+
+		cache.get(file("d"), loader(8));
+
+		FileContentCache.Statistics statistics = cache.statistics();
+		assertThat(statistics.hits()).isEqualTo(1);
+		assertThat(statistics.misses()).isEqualTo(4);
+		assertThat(statistics.evictions()).isEqualTo(1);
+		assertThat(statistics.entries()).isEqualTo(3);
+		assertThat(statistics.usedBytes()).isEqualTo(3 * ENTRY_WEIGHT).isLessThanOrEqualTo(statistics.maxBytes());
+
+		cache.get(file("a"), loader(8));
+		cache.get(file("c"), loader(8));
+		cache.get(file("d"), loader(8));
+		cache.get(file("b"), loader(8)); // Foi expulso: carrega de novo
+		assertThat(loaded).containsExactly("a", "b", "c", "d", "b");
+		assertThat(cache.statistics().hits()).isEqualTo(4);
+		assertThat(cache.statistics().evictions()).isEqualTo(2);
+	}
+
+	@Test
+	void entryLargerThanTheBudgetIsReturnedWithoutEvictingAnything() {
+		cache.get(file("a"), loader(8));
+		cache.get(file("b"), loader(8));
+
+		assertThat(cache.get(file("grande"), loader(400))).hasSize(400);
+		assertThat(cache.get(file("grande"), loader(400))).hasSize(400);
+
+		FileContentCache.Statistics statistics = cache.statistics();
+		assertThat(loaded).containsExactly("a", "b", "grande", "grande");
+		assertThat(statistics.misses()).isEqualTo(4);
+		assertThat(statistics.evictions()).isZero();
+		assertThat(statistics.entries()).isEqualTo(2);
+		assertThat(statistics.usedBytes()).isEqualTo(2 * ENTRY_WEIGHT);
+	}
+
+	@Test
+	void modifiedFileIsReloadedAndClearKeepsTheCounters() {
+		cache.get(file("a", 1_000L), loader(8));
+		cache.get(file("a", 2_000L), loader(8)); // Mesmo caminho, outra data de modificação
+		assertThat(loaded).containsExactly("a", "a");
+		assertThat(cache.statistics().misses()).isEqualTo(2);
+
+		cache.clear();
+
+		FileContentCache.Statistics statistics = cache.statistics();
+		assertThat(statistics.entries()).isZero();
+		assertThat(statistics.usedBytes()).isZero();
+		assertThat(statistics.misses()).isEqualTo(2);
+		cache.get(file("a", 2_000L), loader(8));
+		assertThat(loaded).hasSize(3);
+	}
+}
@@ -0,0 +1,59 @@
+package com.example.projectcomparator.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.projectcomparator.config.ComparatorProperties;
+import com.example.projectcomparator.model.FileInfo;
+
+class FingerprintIndexTests {
+
+	private static final FileTime TIME = FileTime.fromMillis(1_700_000_000_000L);
+	private static final String HASH = "ab".repeat(32);
+
+	@TempDir
+	Path tempDir;
+
+	private FileInfo file(String name) throws IOException {
+		Path file = Files.writeString(tempDir.resolve(name), "class " + name.replace(".java", "") + " {}");
+		return new FileInfo(name, file, Files.size(file), HASH, TIME, TIME);
+	}
+
+	@Test
+	void saveDropsEntriesOfFilesNotSeenInTheRun() throws IOException {
+		Path indexFile = tempDir.resolve("index.bin");
+		FileInfo kept = file("Kept.java");
+		FileInfo fingerprinted = file("Fingerprinted.java");
+		FileInfo removed = file("Removed.java");
+
+		FingerprintIndex first = new FingerprintIndex(new ComparatorProperties());
+		first.load(indexFile);
+		for (FileInfo info : new FileInfo[] { kept, fingerprinted, removed }) {
+			first.putContentHash(info.getAbsolutePath(), info.getSize(), TIME.toMillis(), HASH);
+			first.putFingerprints(info, new long[] { 1, 2, 3 });
+		}
+		first.save();
+
+		// Segunda execução: 'removed' sumiu da varredura; 'fingerprinted' só tem as impressões consultadas
+		FingerprintIndex second = new FingerprintIndex(new ComparatorProperties());
+		second.load(indexFile);
+		assertThat(second.size()).isEqualTo(3);
+		assertThat(second.findContentHash(kept.getAbsolutePath(), kept.getSize(), TIME.toMillis())).isEqualTo(HASH);
+		assertThat(second.findFingerprints(fingerprinted)).containsExactly(1, 2, 3);
+		second.save(); // Nada foi recalculado, mas a entrada descartada já obriga a regravar
+
+		FingerprintIndex third = new FingerprintIndex(new ComparatorProperties());
+		third.load(indexFile);
+		assertThat(third.size()).isEqualTo(2);
+		assertThat(third.findFingerprints(removed)).isNull();
+		assertThat(third.findFingerprints(kept)).containsExactly(1, 2, 3);
+		assertThat(third.findContentHash(fingerprinted.getAbsolutePath(), fingerprinted.getSize(), TIME.toMillis())).isEqualTo(HASH);
+	}
+}
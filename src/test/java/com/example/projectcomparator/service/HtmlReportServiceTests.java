@@ -0,0 +1,96 @@
+package com.example.projectcomparator.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.example.projectcomparator.config.ComparatorProperties;
+import com.example.projectcomparator.model.NearestNeighbours;
+import com.example.projectcomparator.model.SimilarityMatrix;
+
+class HtmlReportServiceTests {
+
+	@TempDir
+	Path tempDir;
+
+	private static String between(String text, String start, String end) {
+		int from = text.indexOf(start) + start.length();
+		return text.substring(from, text.indexOf(end, from));
+	}
+
+	@Test
+	void interactiveReportEmbedsUpperTriangleAsFloat32() throws IOException {
+		// Mais de um bloco de base64 para exercitar a concatenação
+		int n = 90;
+		List<String> names = new ArrayList<>();
+		for (int i = 0; i < n; i++) {
+			names.add(i == 0 ? "</script><b>\"proj\"" : "proj" + i);
+		}
+		SimilarityMatrix matrix = new SimilarityMatrix(names);
+		for (int i = 0; i < n; i++) {
+			for (int j = i + 1; j < n; j++) {
+				matrix.set(i, j, ((i * 31 + j * 17) % 1000) / 10.0);
+			}
+		}
+		ComparatorProperties properties = new ComparatorProperties();
+		properties.getReport().setHtmlMode(ComparatorProperties.Report.HtmlMode.INTERACTIVE);
+		Path output = tempDir.resolve("relatorio.html");
+
+		new HtmlReportService(properties, new SimpleMeterRegistry()).generateReport(matrix, Map.of(), 20, output.toString());
+
+		String html = Files.readString(output, StandardCharsets.UTF_8);
+		assertThat(html).doesNotContain("<table").doesNotContain("<!--MATRIX-DATA-->");
+		String meta = between(html, "<script id=\"report-meta\" type=\"application/json\">", "</script>");
+		assertThat(meta).startsWith("{\"names\":[\"\\u003c/script\\u003e\\u003cb\\u003e\\\"proj\\\"\",\"proj1\"");
+		assertThat(meta).contains("\"threshold\":20.0");
+
+		String base64 = between(html, "<script id=\"report-matrix\" type=\"application/octet-stream\">", "</script>");
+		ByteBuffer bytes = ByteBuffer.wrap(Base64.getDecoder().decode(base64.replaceAll("\\s+", ""))).order(ByteOrder.LITTLE_ENDIAN);
+		assertThat(bytes.remaining()).isEqualTo(n * (n - 1) / 2 * Float.BYTES);
+		for (int i = 0; i < n; i++) {
+			for (int j = i + 1; j < n; j++) {
+				assertThat(bytes.getFloat()).isEqualTo((float) matrix.get(i, j));
+			}
+		}
+	}
+
+	@Test
+	void autoModeKeepsTableForSmallReports() throws IOException {
+		ComparatorProperties properties = new ComparatorProperties();
+		Path output = tempDir.resolve("tabela.html");
+		SimilarityMatrix matrix = new SimilarityMatrix(List.of("a", "b"));
+		matrix.set("a", "b", 42.0);
+
+		new HtmlReportService(properties, new SimpleMeterRegistry()).generateReport(matrix, Map.of(), 20, output.toString());
+
+		assertThat(Files.readString(output, StandardCharsets.UTF_8)).contains("<table>").contains("42.00%");
+	}
+
+	@Test
+	void neighbourReportListsNeighboursInsteadOfMatrix() throws IOException {
+		NearestNeighbours neighbours = new NearestNeighbours(List.of("a", "b", "<c>"), 2,
+				new int[][] { { 2, 1 }, { 0, 2 }, { 0, 1 } },
+				new float[][] { { 80f, 10f }, { 10f, 5f }, { 80f, 5f } });
+		Path output = tempDir.resolve("vizinhos.html");
+
+		new HtmlReportService(new ComparatorProperties(), new SimpleMeterRegistry()).generateNeighbourReport(neighbours, 20, output.toString());
+
+		String html = Files.readString(output, StandardCharsets.UTF_8);
+		assertThat(html).contains("<th>a</th><td class=\"highlight-similarity\">&lt;c&gt; (80.00%)</td><td>b (10.00%)</td>");
+		assertThat(html).contains("<th>2º vizinho</th>").doesNotContain("3º vizinho");
+	}
+}
@@ -0,0 +1,69 @@
+package com.example.projectcomparator.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Random;
+
+import org.apache.commons.text.similarity.JaroWinklerSimilarity;
+import org.junit.jupiter.api.Test;
+
+class JaroWinklerKernelTests {
+
+	private static final JaroWinklerSimilarity REFERENCE = new JaroWinklerSimilarity();
+
+	private static String randomText(Random random, int length, String alphabet) {
+		StringBuilder text = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+		}
+		return text.toString();
+	}
+
+	private static String mutate(Random random, String text) {
+		StringBuilder mutated = new StringBuilder(text);
+		int edits = 1 + random.nextInt(Math.max(1, text.length() / 4));
+		for (int e = 0; e < edits && mutated.length() > 1; e++) {
+			int pos = random.nextInt(mutated.length());
+			switch (random.nextInt(3)) {
+				case 0 -> mutated.deleteCharAt(pos);
+				case 1 -> mutated.insert(pos, (char) ('a' + random.nextInt(26)));
+				default -> mutated.setCharAt(pos, (char) ('a' + random.nextInt(26)));
+			}
+		}
+		return mutated.toString();
+	}
+
+	@Test
+	void matchesCommonsTextExactly() {
+		Random random = new Random(42);
+		String[] alphabets = { "ab", "abcdefgh \n", "public class{}();=+ \nabcdefghijklmnop" };
+		for (int round = 0; round < 3000; round++) {
+			String alphabet = alphabets[round % alphabets.length];
+			String left = randomText(random, random.nextInt(120), alphabet);
+			String right = random.nextBoolean() ? mutate(random, left) : randomText(random, random.nextInt(120), alphabet);
+
+			double expected = REFERENCE.apply(left, right);
+			assertThat(JaroWinklerKernel.similarity(left.toCharArray(), right.toCharArray()))
+					.as("'%s' x '%s'", left, right)
+					.isEqualTo(expected);
+		}
+	}
+
+	@Test
+	void boundedModeIsExactAboveCutoffAndAnUpperBoundBelow() {
+		Random random = new Random(7);
+		for (int round = 0; round < 2000; round++) {
+			String left = randomText(random, 1 + random.nextInt(400), "abcdefghij \n");
+			String right = random.nextBoolean() ? mutate(random, left) : randomText(random, 1 + random.nextInt(400), "abcdefghij \n");
+			double cutoff = random.nextDouble();
+
+			double exact = REFERENCE.apply(left, right);
+			double bounded = JaroWinklerKernel.similarity(left.toCharArray(), right.toCharArray(), cutoff);
+			if (exact >= cutoff) {
+				assertThat(bounded).isEqualTo(exact);
+			} else {
+				assertThat(bounded).isLessThan(cutoff).isGreaterThanOrEqualTo(exact);
+			}
+		}
+	}
+}
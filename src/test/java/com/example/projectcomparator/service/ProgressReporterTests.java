@@ -0,0 +1,54 @@
+package com.example.projectcomparator.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.example.projectcomparator.config.ComparatorProperties;
+
+class ProgressReporterTests {
+
+	private static ProgressReporter reporter(boolean enabled) {
+		ComparatorProperties properties = new ComparatorProperties();
+		properties.getProgress().setEnabled(enabled);
+		return new ProgressReporter(properties, new FileAccess(properties, new SimpleMeterRegistry()));
+	}
+
+	@Test
+	void countsEveryIncrementFromManyThreads() {
+		ProgressReporter reporter = reporter(true);
+		try (ProgressReporter.Progress progress = reporter.start("teste", 80_000)) {
+			try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+				IntStream.range(0, 8).forEach(t -> executor.submit(() -> {
+					for (int i = 0; i < 10_000; i++) {
+						progress.increment();
+					}
+				}));
+			}
+			assertThat(progress.getCompleted()).isEqualTo(80_000);
+		}
+	}
+
+	@Test
+	void sampleReportsIntervalRateAndEtaFromAverageRate() {
+		ProgressReporter.Progress progress = reporter(false).new Progress("teste", 200, 0, 0L);
+		for (int i = 0; i < 50; i++) {
+			progress.increment();
+		}
+		// 50 em 2 s: 25/s e 150 restantes na taxa média = 6 s
+		assertThat(progress.sample(2_000_000_000L)).startsWith("[teste] 50/200 (25").contains("| 25/s |").endsWith("restante 00:00:06");
+
+		for (int i = 0; i < 30; i++) {
+			progress.increment();
+		}
+		// Taxa do último intervalo (30 em 3 s), restante pela média desde o início (80 em 5 s)
+		assertThat(progress.sample(5_000_000_000L)).contains("80/200").contains("| 10/s |").endsWith("restante 00:00:07");
+		assertThat(ProgressReporter.formatDuration(3 * 3600 + 25 * 60 + 7)).isEqualTo("03:25:07");
+	}
+}
@@ -0,0 +1,158 @@
+package com.example.projectcomparator.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedFileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.example.projectcomparator.config.ComparatorProperties;
+import com.example.projectcomparator.model.ComparisonResult;
+import com.example.projectcomparator.model.FileInfo;
+import com.example.projectcomparator.model.Project;
+
+class ProjectFinderServiceTests {
+
+	@TempDir
+	Path tempDir;
+
+	private static Map<String, String> submission() {
+		Map<String, String> files = new LinkedHashMap<>();
+		files.put("entrega/pom.xml", "<project><artifactId>exemplo</artifactId></project>");
+		files.put("entrega/src/main/java/Main.java", "class Main { void run() { System.out.println(\"ok\"); } }");
+		// Acima do buffer-size do teste: lido em blocos nas entradas de ZIP e mapeado nos diretórios
+		files.put("entrega/src/main/java/Grande.java", "class Grande { /* " + "x".repeat(8 * 1024) + " */ }");
+		files.put("entrega/target/Gerado.java", "class Gerado {}");
+		files.put("__MACOSX/entrega/._Main.java", "metadados");
+		return files;
+	}
+
+	private static void writeDirectory(Path root, Map<String, String> files) throws IOException {
+		for (Map.Entry<String, String> entry : files.entrySet()) {
+			Path file = root.resolve(entry.getKey());
+			Files.createDirectories(file.getParent());
+			Files.writeString(file, entry.getValue());
+		}
+	}
+
+	private static void writeZip(Path zip, Map<String, String> files) throws IOException {
+		Map<String, byte[]> entries = new LinkedHashMap<>();
+		files.forEach((name, content) -> entries.put(name, content.getBytes(StandardCharsets.UTF_8)));
+		writeZipEntries(zip, entries);
+	}
+
+	private static void writeZipEntries(Path zip, Map<String, byte[]> files) throws IOException {
+		try (OutputStream out = Files.newOutputStream(zip); ZipOutputStream zipOut = new ZipOutputStream(out)) {
+			for (Map.Entry<String, byte[]> entry : files.entrySet()) {
+				zipOut.putNextEntry(new ZipEntry(entry.getKey()));
+				zipOut.write(entry.getValue());
+				zipOut.closeEntry();
+			}
+		}
+	}
+
+	@Test
+	void zipSubmissionsAreReadWithoutExtraction() throws IOException {
+		Path parent = Files.createDirectories(tempDir.resolve("entregas"));
+		writeDirectory(parent.resolve("aluno-a"), submission());
+		writeZip(parent.resolve("aluno-b.ZIP"), submission());
+		writeZip(parent.resolve("sem-projeto.zip"), Map.of("leia-me.txt", "sem pom.xml"));
+		// Diretório extraído ao lado do ZIP original: só o diretório conta
+		writeDirectory(parent.resolve("aluno-c"), submission());
+		writeZip(parent.resolve("aluno-c.zip"), Map.of("pom.xml", "<project/>"));
+		Files.writeString(parent.resolve("corrompido.zip"), "não é um zip");
+
+		ComparatorProperties properties = new ComparatorProperties();
+		properties.getFileAccess().setBufferSize(DataSize.ofKilobytes(4));
+		properties.getFileAccess().setMapThreshold(DataSize.ofKilobytes(6));
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		FileAccess fileAccess = new FileAccess(properties, meterRegistry);
+		FingerprintIndex index = new FingerprintIndex(properties);
+		ProjectFinderService finder = new ProjectFinderService(properties, index, fileAccess, meterRegistry);
+
+		List<Project> projects = finder.findProjects(parent, false);
+
+		assertThat(projects).extracting(Project::getName).containsExactly("aluno-a", "aluno-b", "aluno-c");
+		Project directory = projects.get(0);
+		Project archive = projects.get(1);
+		assertThat(archive.getFiles().keySet()).containsExactlyInAnyOrderElementsOf(directory.getFiles().keySet())
+				.containsExactlyInAnyOrder("pom.xml", "src/main/java/Main.java", "src/main/java/Grande.java");
+		directory.getFiles().forEach((path, file) ->
+				assertThat(archive.getFiles().get(path).getContentHash()).as(path).isEqualTo(file.getContentHash()));
+		assertThat(fileAccess.getMappedFiles()).isEqualTo(2); // Só os arquivos grandes dos diretórios (aluno-a e aluno-c) são mapeados
+
+		ProjectComparerService service = new ProjectComparerService(properties, index, fileAccess, meterRegistry);
+		ComparisonResult result = service.compareProjects(directory, archive);
+		// Conteúdo idêntico; só as datas diferem entre o diretório e as entradas do ZIP
+		assertThat(result.getSimilarityPercentage()).isCloseTo(70.0, within(1e-9));
+
+		finder.closeArchives();
+		service.clearContentCache();
+		assertThat(archive.getFiles().get("pom.xml").getAbsolutePath().getFileSystem().isOpen()).isFalse();
+		assertThatThrownBy(() -> fileAccess.read(archive.getFiles().get("pom.xml").getAbsolutePath(), b -> null))
+				.isInstanceOf(ClosedFileSystemException.class);
+	}
+
+	@Test
+	void largeZipEntriesAreStreamedInBlocksWithTheSameHashAndText() throws IOException {
+		// Texto com acentos: sequências UTF-8 cortadas entre um bloco de 4 KB e o seguinte
+		String text = "class Enorme {\n" + "\t// Configuração   da  aplicação\n\n\n".repeat(2_000) + "}\n";
+		Map<String, byte[]> files = new LinkedHashMap<>();
+		files.put("entrega/pom.xml", "<project/>".getBytes(StandardCharsets.UTF_8));
+		files.put("entrega/src/Utf8.java", text.getBytes(StandardCharsets.UTF_8));
+		files.put("entrega/src/Latin1.java", text.getBytes(Charset.forName("windows-1252")));
+		Path parent = Files.createDirectories(tempDir.resolve("entregas"));
+		for (Map.Entry<String, byte[]> entry : files.entrySet()) {
+			Path file = parent.resolve("aluno-a").resolve(entry.getKey());
+			Files.createDirectories(file.getParent());
+			Files.write(file, entry.getValue());
+		}
+		writeZipEntries(parent.resolve("aluno-b.zip"), files);
+
+		ComparatorProperties properties = new ComparatorProperties();
+		properties.getFileAccess().setBufferSize(DataSize.ofKilobytes(4));
+		properties.getSimilarity().setChunkSize(1024);
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		FileAccess fileAccess = new FileAccess(properties, meterRegistry);
+		FingerprintIndex index = new FingerprintIndex(properties);
+		ProjectFinderService finder = new ProjectFinderService(properties, index, fileAccess, meterRegistry);
+		ProjectComparerService service = new ProjectComparerService(properties, index, fileAccess, meterRegistry);
+
+		List<Project> projects = finder.findProjects(parent, false);
+
+		assertThat(projects).extracting(Project::getName).containsExactly("aluno-a", "aluno-b");
+		Map<String, FileInfo> directory = projects.get(0).getFiles();
+		Map<String, FileInfo> archive = projects.get(1).getFiles();
+		assertThat(archive.keySet()).containsExactlyInAnyOrder("pom.xml", "src/Utf8.java", "src/Latin1.java");
+		for (String path : List.of("src/Utf8.java", "src/Latin1.java")) {
+			FileInfo entry = archive.get(path);
+			assertThat(fileAccess.readsWhole(entry.getAbsolutePath(), entry.getSize())).isFalse();
+			assertThat(entry.getContentHash()).as(path).isEqualTo(directory.get(path).getContentHash());
+			assertThat(service.getNormalizedContent(entry)).as(path).isEqualTo(TextNormalizer.normalize(text).toCharArray());
+			assertThat(service.getFingerprints(entry)).as(path).containsExactly(service.getFingerprints(directory.get(path)));
+		}
+		assertThatThrownBy(() -> fileAccess.read(archive.get("src/Utf8.java").getAbsolutePath(), b -> null))
+				.isInstanceOf(IOException.class);
+		// Latin1.java não é UTF-8 válido: lido como Windows-1252 nas três leituras, todas em blocos de 4 KB
+		assertThat(fileAccess.getMappedFiles()).isZero();
+		assertThat(meterRegistry.get("comparator.files.fallback-encoding").counter().count()).isEqualTo(3.0);
+		finder.closeArchives();
+	}
+}
@@ -0,0 +1,146 @@
+package com.example.projectcomparator.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.example.projectcomparator.config.ComparatorProperties;
+import com.example.projectcomparator.model.Project;
+
+class ReferenceCorpusTests {
+
+	@TempDir
+	Path tempDir;
+
+	private final ComparatorProperties properties = new ComparatorProperties();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final FileAccess fileAccess = new FileAccess(properties, meterRegistry);
+	private final FingerprintIndex index = new FingerprintIndex(properties);
+	private final ProjectComparerService service = new ProjectComparerService(properties, index, fileAccess, meterRegistry);
+
+	// Código "aleatório", mas determinístico, para que projetos diferentes quase não compartilhem impressões
+	private static String source(String seed) {
+		Random random = new Random(seed.hashCode());
+		StringBuilder content = new StringBuilder("class C {\n");
+		for (int line = 0; line < 40; line++) {
+			content.append("    int ");
+			for (int c = 0; c < 12; c++) {
+				content.append((char) ('a' + random.nextInt(26)));
+			}
+			content.append(" = ").append(random.nextInt(100_000)).append(";\n");
+		}
+		return content.append("}\n").toString();
+	}
+
+	private static void write(Path file, String content) throws IOException {
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, content);
+	}
+
+	private static void writeProject(Path root, String seed) throws IOException {
+		write(root.resolve("pom.xml"), "<project><artifactId>" + seed + "</artifactId></project>");
+		for (int f = 0; f < 4; f++) {
+			write(root.resolve("src/Classe" + f + ".java"), source(seed + f));
+		}
+	}
+
+	private List<Project> find(Path batch) {
+		return new ProjectFinderService(properties, index, fileAccess, meterRegistry).findProjects(batch, false);
+	}
+
+	private ReferenceCorpus corpus() {
+		return new ReferenceCorpus(properties, service, meterRegistry);
+	}
+
+	@Test
+	void batchIsMatchedAgainstPreviousSemestersThroughTheIndex() throws IOException {
+		Path previous = tempDir.resolve("2024-1");
+		for (String name : List.of("alfa", "beta", "gama")) {
+			writeProject(previous.resolve(name), name);
+		}
+		Path current = tempDir.resolve("2025-1");
+		// Cópia de "beta" com um arquivo renomeado e outro editado
+		writeProject(current.resolve("copia"), "beta");
+		Files.move(current.resolve("copia/src/Classe0.java"), current.resolve("copia/src/Renomeada.java"));
+		String edited = Files.readString(current.resolve("copia/src/Classe1.java")).replaceFirst("int ", "long ");
+		write(current.resolve("copia/src/Classe1.java"), edited);
+		writeProject(current.resolve("nova"), "nova");
+
+		Path corpusFile = tempDir.resolve("corpus.pcrc");
+		ReferenceCorpus builder = corpus();
+		builder.load(corpusFile);
+		assertThat(builder.append(find(previous), "2024-1")).isEqualTo(3);
+		assertThat(builder.append(find(previous), "2024-1")).isZero(); // Projetos já presentes
+
+		ReferenceCorpus corpus = corpus();
+		corpus.load(corpusFile);
+		assertThat(corpus.projectCount()).isEqualTo(3);
+		assertThat(corpus.fileCount()).isEqualTo(15);
+		assertThat(corpus.postingCount()).isPositive();
+
+		List<ReferenceCorpus.Match> matches = corpus.query(find(current), 40.0);
+
+		assertThat(matches).hasSize(1);
+		ReferenceCorpus.Match match = matches.get(0);
+		assertThat(match.project()).isEqualTo("copia");
+		assertThat(match.reference()).isEqualTo("2024-1/beta");
+		assertThat(match.identicalFiles()).isEqualTo(4); // pom.xml, Classe2, Classe3 e a renomeada
+		assertThat(match.similarFiles()).isEqualTo(1);
+		assertThat(match.similarity()).isGreaterThan(90.0).isLessThan(100.0);
+		assertThat(meterRegistry.get("comparator.phase").tag("phase", "reference-query").timer().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("comparator.reference.query").timer().count()).isEqualTo(2);
+
+		Path csv = tempDir.resolve("referencia.csv");
+		ReferenceCorpus.writeMatches(csv, matches);
+		assertThat(Files.readAllLines(csv)).hasSize(2).element(1).asString().startsWith("copia;2024-1/beta;");
+	}
+
+	@Test
+	void matchNamesWithSeparatorsAreQuotedInTheCsv() throws IOException {
+		Path csv = tempDir.resolve("referencia.csv");
+		ReferenceCorpus.writeMatches(csv, List.of(new ReferenceCorpus.Match("joão; maria", "2024-1/\"beta\"\nv2", 87.5, 3, 1)));
+
+		assertThat(Files.readString(csv)).isEqualTo("projeto;referencia;similaridade;arquivos_identicos;arquivos_semelhantes\n"
+				+ "\"joão; maria\";\"2024-1/\"\"beta\"\"\nv2\";87.50;3;1\n");
+	}
+
+	@Test
+	void incompleteRecordAtTheEndIsDroppedAndOverwritten() throws IOException {
+		Path previous = tempDir.resolve("2024-1");
+		writeProject(previous.resolve("alfa"), "alfa");
+		writeProject(previous.resolve("beta"), "beta");
+		Path current = tempDir.resolve("2024-2");
+		writeProject(current.resolve("gama"), "gama");
+
+		Path corpusFile = tempDir.resolve("corpus.pcrc");
+		ReferenceCorpus corpus = corpus();
+		corpus.load(corpusFile);
+		corpus.append(find(previous), "2024-1");
+		long size = Files.size(corpusFile);
+		try (FileChannel channel = FileChannel.open(corpusFile, StandardOpenOption.WRITE)) {
+			channel.truncate(size - 10); // Execução interrompida no meio do último registro
+		}
+
+		corpus.load(corpusFile);
+		assertThat(corpus.projectCount()).isEqualTo(1);
+		assertThat(corpus.append(find(current), "2024-2")).isEqualTo(1);
+		assertThat(corpus.append(find(previous), "2024-1")).isEqualTo(1); // Só o que foi perdido
+
+		ReferenceCorpus reloaded = corpus();
+		reloaded.load(corpusFile);
+		assertThat(reloaded.projectCount()).isEqualTo(3);
+		assertThat(reloaded.fileCount()).isEqualTo(corpus.fileCount());
+		assertThat(reloaded.postingCount()).isEqualTo(corpus.postingCount());
+	}
+}
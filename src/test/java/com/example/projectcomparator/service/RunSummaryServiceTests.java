@@ -0,0 +1,81 @@
+package com.example.projectcomparator.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.InstanceOfAssertFactories.MAP;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import com.example.projectcomparator.config.ComparatorProperties;
+import com.example.projectcomparator.config.MetricsConfiguration;
+import com.example.projectcomparator.model.Project;
+import com.example.projectcomparator.model.SimilarityMatrix;
+
+class RunSummaryServiceTests {
+
+	@TempDir
+	Path tempDir;
+
+	private static Object meterValue(DocumentContext json, String name, String field) {
+		List<Object> values = json.read("$.meters[?(@.name == '" + name + "')]." + field);
+		assertThat(values).as(name).hasSize(1);
+		return values.get(0);
+	}
+
+	@Test
+	void summaryCoversEveryPhaseOfARun() throws IOException {
+		SyntheticCorpusGenerator generator = new SyntheticCorpusGenerator();
+		generator.setProjectCount(5);
+		generator.setFilesPerProject(4);
+		SyntheticCorpusGenerator.Corpus corpus = generator.generate(tempDir.resolve("corpus"));
+
+		ComparatorProperties properties = new ComparatorProperties();
+		MeterRegistry meterRegistry = MetricsConfiguration.createRegistry(0.5, 0.999);
+		FileAccess fileAccess = new FileAccess(properties, meterRegistry);
+		FingerprintIndex index = new FingerprintIndex(properties);
+		List<Project> projects = new ProjectFinderService(properties, index, fileAccess, meterRegistry).findProjects(corpus.root(), false);
+		List<String> names = projects.stream().map(Project::getName).sorted().collect(Collectors.toList());
+		Map<String, Project> projectMap = projects.stream().collect(Collectors.toMap(Project::getName, Function.identity()));
+		ProjectComparerService service = new ProjectComparerService(properties, index, fileAccess, meterRegistry);
+		SimilarityMatrix matrix = new ComparisonEngine(service, new CandidatePairSelector(service, properties),
+				new ProgressReporter(properties, fileAccess), properties, meterRegistry)
+				.computeSimilarityMatrix(names, projectMap);
+		new ExcelReportService(properties, meterRegistry).generateReport(matrix, projectMap, 20, tempDir.resolve("relatorio.xlsx").toString());
+
+		Map<String, Object> run = new LinkedHashMap<>();
+		run.put("parentDirectory", "C:\\entregas\\\"turma\"");
+		run.put("projects", 5);
+		Path summary = tempDir.resolve("relatorio_metricas.json");
+		new RunSummaryService(meterRegistry, properties).writeSummary(summary, run);
+
+		DocumentContext json = JsonPath.parse(Files.readString(summary, StandardCharsets.UTF_8));
+		assertThat(json.read("$.run.parentDirectory", String.class)).isEqualTo("C:\\entregas\\\"turma\"");
+		assertThat(json.read("$.run.projects", Integer.class)).isEqualTo(5);
+
+		List<String> phases = json.read("$.meters[?(@.name == 'comparator.phase')].tags.phase");
+		assertThat(phases).containsExactly("comparison", "discovery", "report.xlsx");
+		assertThat(meterValue(json, "comparator.pair", "count")).isEqualTo(10);
+		assertThat(meterValue(json, "comparator.pair", "percentilesMs")).asInstanceOf(MAP).containsOnlyKeys("p50", "p99.9");
+		// 4 arquivos de código + pom.xml por projeto
+		assertThat(meterValue(json, "comparator.files.discovered", "count")).isEqualTo(25);
+		assertThat(meterValue(json, "comparator.file.hash", "count")).isEqualTo(25);
+		assertThat(((Number) meterValue(json, "comparator.file.bytes.read", "count")).longValue()).isEqualTo(fileAccess.getBytesRead()).isPositive();
+		List<String> caches = json.read("$.meters[?(@.name == 'comparator.cache.hits')].tags.cache");
+		assertThat(caches).containsExactly("chunk", "content", "fingerprint");
+	}
+}
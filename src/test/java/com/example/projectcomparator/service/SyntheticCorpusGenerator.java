@@ -0,0 +1,372 @@
+package com.example.projectcomparator.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Gera em disco um conjunto sintético de entregas, no layout que o {@link ProjectFinderService} espera
+ * (um subdiretório por aluno, com {@code pom.xml}/{@code build.gradle} ou com as páginas HTML na raiz).
+ * <p>
+ * Parte dos arquivos de cada projeto vem de um código inicial comum (idêntico em todos os projetos, como
+ * o modelo distribuído pelo professor); o restante é próprio de cada aluno. Uma fração dos projetos é
+ * cópia de outro projeto original, com identificadores renomeados, blocos (métodos, regras CSS, seções
+ * HTML) reordenados e espaços alterados. Os pares de cópias são os rótulos de verdade do corpus, gravados
+ * também em {@code ground-truth.csv} no diretório raiz. Com a mesma semente, o corpus gerado é sempre o mesmo.
+ */
+final class SyntheticCorpusGenerator {
+
+    enum Layout { MAVEN, GRADLE, WEB }
+
+    enum Mutation { RENAME_IDENTIFIERS, REORDER_BLOCKS, WHITESPACE }
+
+    /** Projeto {@code copy} gerado a partir de {@code original}, com as mutações aplicadas. */
+    record LabeledPair(String original, String copy, Set<Mutation> mutations) {
+    }
+
+    /**
+     * Resultado da geração. Duas cópias do mesmo original também formam um par relacionado:
+     * {@link #isRelated} compara as "famílias" (o projeto original de cada um).
+     */
+    record Corpus(Path root, List<String> projectNames, List<LabeledPair> copies, Map<String, String> families,
+                  int fileCount, long totalBytes) {
+
+        boolean isRelated(String project1, String project2) {
+            return Objects.equals(families.get(project1), families.get(project2));
+        }
+    }
+
+    public static final String GROUND_TRUTH_FILE = "ground-truth.csv";
+
+    private static final String[] WORDS = { "cliente", "pedido", "total", "valor", "nome", "lista", "indice",
+            "produto", "preco", "quantidade", "usuario", "senha", "email", "status", "data", "resultado",
+            "carrinho", "estoque", "cadastro", "endereco", "cidade", "desconto", "parcela", "nota" };
+    private static final String[] TEXT_WORDS = { "informação", "página", "serviço", "você", "ação", "também",
+            "então", "projeto", "contato", "sobre", "catálogo", "promoção", "início", "ótimo", "preço" };
+    private static final String[] JAVA_TYPES = { "int", "long", "double", "String", "boolean" };
+    private static final FileTime STARTER_TIME = FileTime.fromMillis(1_700_000_000_000L);
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    private Layout layout = Layout.MAVEN;
+    private int projectCount = 20;
+    private int filesPerProject = 10;
+    private int fileSize = 2048;
+    private double starterRatio = 0.2;
+    private double copyRate = 0.3;
+    private double renameRate = 0.3;
+    private double reorderRate = 0.5;
+    private double whitespaceRate = 0.5;
+    private long seed = 42;
+
+    public Layout getLayout() { return layout; }
+    public void setLayout(Layout layout) { this.layout = layout; }
+    public int getProjectCount() { return projectCount; }
+    public void setProjectCount(int projectCount) { this.projectCount = projectCount; }
+    public int getFilesPerProject() { return filesPerProject; }
+    public void setFilesPerProject(int filesPerProject) { this.filesPerProject = filesPerProject; }
+    public int getFileSize() { return fileSize; }
+    public void setFileSize(int fileSize) { this.fileSize = fileSize; }
+    public double getStarterRatio() { return starterRatio; }
+    public void setStarterRatio(double starterRatio) { this.starterRatio = starterRatio; }
+    public double getCopyRate() { return copyRate; }
+    public void setCopyRate(double copyRate) { this.copyRate = copyRate; }
+    public double getRenameRate() { return renameRate; }
+    public void setRenameRate(double renameRate) { this.renameRate = renameRate; }
+    public double getReorderRate() { return reorderRate; }
+    public void setReorderRate(double reorderRate) { this.reorderRate = reorderRate; }
+    public double getWhitespaceRate() { return whitespaceRate; }
+    public void setWhitespaceRate(double whitespaceRate) { this.whitespaceRate = whitespaceRate; }
+    public long getSeed() { return seed; }
+    public void setSeed(long seed) { this.seed = seed; }
+
+    /**
+     * Arquivo-fonte gerado (do código inicial comum ou próprio do aluno): cabeçalho, blocos reordenáveis
+     * e rodapé, com os identificadores que a mutação pode renomear.
+     */
+    private record SourceFile(String relativePath, boolean starter, String header, List<String> blocks, String footer,
+                              Set<String> identifiers) {
+
+        String render() {
+            StringBuilder content = new StringBuilder(header);
+            for (String block : blocks) {
+                content.append(block);
+            }
+            return content.append(footer).toString();
+        }
+    }
+
+    /** Grava o corpus em {@code root} (que é criado se não existir) e devolve os rótulos de verdade. */
+    Corpus generate(Path root) throws IOException {
+        Files.createDirectories(root);
+        Random random = new Random(seed);
+        int starterFiles = (int) Math.round(filesPerProject * starterRatio);
+        List<SourceFile> starter = new ArrayList<>();
+        Random starterRandom = new Random(seed ^ 0x5EED_5EEDL); // O código inicial é o mesmo para todos os alunos
+        for (int f = 0; f < starterFiles; f++) {
+            starter.add(generateFile(relativePath(f), true, starterRandom));
+        }
+
+        List<String> names = new ArrayList<>();
+        List<String> originals = new ArrayList<>();
+        Map<String, List<SourceFile>> sources = new HashMap<>();
+        Map<String, String> families = new LinkedHashMap<>();
+        List<LabeledPair> copies = new ArrayList<>();
+        int fileCount = 0;
+        long totalBytes = 0;
+        for (int p = 0; p < projectCount; p++) {
+            String name = String.format("aluno%03d", p);
+            names.add(name);
+            Path projectDir = root.resolve(name);
+            Files.createDirectories(projectDir);
+            writeMarker(projectDir, name);
+            FileTime projectTime = FileTime.fromMillis(STARTER_TIME.toMillis() + (p + 1) * DAY_MILLIS);
+
+            List<SourceFile> files;
+            String original = null;
+            Set<Mutation> applied = EnumSet.noneOf(Mutation.class);
+            if (!originals.isEmpty() && random.nextDouble() < copyRate) {
+                original = originals.get(random.nextInt(originals.size()));
+                files = new ArrayList<>();
+                for (SourceFile file : sources.get(original)) {
+                    files.add(file.starter() ? file : mutate(file, random, applied));
+                }
+                families.put(name, families.get(original));
+            } else {
+                files = new ArrayList<>(starter);
+                for (int f = starterFiles; f < filesPerProject; f++) {
+                    files.add(generateFile(relativePath(f), false, random));
+                }
+                originals.add(name);
+                families.put(name, name);
+            }
+            sources.put(name, files);
+
+            for (SourceFile file : files) {
+                String content = file.render();
+                if (original != null && !file.starter() && random.nextDouble() < whitespaceRate) {
+                    content = mutateWhitespace(content, random);
+                    applied.add(Mutation.WHITESPACE);
+                }
+                Path target = projectDir.resolve(file.relativePath());
+                Files.createDirectories(target.getParent());
+                byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+                Files.write(target, bytes);
+                // Código inicial mantém a data do modelo; o restante recebe datas próprias de cada aluno
+                Files.setLastModifiedTime(target, file.starter() ? STARTER_TIME
+                        : FileTime.fromMillis(projectTime.toMillis() + random.nextInt(8 * 60) * 60_000L));
+                fileCount++;
+                totalBytes += bytes.length;
+            }
+            if (original != null) {
+                copies.add(new LabeledPair(original, name, Collections.unmodifiableSet(applied)));
+            }
+        }
+        writeGroundTruth(root, names, families);
+        return new Corpus(root, Collections.unmodifiableList(names), Collections.unmodifiableList(copies),
+                          Collections.unmodifiableMap(families), fileCount, totalBytes);
+    }
+
+    private void writeMarker(Path projectDir, String name) throws IOException {
+        switch (layout) {
+            case MAVEN -> Files.writeString(projectDir.resolve("pom.xml"),
+                    "<project>\n  <modelVersion>4.0.0</modelVersion>\n  <groupId>br.senac</groupId>\n  <artifactId>" + name
+                    + "</artifactId>\n  <version>1.0</version>\n</project>\n", StandardCharsets.UTF_8);
+            case GRADLE -> Files.writeString(projectDir.resolve("build.gradle"),
+                    "plugins {\n    id 'java'\n}\n\ngroup = 'br.senac'\nversion = '1.0'\n", StandardCharsets.UTF_8);
+            case WEB -> { // A raiz do projeto web é o diretório da primeira página HTML
+            }
+        }
+    }
+
+    private String relativePath(int index) {
+        if (layout != Layout.WEB) {
+            return "src/main/java/br/senac/projeto/Classe" + index + ".java";
+        }
+        return switch (index) {
+            case 0 -> "index.html";
+            case 1 -> "css/estilo.css";
+            case 2 -> "js/app.js";
+            default -> index % 2 == 0 ? "js/modulo" + index + ".js" : "pagina" + index + ".html";
+        };
+    }
+
+    private SourceFile generateFile(String relativePath, boolean starter, Random random) {
+        Set<String> identifiers = new LinkedHashSet<>();
+        List<String> blocks = new ArrayList<>();
+        String header;
+        String footer;
+        if (relativePath.endsWith(".java")) {
+            String className = relativePath.substring(relativePath.lastIndexOf('/') + 1, relativePath.length() - ".java".length());
+            header = "package br.senac.projeto;\n\nimport java.util.*;\n\npublic class " + className + " {\n";
+            footer = "}\n";
+        } else if (relativePath.endsWith(".html")) {
+            header = "<!DOCTYPE html>\n<html lang=\"pt-br\">\n<head>\n    <meta charset=\"utf-8\">\n    <title>" + sentence(random, 3)
+                     + "</title>\n    <link rel=\"stylesheet\" href=\"css/estilo.css\">\n</head>\n<body>\n";
+            footer = "    <script src=\"js/app.js\"></script>\n</body>\n</html>\n";
+        } else if (relativePath.endsWith(".css")) {
+            header = "/* " + sentence(random, 4) + " */\n";
+            footer = "";
+        } else {
+            header = "'use strict';\n\n";
+            footer = "";
+        }
+        int size = header.length() + footer.length();
+        while (size < fileSize) {
+            String block;
+            if (relativePath.endsWith(".java")) {
+                block = javaMethod(random, identifiers);
+            } else if (relativePath.endsWith(".html")) {
+                block = htmlSection(random, identifiers);
+            } else if (relativePath.endsWith(".css")) {
+                block = cssRule(random, identifiers);
+            } else {
+                block = jsFunction(random, identifiers);
+            }
+            blocks.add(block);
+            size += block.length();
+        }
+        return new SourceFile(relativePath, starter, header, blocks, footer, identifiers);
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder sentence = new StringBuilder();
+        for (int w = 0; w < words; w++) {
+            sentence.append(w == 0 ? "" : " ").append(TEXT_WORDS[random.nextInt(TEXT_WORDS.length)]);
+        }
+        return sentence.toString();
+    }
+
+    /** Identificador novo no arquivo, no formato {@code palavraPalavra}, com sufixo numérico se preciso. */
+    private static String identifier(Random random, Set<String> identifiers) {
+        String second = word(random);
+        String candidate = word(random) + Character.toUpperCase(second.charAt(0)) + second.substring(1);
+        String identifier = candidate;
+        for (int suffix = 2; identifiers.contains(identifier); suffix++) {
+            identifier = candidate + suffix;
+        }
+        identifiers.add(identifier);
+        return identifier;
+    }
+
+    private static String javaMethod(Random random, Set<String> identifiers) {
+        String type = JAVA_TYPES[random.nextInt(JAVA_TYPES.length)];
+        String method = identifier(random, identifiers);
+        String parameter = identifier(random, identifiers);
+        StringBuilder block = new StringBuilder("\n    public ").append(type).append(' ').append(method)
+                .append("(").append(type).append(' ').append(parameter).append(") {\n");
+        String previous = parameter;
+        int statements = 2 + random.nextInt(5);
+        for (int s = 0; s < statements; s++) {
+            String variable = identifier(random, identifiers);
+            block.append("        ").append(type).append(' ').append(variable).append(" = ").append(previous)
+                 .append(" + ").append(random.nextInt(1000)).append(";\n");
+            if (random.nextInt(4) == 0) {
+                block.append("        // ").append(sentence(random, 4)).append('\n');
+            }
+            previous = variable;
+        }
+        return block.append("        return ").append(previous).append(";\n    }\n").toString();
+    }
+
+    private static String htmlSection(Random random, Set<String> identifiers) {
+        StringBuilder block = new StringBuilder("    <section id=\"").append(identifier(random, identifiers))
+                .append("\" class=\"").append(identifier(random, identifiers)).append("\">\n        <h2>")
+                .append(sentence(random, 3)).append("</h2>\n");
+        int paragraphs = 1 + random.nextInt(3);
+        for (int p = 0; p < paragraphs; p++) {
+            block.append("        <p>").append(sentence(random, 8 + random.nextInt(10))).append("</p>\n");
+        }
+        return block.append("    </section>\n").toString();
+    }
+
+    private static String cssRule(Random random, Set<String> identifiers) {
+        return "\n." + identifier(random, identifiers) + " {\n    color: #" + String.format("%06x", random.nextInt(1 << 24))
+               + ";\n    margin: " + random.nextInt(32) + "px " + random.nextInt(32) + "px;\n    font-size: "
+               + (10 + random.nextInt(14)) + "px;\n}\n";
+    }
+
+    private static String jsFunction(Random random, Set<String> identifiers) {
+        String function = identifier(random, identifiers);
+        String parameter = identifier(random, identifiers);
+        String variable = identifier(random, identifiers);
+        return "\nfunction " + function + "(" + parameter + ") {\n    const " + variable + " = " + parameter + " * "
+               + (2 + random.nextInt(50)) + ";\n    if (" + variable + " > " + random.nextInt(1000) + ") {\n        console.log('"
+               + sentence(random, 3) + "');\n    }\n    return " + variable + ";\n}\n";
+    }
+
+    /** Cópia de {@code file} com identificadores renomeados e blocos reordenados, conforme as taxas configuradas. */
+    private SourceFile mutate(SourceFile file, Random random, Set<Mutation> applied) {
+        Map<String, String> renames = new HashMap<>();
+        Set<String> identifiers = new LinkedHashSet<>(file.identifiers());
+        for (String identifier : file.identifiers()) {
+            if (random.nextDouble() < renameRate) {
+                renames.put(identifier, identifier(random, identifiers));
+            }
+        }
+        List<String> blocks = new ArrayList<>(file.blocks().size());
+        Pattern pattern = renames.isEmpty() ? null : Pattern.compile("\\b(" + String.join("|", renames.keySet()) + ")\\b");
+        for (String block : file.blocks()) {
+            blocks.add(pattern == null ? block : pattern.matcher(block).replaceAll(m -> Matcher.quoteReplacement(renames.get(m.group(1)))));
+        }
+        if (!renames.isEmpty()) {
+            applied.add(Mutation.RENAME_IDENTIFIERS);
+        }
+        if (blocks.size() > 1 && random.nextDouble() < reorderRate) {
+            Collections.shuffle(blocks, random);
+            applied.add(Mutation.REORDER_BLOCKS);
+        }
+        return new SourceFile(file.relativePath(), false, file.header(), blocks, file.footer(), identifiers);
+    }
+
+    /** Troca indentação por tabs, acrescenta espaços no fim de linhas e linhas em branco, e às vezes usa CRLF. */
+    private static String mutateWhitespace(String content, Random random) {
+        StringBuilder mutated = new StringBuilder(content.length() + content.length() / 8);
+        String lineBreak = random.nextBoolean() ? "\r\n" : "\n";
+        for (String line : content.split("\n", -1)) {
+            if (random.nextInt(3) == 0) {
+                line = line.replace("    ", "\t");
+            }
+            mutated.append(line);
+            if (random.nextInt(8) == 0) {
+                mutated.append("   ");
+            }
+            mutated.append(lineBreak);
+            if (random.nextInt(15) == 0) {
+                mutated.append(lineBreak);
+            }
+        }
+        mutated.setLength(mutated.length() - lineBreak.length()); // split(-1) gera um último elemento após o '\n' final
+        return mutated.toString();
+    }
+
+    private static void writeGroundTruth(Path root, List<String> names, Map<String, String> families) throws IOException {
+        StringBuilder csv = new StringBuilder("projeto_a;projeto_b\n");
+        for (int i = 0; i < names.size(); i++) {
+            for (int j = i + 1; j < names.size(); j++) {
+                if (families.get(names.get(i)).equals(families.get(names.get(j)))) {
+                    csv.append(names.get(i)).append(';').append(names.get(j)).append('\n');
+                }
+            }
+        }
+        Files.writeString(root.resolve(GROUND_TRUTH_FILE), csv, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.projectcomparator.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.example.projectcomparator.config.ComparatorProperties;
+import com.example.projectcomparator.model.Project;
+import com.example.projectcomparator.model.SimilarityMatrix;
+
+class SyntheticCorpusGeneratorTests {
+
+	@TempDir
+	Path tempDir;
+
+	private static ProjectFinderService finder(ComparatorProperties properties) {
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		return new ProjectFinderService(properties, new FingerprintIndex(properties), new FileAccess(properties, meterRegistry), meterRegistry);
+	}
+
+	@Test
+	void generatesLayoutsThatProjectFinderDiscovers() throws IOException {
+		ComparatorProperties properties = new ComparatorProperties();
+		for (SyntheticCorpusGenerator.Layout layout : SyntheticCorpusGenerator.Layout.values()) {
+			SyntheticCorpusGenerator generator = new SyntheticCorpusGenerator();
+			generator.setLayout(layout);
+			generator.setProjectCount(6);
+			generator.setFilesPerProject(5);
+			generator.setFileSize(1024);
+			SyntheticCorpusGenerator.Corpus corpus = generator.generate(tempDir.resolve(layout.name()));
+
+			List<Project> projects = finder(properties).findProjects(corpus.root(), layout == SyntheticCorpusGenerator.Layout.WEB);
+			assertThat(projects).extracting(Project::getName).containsExactlyElementsOf(corpus.projectNames());
+			for (Project project : projects) {
+				// O pom.xml também é um arquivo relevante; build.gradle não
+				assertThat(project.getFiles()).hasSize(layout == SyntheticCorpusGenerator.Layout.MAVEN ? 6 : 5);
+			}
+			assertThat(corpus.fileCount()).isEqualTo(30);
+
+			// Mesma semente, mesmo corpus
+			SyntheticCorpusGenerator.Corpus again = generator.generate(tempDir.resolve(layout.name() + "-2"));
+			assertThat(again.copies()).isEqualTo(corpus.copies());
+			assertThat(again.totalBytes()).isEqualTo(corpus.totalBytes());
+			assertThat(Files.readString(again.root().resolve(SyntheticCorpusGenerator.GROUND_TRUTH_FILE)))
+					.isEqualTo(Files.readString(corpus.root().resolve(SyntheticCorpusGenerator.GROUND_TRUTH_FILE)));
+		}
+	}
+
+	@Test
+	void labeledCopiesOutscoreIndependentProjects() throws IOException {
+		SyntheticCorpusGenerator generator = new SyntheticCorpusGenerator();
+		generator.setProjectCount(14);
+		generator.setFilesPerProject(8);
+		generator.setCopyRate(0.4);
+		generator.setStarterRatio(0.25);
+		generator.setSeed(2024);
+		SyntheticCorpusGenerator.Corpus corpus = generator.generate(tempDir.resolve("corpus"));
+		assertThat(corpus.copies()).isNotEmpty();
+		assertThat(corpus.copies()).allSatisfy(pair -> assertThat(pair.mutations()).isNotEmpty());
+		String groundTruth = Files.readString(corpus.root().resolve(SyntheticCorpusGenerator.GROUND_TRUTH_FILE), StandardCharsets.UTF_8);
+		for (SyntheticCorpusGenerator.LabeledPair pair : corpus.copies()) {
+			assertThat(groundTruth).contains(pair.original() + ";" + pair.copy() + "\n");
+		}
+
+		for (ComparatorProperties.Similarity.Strategy strategy : ComparatorProperties.Similarity.Strategy.values()) {
+			ComparatorProperties properties = new ComparatorProperties();
+			properties.getSimilarity().setStrategy(strategy);
+			List<Project> projects = finder(properties).findProjects(corpus.root(), false);
+			List<String> names = projects.stream().map(Project::getName).collect(Collectors.toList());
+			Map<String, Project> projectMap = projects.stream().collect(Collectors.toMap(Project::getName, Function.identity()));
+			SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+			FileAccess fileAccess = new FileAccess(properties, meterRegistry);
+			ProjectComparerService service = new ProjectComparerService(properties, new FingerprintIndex(properties), fileAccess, meterRegistry);
+			SimilarityMatrix matrix = new ComparisonEngine(service, new CandidatePairSelector(service, properties),
+					new ProgressReporter(properties, fileAccess), properties, meterRegistry)
+					.computeSimilarityMatrix(names, projectMap);
+
+			double lowestRelated = Double.MAX_VALUE;
+			double highestUnrelated = 0;
+			for (int i = 0; i < names.size(); i++) {
+				for (int j = i + 1; j < names.size(); j++) {
+					if (corpus.isRelated(names.get(i), names.get(j))) {
+						lowestRelated = Math.min(lowestRelated, matrix.get(i, j));
+					} else {
+						highestUnrelated = Math.max(highestUnrelated, matrix.get(i, j));
+					}
+				}
+			}
+			assertThat(lowestRelated).as("estratégia %s", strategy).isGreaterThan(highestUnrelated);
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package com.example.projectcomparator.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.example.projectcomparator.config.ComparatorProperties;
+import com.example.projectcomparator.model.FileInfo;
+import com.example.projectcomparator.model.Project;
+
+class TextEncodingTests {
+
+	private static final FileTime TIME = FileTime.fromMillis(1_700_000_000_000L);
+	private static final Charset WINDOWS_1252 = Charset.forName("windows-1252");
+
+	@TempDir
+	Path tempDir;
+
+	private static TextEncoding detect(int... bytes) {
+		byte[] array = new byte[bytes.length];
+		for (int i = 0; i < bytes.length; i++) {
+			array[i] = (byte) bytes[i];
+		}
+		return TextEncoding.detect(ByteBuffer.wrap(array));
+	}
+
+	@Test
+	void detectsAsciiUtf8AndFallsBackToWindows1252() {
+		assertThat(detect()).isEqualTo(TextEncoding.ASCII);
+		assertThat(TextEncoding.detect(ByteBuffer.wrap("class Main {}\n".repeat(10).getBytes(StandardCharsets.US_ASCII))))
+				.isEqualTo(TextEncoding.ASCII);
+		assertThat(TextEncoding.detect(ByteBuffer.wrap("// Configuração 日本語 😀".getBytes(StandardCharsets.UTF_8))))
+				.isEqualTo(TextEncoding.UTF_8);
+		assertThat(TextEncoding.detect(ByteBuffer.wrap("// Configuração".getBytes(WINDOWS_1252))))
+				.isEqualTo(TextEncoding.WINDOWS_1252);
+
+		assertThat(detect(0xC3)).as("sequência cortada no fim").isEqualTo(TextEncoding.WINDOWS_1252);
+		assertThat(detect(0xC0, 0x80)).as("sequência longa demais").isEqualTo(TextEncoding.WINDOWS_1252);
+		assertThat(detect(0xE0, 0x80, 0x80)).as("sequência longa demais").isEqualTo(TextEncoding.WINDOWS_1252);
+		assertThat(detect(0xED, 0xA0, 0x80)).as("surrogate").isEqualTo(TextEncoding.WINDOWS_1252);
+		assertThat(detect(0xF4, 0x90, 0x80, 0x80)).as("acima de U+10FFFF").isEqualTo(TextEncoding.WINDOWS_1252);
+		assertThat(detect(0xF4, 0x8F, 0xBF, 0xBF)).isEqualTo(TextEncoding.UTF_8);
+		assertThat(detect(0xE2, 0x82, 0x41)).as("continuação inválida").isEqualTo(TextEncoding.WINDOWS_1252);
+
+		// Só a região entre a posição e o limite conta, e ela não é alterada
+		ByteBuffer slice = ByteBuffer.wrap(new byte[] { (byte) 0xE9, 'a', 'b', (byte) 0xE9 }).position(1).limit(3);
+		assertThat(TextEncoding.detect(slice)).isEqualTo(TextEncoding.ASCII);
+		assertThat(slice.position()).isEqualTo(1);
+	}
+
+	@Test
+	void detectorGivesTheSameResultWhateverTheBlockBoundaries() {
+		for (byte[] bytes : new byte[][] { "// Configuração 日本語 😀".getBytes(StandardCharsets.UTF_8),
+				"// Configuração".getBytes(WINDOWS_1252), "class Main {}".getBytes(StandardCharsets.US_ASCII),
+				{ 'a', (byte) 0xE2, (byte) 0x82 } }) {
+			TextEncoding whole = TextEncoding.detect(ByteBuffer.wrap(bytes));
+			for (int split = 0; split <= bytes.length; split++) {
+				TextEncoding.Detector detector = new TextEncoding.Detector();
+				detector.update(ByteBuffer.wrap(bytes, 0, split)).update(ByteBuffer.wrap(bytes, split, bytes.length - split));
+				assertThat(detector.result()).as("corte em %d", split).isEqualTo(whole);
+			}
+		}
+	}
+
+	@Test
+	void windows1252FilesAreComparedInsteadOfTreatedAsEmpty() throws IOException {
+		String source = "public class Cadastro {\n    // Configuração da conexão\n    String descrição = \"ação\";\n}\n";
+		Path utf8 = Files.write(tempDir.resolve("utf8.java"), source.getBytes(StandardCharsets.UTF_8));
+		Path latin = Files.write(tempDir.resolve("latin.java"), source.replace("\n", "\r\n").getBytes(WINDOWS_1252));
+		Project p1 = new Project("p1", tempDir, Map.of("Cadastro.java", new FileInfo("Cadastro.java", utf8, Files.size(utf8), "a", TIME, TIME)));
+		Project p2 = new Project("p2", tempDir, Map.of("Cadastro.java", new FileInfo("Cadastro.java", latin, Files.size(latin), "b", TIME, TIME)));
+
+		for (ComparatorProperties.Similarity.Strategy strategy : ComparatorProperties.Similarity.Strategy.values()) {
+			ComparatorProperties properties = new ComparatorProperties();
+			properties.getSimilarity().setStrategy(strategy);
+			SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+			ProjectComparerService service = new ProjectComparerService(properties, new FingerprintIndex(properties),
+					new FileAccess(properties, meterRegistry), meterRegistry);
+
+			// Mesmo texto depois de decodificado e normalizado: conteúdo idêntico, só os hashes diferem
+			assertThat(service.compareProjects(p1, p2).getSimilarityPercentage()).as(strategy.name()).isEqualTo(100.0);
+			assertThat(meterRegistry.get("comparator.files.fallback-encoding").counter().count()).isEqualTo(1.0);
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package com.example.projectcomparator.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class TextNormalizerTests {
+
+	/** Pipeline original (regex + split), mantido aqui como referência de equivalência. */
+	private static String legacyNormalize(String content) {
+		content = content.replaceAll("\r\n", "\n").replaceAll("\r", "\n");
+		String[] lines = content.split("\n");
+		StringBuilder normalized = new StringBuilder();
+		boolean lastLineWasEffectivelyBlank = false;
+		for (String line : lines) {
+			String trimmedLine = line.trim().replaceAll("\\s+", " ");
+			if (trimmedLine.isEmpty()) {
+				if (!lastLineWasEffectivelyBlank) {
+					normalized.append("\n");
+					lastLineWasEffectivelyBlank = true;
+				}
+			} else {
+				normalized.append(trimmedLine).append("\n");
+				lastLineWasEffectivelyBlank = false;
+			}
+		}
+		if (normalized.length() > 0 && normalized.charAt(normalized.length() - 1) == '\n') {
+			normalized.setLength(normalized.length() - 1);
+		}
+		return normalized.toString();
+	}
+
+	/** Reader que devolve poucos caracteres por leitura, para exercitar as fronteiras de bloco. */
+	private static Reader trickleReader(String content, int maxChunk) {
+		return new StringReader(content) {
+			@Override
+			public int read(char[] cbuf, int off, int len) throws IOException {
+				return super.read(cbuf, off, Math.min(len, maxChunk));
+			}
+		};
+	}
+
+	static Stream<Path> goldenFiles() throws IOException, URISyntaxException {
+		Path dir = Path.of(TextNormalizerTests.class.getResource("/normalizer").toURI());
+		List<Path> inputs;
+		try (Stream<Path> files = Files.list(dir)) {
+			inputs = files.filter(p -> p.toString().endsWith(".txt")).sorted().toList();
+		}
+		return inputs.stream();
+	}
+
+	@ParameterizedTest
+	@MethodSource("goldenFiles")
+	void matchesGoldenFile(Path input) throws IOException {
+		String content = Files.readString(input, StandardCharsets.UTF_8);
+		String expected = Files.readString(Path.of(input.toString().replace(".txt", ".expected")), StandardCharsets.UTF_8);
+
+		assertThat(TextNormalizer.normalize(content)).isEqualTo(expected);
+
+		StringBuilder streamed = new StringBuilder("lixo de uma chamada anterior");
+		TextNormalizer normalizer = new TextNormalizer(streamed);
+		for (int chunk = 1; chunk <= 3; chunk++) {
+			normalizer.normalizeInto(trickleReader(content, chunk));
+			assertThat(streamed.toString()).isEqualTo(expected);
+		}
+
+		byte[] bytes = Files.readAllBytes(input);
+		normalizer.normalizeInto(ByteBuffer.wrap(bytes), StandardCharsets.UTF_8.newDecoder());
+		assertThat(streamed.toString()).isEqualTo(expected);
+		normalizer.normalizeInto(ByteBuffer.allocateDirect(bytes.length).put(bytes).flip(), StandardCharsets.UTF_8.newDecoder());
+		assertThat(streamed.toString()).isEqualTo(expected);
+		// Com detecção da codificação: mesma saída, e o ASCII puro não passa pelo decoder
+		TextEncoding encoding = normalizer.normalizeInto(ByteBuffer.wrap(bytes));
+		assertThat(streamed.toString()).isEqualTo(expected);
+		assertThat(encoding).isIn(TextEncoding.ASCII, TextEncoding.UTF_8);
+		assertThat(normalizer.normalizeInto(ByteBuffer.allocateDirect(bytes.length).put(bytes).flip())).isEqualTo(encoding);
+		assertThat(streamed.toString()).isEqualTo(expected);
+	}
+
+	@Test
+	void decodesMultibyteSequencesSplitAcrossDirectBufferChunks() throws IOException {
+		StringBuilder content = new StringBuilder();
+		Random random = new Random(7);
+		while (content.length() < 40_000) {
+			content.append(switch (random.nextInt(6)) {
+				case 0 -> "ção ";
+				case 1 -> "\r\n";
+				case 2 -> "日本語\t";
+				case 3 -> "😀";
+				default -> "abc ";
+			});
+		}
+		String text = content.toString();
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		StringBuilder builder = new StringBuilder();
+		TextNormalizer normalizer = new TextNormalizer(builder);
+		for (int offset = 0; offset < 4; offset++) { // Desloca as fronteiras de bloco em relação aos caracteres
+			ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + offset);
+			direct.position(offset);
+			direct.put(bytes).position(offset);
+			normalizer.normalizeInto(direct, StandardCharsets.UTF_8.newDecoder());
+			assertThat(builder.toString()).isEqualTo(legacyNormalize(text));
+		}
+	}
+
+	@Test
+	void matchesLegacyPipelineOnRandomInput() throws IOException {
+		Random random = new Random(2024);
+		char[] alphabet = { 'a', 'b', ' ', ' ', '\t', '\n', '\n', '\r', '\u000B', '\f', '\u0001', '\u001c', 'ç', '　' };
+		StringBuilder builder = new StringBuilder();
+		TextNormalizer normalizer = new TextNormalizer(builder);
+		for (int round = 0; round < 5000; round++) {
+			StringBuilder input = new StringBuilder();
+			int length = random.nextInt(40);
+			for (int i = 0; i < length; i++) {
+				input.append(alphabet[random.nextInt(alphabet.length)]);
+			}
+			String content = input.toString();
+			String expected = legacyNormalize(content);
+
+			normalizer.normalizeInto(content);
+			assertThat(builder.toString()).as("entrada %s", content.chars().boxed().toList()).isEqualTo(expected);
+			normalizer.normalizeInto(trickleReader(content, 1 + random.nextInt(4)));
+			assertThat(builder.toString()).isEqualTo(expected);
+		}
+	}
+
+	@Test
+	void chunksConcatenateToTheNormalizedText() throws IOException {
+		Random random = new Random(99);
+		char[] alphabet = { 'a', 'b', 'c', ' ', ' ', '\t', '\n', '\n', '\r', 'ç' };
+		TextNormalizer normalizer = new TextNormalizer(new StringBuilder());
+		for (int round = 0; round < 2000; round++) {
+			StringBuilder input = new StringBuilder();
+			int length = random.nextInt(200);
+			for (int i = 0; i < length; i++) {
+				// Às vezes uma linha longa sem quebras, como em um .js minificado
+				input.append(random.nextInt(20) == 0 ? "x".repeat(random.nextInt(60)) : String.valueOf(alphabet[random.nextInt(alphabet.length)]));
+			}
+			String content = input.toString();
+			int chunkSize = 1 + random.nextInt(24);
+			List<String> chunks = new ArrayList<>();
+			normalizer.normalizeChunks(ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8.newDecoder(),
+					chunkSize, chunk -> chunks.add(chunk.toString()));
+
+			assertThat(String.join("", chunks)).as("entrada %s, bloco %d", content, chunkSize).isEqualTo(legacyNormalize(content));
+			assertThat(chunks).allSatisfy(chunk -> assertThat(chunk).isNotEmpty().hasSizeLessThanOrEqualTo(2 * chunkSize + 1));
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package com.example.projectcomparator.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class WinnowingFingerprinterTests {
+
+	private final WinnowingFingerprinter fingerprinter = new WinnowingFingerprinter(5, 4);
+
+	@Test
+	void fingerprintsAreSortedAndUnique() {
+		long[] fingerprints = fingerprinter.fingerprint("public class Foo { int a; int b; int a; int b; }");
+		assertThat(fingerprints).isNotEmpty().isSorted().doesNotHaveDuplicates();
+	}
+
+	@Test
+	void sharedPassageIsDetectedRegardlessOfSurroundingText() {
+		String shared = "for (int i = 0; i < items.size(); i++) { total += items.get(i).getPrice(); }";
+		long[] a = fingerprinter.fingerprint("class Cart {\n" + shared + "\n}");
+		long[] b = fingerprinter.fingerprint("// outro aluno\nclass Pedido {\nint x;\n" + shared + "\nreturn total;\n}");
+		long[] unrelated = fingerprinter.fingerprint("SELECT nome, email FROM clientes WHERE ativo = 1 ORDER BY nome");
+
+		assertThat(WinnowingFingerprinter.similarity(a, a)).isEqualTo(1.0);
+		assertThat(WinnowingFingerprinter.similarity(a, b)).isGreaterThan(0.4);
+		assertThat(WinnowingFingerprinter.similarity(a, unrelated)).isLessThan(0.05);
+	}
+
+	@Test
+	void emptyContentFollowsSameRulesAsJaroWinkler() {
+		long[] empty = fingerprinter.fingerprint("");
+		assertThat(WinnowingFingerprinter.similarity(empty, empty)).isEqualTo(1.0);
+		assertThat(WinnowingFingerprinter.similarity(empty, fingerprinter.fingerprint("abc"))).isEqualTo(0.0);
+	}
+
+	@Test
+	void incrementalFingerprintsMatchTheWholeTextWhateverTheSplits() {
+		Random random = new Random(7);
+		// Vazio, menor que k, menos k-gramas que uma janela, exatamente uma janela e textos longos
+		for (int length : new int[] { 0, 3, 6, 8, 9, 100, 5_000 }) {
+			StringBuilder text = new StringBuilder();
+			for (int i = 0; i < length; i++) {
+				text.append((char) ('a' + random.nextInt(4))); // Alfabeto pequeno: muitos hashes repetidos na janela
+			}
+			WinnowingFingerprinter.Incremental incremental = fingerprinter.incremental();
+			for (int start = 0; start < length; ) {
+				int end = Math.min(length, start + 1 + random.nextInt(17));
+				incremental.append(text.subSequence(start, end));
+				start = end;
+			}
+			assertThat(incremental.finish()).as("%d caracteres", length).containsExactly(fingerprinter.fingerprint(text));
+		}
+	}
+}